@@ -0,0 +1,6 @@
+package cnn.analyzer;
+
+// Group-bys and metrics AggregationEngine can compute; top-N is requested by count
+public enum Aggregate {
+    BY_AUTHOR, BY_CATEGORY, BY_DATE, WORDS_BY_CATEGORY
+}
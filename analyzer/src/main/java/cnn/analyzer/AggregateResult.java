@@ -0,0 +1,72 @@
+package cnn.analyzer;
+
+import java.time.*;
+import java.util.*;
+
+// Merged aggregates from one engine pass, resolved back to names and articles
+public class AggregateResult implements ArticleSummary {
+    private final ArticleCollection collection;
+    private final PartialAggregates totals;
+    
+    AggregateResult(ArticleCollection collection, PartialAggregates totals) {
+        this.collection = collection;
+        this.totals = totals;
+    }
+    
+    public int getTotalArticles() {
+        return collection.getTotalArticles();
+    }
+    
+    public Map<String, Integer> getArticlesByAuthor() {
+        Map<String, Integer> map = new HashMap<>();
+        int[] counts = requested(totals.byAuthor, Aggregate.BY_AUTHOR);
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) map.put(collection.author(id), counts[id]);
+        }
+        return map;
+    }
+    
+    public Map<String, Integer> getArticlesByCategory() {
+        Map<String, Integer> map = new HashMap<>();
+        int[] counts = requested(totals.byCategory, Aggregate.BY_CATEGORY);
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) map.put(collection.category(id), counts[id]);
+        }
+        return map;
+    }
+    
+    public Map<LocalDate, Integer> getArticlesByDate() {
+        if (totals.byDate == null) throw notRequested(Aggregate.BY_DATE);
+        return totals.byDate.toMap();
+    }
+    
+    public Map<String, Double> getAvgWordCountByCategory() {
+        Map<String, Double> avgWords = new HashMap<>();
+        int[] counts = requested(totals.wordCounted, Aggregate.WORDS_BY_CATEGORY);
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) avgWords.put(collection.category(id), (double) totals.wordSums[id] / counts[id]);
+        }
+        return avgWords;
+    }
+    
+    public List<Article> getTopArticlesByWordCount(int n) {
+        int kept = totals.top != null ? totals.top.capacity() : 0;
+        if (n > kept) throw new IllegalArgumentException("Only the top " + kept + " were computed");
+        
+        int[] rows = totals.top != null ? totals.top.rowsDescending() : new int[0];
+        List<Article> top = new ArrayList<>();
+        for (int i = 0; i < Math.min(n, rows.length); i++) {
+            top.add(collection.get(rows[i]));
+        }
+        return top;
+    }
+    
+    private static int[] requested(int[] counts, Aggregate aggregate) {
+        if (counts == null) throw notRequested(aggregate);
+        return counts;
+    }
+    
+    private static IllegalStateException notRequested(Aggregate aggregate) {
+        return new IllegalStateException(aggregate + " was not computed");
+    }
+}
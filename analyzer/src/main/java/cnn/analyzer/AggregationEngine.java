@@ -0,0 +1,79 @@
+package cnn.analyzer;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Computes any set of aggregates over an ArticleCollection in a single pass.
+ * The rows are split into ranges on a fork-join pool; each leaf runs one
+ * fused loop over the column arrays into its own PartialAggregates, and
+ * partials are merged pairwise as the tasks join. Top-N is a bounded heap
+ * per leaf, so nothing is sorted beyond the n kept.
+ */
+public class AggregationEngine {
+    // Rows per leaf task; ranges at most this big are not split further
+    static final int LEAF_ROWS = 16384;
+    
+    private final int parallelism;
+    
+    public AggregationEngine(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be at least 1");
+        this.parallelism = parallelism;
+    }
+    
+    public AggregateResult run(ArticleCollection collection, Set<Aggregate> aggregates, int topN) {
+        int size = collection.getTotalArticles();
+        if (parallelism == 1 || size <= LEAF_ROWS) {
+            PartialAggregates partial = new PartialAggregates(collection, aggregates, topN);
+            collection.accumulate(0, size, partial);
+            return new AggregateResult(collection, partial);
+        }
+        
+        // A few leaves per worker, so a slow one does not leave the others idle
+        int leafRows = Math.max(LEAF_ROWS, size / (parallelism * 4) + 1);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            PartialAggregates merged = pool.invoke(
+                new RangeTask(collection, aggregates, topN, 0, size, leafRows));
+            return new AggregateResult(collection, merged);
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private static class RangeTask extends RecursiveTask<PartialAggregates> {
+        private static final long serialVersionUID = 1L;
+        
+        private final ArticleCollection collection;
+        private final Set<Aggregate> aggregates;
+        private final int topN;
+        private final int from;
+        private final int to;
+        private final int leafRows;
+        
+        RangeTask(ArticleCollection collection, Set<Aggregate> aggregates, int topN,
+                  int from, int to, int leafRows) {
+            this.collection = collection;
+            this.aggregates = aggregates;
+            this.topN = topN;
+            this.from = from;
+            this.to = to;
+            this.leafRows = leafRows;
+        }
+        
+        @Override
+        protected PartialAggregates compute() {
+            if (to - from <= leafRows) {
+                PartialAggregates partial = new PartialAggregates(collection, aggregates, topN);
+                collection.accumulate(from, to, partial);
+                return partial;
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(collection, aggregates, topN, from, mid, leafRows);
+            RangeTask right = new RangeTask(collection, aggregates, topN, mid, to, leafRows);
+            left.fork();
+            PartialAggregates merged = right.compute();
+            return left.join().merge(merged);
+        }
+    }
+}
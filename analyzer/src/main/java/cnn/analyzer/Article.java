@@ -0,0 +1,108 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.regex.*;
+
+// Main Article Data Model
+public class Article {
+    private static final Pattern CATEGORY = Pattern.compile("cnn\\.com/\\d{4}/\\d{2}/\\d{2}/([^/]+)/");
+    
+    private String url;
+    private String title;
+    private String author;
+    private LocalDate publishDate;
+    private LocalDateTime receivedDate;
+    private int wordCount;
+    private String content;
+    
+    // When set, content is re-read from this file on first use
+    private Path source;
+    
+    // Derived values, computed on first use
+    private String category;
+    private TextStats stats;
+    
+    public Article(String url, String title, String author, LocalDate publishDate, 
+                   LocalDateTime receivedDate, int wordCount, String content) {
+        this.url = url;
+        this.title = title;
+        this.author = author;
+        this.publishDate = publishDate;
+        this.receivedDate = receivedDate;
+        this.wordCount = wordCount;
+        this.content = content;
+    }
+    
+    // Article with precomputed derived values; with a source, content can be null until getContent()
+    public Article(String url, String title, String author, LocalDate publishDate, LocalDateTime receivedDate,
+            int wordCount, String category, TextStats stats, String content, Path source) {
+        this(url, title, author, publishDate, receivedDate, wordCount, content);
+        this.category = category;
+        this.stats = stats;
+        this.source = source;
+    }
+    
+    // Getters
+    public String getUrl() { return url; }
+    public String getTitle() { return title; }
+    public String getAuthor() { return author; }
+    public LocalDate getPublishDate() { return publishDate; }
+    public LocalDateTime getReceivedDate() { return receivedDate; }
+    public int getWordCount() { return wordCount; }
+    
+    public String getContent() {
+        if (content == null && source != null) {
+            try {
+                content = CNNArticleParser.parseArticleFile(source).getContent();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot reload content from " + source, e);
+            }
+        }
+        return content;
+    }
+    
+    // Analysis methods for visualization
+    public int getContentLength() {
+        return getStats().characters;
+    }
+    
+    public int getSentenceCount() {
+        return getStats().sentences;
+    }
+    
+    public int getParagraphCount() {
+        return getStats().paragraphs;
+    }
+    
+    // From the file header when the server wrote one, otherwise counted once from the content
+    TextStats getStats() {
+        if (stats == null) {
+            String text = getContent();
+            stats = text != null ? TextStats.of(text) : TextStats.EMPTY;
+        }
+        return stats;
+    }
+    
+    public double getAvgWordsPerSentence() {
+        int sentences = getSentenceCount();
+        return sentences > 0 ? (double) wordCount / sentences : 0;
+    }
+    
+    public String getCategory() {
+        // Lowercased section from the URL, the same rule as the server's Article.category
+        if (category == null) {
+            Matcher m = CATEGORY.matcher(url);
+            category = m.find() ? m.group(1).toLowerCase(Locale.ROOT) : "unknown";
+        }
+        return category;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Article[title='%s', author='%s', date=%s, words=%d]",
+                           title, author, publishDate, wordCount);
+    }
+}
@@ -0,0 +1,175 @@
+package cnn.analyzer;
+
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+// Article Collection for Analysis
+/**
+ * Column store: one primitive array per numeric field, authors and
+ * categories dictionary-encoded to int IDs, and no article bodies. Content
+ * is re-read from the source file when asked for, or kept in a side column
+ * only for articles added without one. Aggregations are AggregationEngine
+ * passes over the int arrays; Article objects are only built by get(i).
+ */
+public class ArticleCollection implements ArticleSummary {
+    static final long NO_DATE = Long.MIN_VALUE;
+    
+    private int size;
+    private String[] urls = new String[16];
+    private String[] titles = new String[16];
+    private int[] authorIds = new int[16];
+    private int[] categoryIds = new int[16];
+    private int[] wordCounts = new int[16];
+    private int[] sentenceCounts = new int[16];
+    private int[] characterCounts = new int[16];
+    private int[] paragraphCounts = new int[16];
+    private long[] publishDays = new long[16];
+    private long[] receivedSeconds = new long[16];
+    private int[] receivedNanos = new int[16];
+    private Path[] sources = new Path[16];
+    private String[] contents = new String[16];
+    
+    private final StringDictionary authors = new StringDictionary();
+    private final StringDictionary categories = new StringDictionary();
+    
+    public ArticleCollection() {
+    }
+    
+    public void addArticle(Article article) {
+        addArticle(article, null);
+    }
+    
+    /** Adds an article parsed from source; its content is dropped and re-read from there on demand. */
+    public void addArticle(Article article, Path source) {
+        LocalDateTime received = article.getReceivedDate();
+        add(article.getUrl(), article.getTitle(), article.getAuthor(), article.getCategory(),
+            article.getWordCount(), article.getSentenceCount(), article.getContentLength(),
+            article.getParagraphCount(),
+            article.getPublishDate() != null ? article.getPublishDate().toEpochDay() : NO_DATE,
+            received != null ? received.toEpochSecond(ZoneOffset.UTC) : NO_DATE,
+            received != null ? received.getNano() : 0,
+            source, source == null ? article.getContent() : null);
+    }
+    
+    // One row from its column values, as ArticleSnapshot stores them; NO_DATE marks a missing date
+    void add(String url, String title, String author, String category,
+             int words, int sentences, int characters, int paragraphs, long publishDay, long receivedSecond, int receivedNano, Path source, String content) {
+        if (size == urls.length) grow();
+        
+        int i = size++;
+        urls[i] = url;
+        titles[i] = title;
+        authorIds[i] = authors.idOf(author);
+        categoryIds[i] = categories.idOf(category);
+        wordCounts[i] = words;
+        sentenceCounts[i] = sentences;
+        characterCounts[i] = characters;
+        paragraphCounts[i] = paragraphs;
+        publishDays[i] = publishDay;
+        receivedSeconds[i] = receivedSecond;
+        receivedNanos[i] = receivedNano;
+        sources[i] = source;
+        contents[i] = content;
+    }
+    
+    private void grow() {
+        int capacity = urls.length * 2;
+        urls = Arrays.copyOf(urls, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        authorIds = Arrays.copyOf(authorIds, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        wordCounts = Arrays.copyOf(wordCounts, capacity);
+        sentenceCounts = Arrays.copyOf(sentenceCounts, capacity);
+        characterCounts = Arrays.copyOf(characterCounts, capacity);
+        paragraphCounts = Arrays.copyOf(paragraphCounts, capacity);
+        publishDays = Arrays.copyOf(publishDays, capacity);
+        receivedSeconds = Arrays.copyOf(receivedSeconds, capacity);
+        receivedNanos = Arrays.copyOf(receivedNanos, capacity);
+        sources = Arrays.copyOf(sources, capacity);
+        contents = Arrays.copyOf(contents, capacity);
+    }
+    
+    /** Materializes the i-th article; its content is loaded lazily if it came from a file. */
+    public Article get(int i) {
+        Objects.checkIndex(i, size);
+        LocalDateTime received = receivedSeconds[i] != NO_DATE
+            ? LocalDateTime.ofEpochSecond(receivedSeconds[i], receivedNanos[i], ZoneOffset.UTC) : null;
+        
+        return new Article(urls[i], titles[i], authors.valueOf(authorIds[i]), publishDate(i), received,
+                           wordCounts[i], categories.valueOf(categoryIds[i]),
+                           new TextStats(wordCounts[i], sentenceCounts[i], characterCounts[i], paragraphCounts[i]),
+                           contents[i], sources[i]);
+    }
+    
+    public List<Article> getArticles() {
+        List<Article> articles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            articles.add(get(i));
+        }
+        return articles;
+    }
+    
+    public int getTotalArticles() {
+        return size;
+    }
+    
+    private LocalDate publishDate(int i) {
+        return toDate(publishDays[i]);
+    }
+    
+    // Analytics methods for visualization; each is one engine pass, aggregate() fuses several
+    public Map<String, Integer> getArticlesByAuthor() {
+        return aggregate(EnumSet.of(Aggregate.BY_AUTHOR), 0).getArticlesByAuthor();
+    }
+    
+    public Map<String, Integer> getArticlesByCategory() {
+        return aggregate(EnumSet.of(Aggregate.BY_CATEGORY), 0).getArticlesByCategory();
+    }
+    
+    public Map<LocalDate, Integer> getArticlesByDate() {
+        return aggregate(EnumSet.of(Aggregate.BY_DATE), 0).getArticlesByDate();
+    }
+    
+    public Map<String, Double> getAvgWordCountByCategory() {
+        return aggregate(EnumSet.of(Aggregate.WORDS_BY_CATEGORY), 0).getAvgWordCountByCategory();
+    }
+    
+    public List<Article> getTopArticlesByWordCount(int n) {
+        return aggregate(EnumSet.noneOf(Aggregate.class), n).getTopArticlesByWordCount(n);
+    }
+    
+    public AggregateResult aggregate(Set<Aggregate> aggregates, int topN) {
+        return new AggregationEngine(Runtime.getRuntime().availableProcessors()).run(this, aggregates, topN);
+    }
+    
+    int authorCount() { return authors.size(); }
+    int categoryCount() { return categories.size(); }
+    String author(int id) { return authors.valueOf(id); }
+    String category(int id) { return categories.valueOf(id); }
+    
+    // The fused loop behind AggregationEngine: rows [from, to) into one partial
+    void accumulate(int from, int to, PartialAggregates p) {
+        int[] byAuthor = p.byAuthor;
+        int[] byCategory = p.byCategory;
+        long[] wordSums = p.wordSums;
+        int[] wordCounted = p.wordCounted;
+        DayCounts byDate = p.byDate;
+        TopN top = p.top;
+        
+        for (int i = from; i < to; i++) {
+            if (byAuthor != null) byAuthor[authorIds[i]]++;
+            if (byCategory != null) byCategory[categoryIds[i]]++;
+            if (wordSums != null) {
+                wordSums[categoryIds[i]] += wordCounts[i];
+                wordCounted[categoryIds[i]]++;
+            }
+            if (byDate != null) byDate.increment(publishDays[i]);
+            if (top != null) top.offer(i, wordCounts[i]);
+        }
+    }
+    
+    static LocalDate toDate(long day) {
+        return day != NO_DATE ? LocalDate.ofEpochDay(day) : null;
+    }
+}
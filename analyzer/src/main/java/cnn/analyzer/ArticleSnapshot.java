@@ -0,0 +1,370 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Binary cache of a directory's parsed articles, kept in the directory as
+ * analyzer.snapshot, so a run only parses files that are new or changed.
+ * Each row holds one article's collection columns and its file's key:
+ * relative path, size and modification time. Rows are in sorted path order,
+ * the order files are listed and added in, so matching them against the
+ * listing is a single merge pass; unchanged files are added straight from
+ * the mapped snapshot, the rest are parsed, and the collection comes out
+ * identical to a cold parse. Files that failed to parse are not stored, so
+ * they are retried (and reported) on every run.
+ *
+ * Layout, all integers little-endian:
+ *
+ *   "CNNSNAP2", int32 rows, int32 authors, int32 categories, int32 0, int64 dictionary offset
+ *   rows, 80 bytes each: int64 size, mtime (ns), publish day, received second, heap position;
+ *     int32 received nano, author, category, words, sentences, characters, paragraphs,
+ *     path length, url length, title length
+ *   heap: each row's path, url and title in UTF-8
+ *   dictionaries: authors then categories, each an int32 length and UTF-8 bytes
+ *   "CNNSNAP2"
+ */
+public class ArticleSnapshot {
+    static final byte[] MAGIC = "CNNSNAP2".getBytes(StandardCharsets.US_ASCII);
+    public static final String FILE_NAME = "analyzer.snapshot";
+    static final int HEADER = 32;
+    static final int ROW = 80;
+    
+    // A file modified this recently could change again within the same mtime tick,
+    // unnoticed; it is left out and parsed again next run
+    static final long RACY_NANOS = TimeUnit.SECONDS.toNanos(2);
+    
+    private final ByteBuffer buf;
+    private final int rows;
+    private final String[] authors;
+    private final String[] categories;
+    private byte[] scratch = new byte[256];
+    
+    private ArticleSnapshot(ByteBuffer buf, int rows, String[] authors, String[] categories) {
+        this.buf = buf;
+        this.rows = rows;
+        this.authors = authors;
+        this.categories = categories;
+    }
+    
+    // A listed article file and the stat values it is cached under
+    static class FileKey {
+        final Path path;
+        final long size;
+        final long modified;
+        
+        FileKey(Path path, long size, long modified) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+    
+    /**
+     * Parses the directory like CNNArticleParser.parseDirectory, reusing
+     * analyzer.snapshot for unchanged files and rewriting it if anything
+     * changed. An unreadable or unwritable snapshot only costs a cold parse.
+     */
+    public static ParseResult parseDirectory(Path dir, ParseOptions options) {
+        ParseResult result = new ParseResult();
+        
+        List<FileKey> files;
+        try {
+            files = listFiles(dir);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading directory: " + e.getMessage());
+            return result;
+        }
+        
+        Path file = dir.resolve(FILE_NAME);
+        ArticleSnapshot previous = null;
+        try {
+            previous = open(file);
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable " + FILE_NAME + ", parsing everything: " + e.getMessage());
+        }
+        
+        // Merge the sorted listing with the sorted rows: unchanged[i] is file i's row, or -1
+        int[] unchanged = new int[files.size()];
+        List<Path> stale = new ArrayList<>();
+        int[] staleIndex = new int[files.size()];
+        int row = 0;
+        for (int i = 0; i < files.size(); i++) {
+            FileKey key = files.get(i);
+            unchanged[i] = -1;
+            while (previous != null && row < previous.rows) {
+                int cmp = dir.resolve(previous.path(row)).compareTo(key.path);
+                if (cmp > 0) break;
+                if (cmp == 0 && previous.size(row) == key.size && previous.modified(row) == key.modified) {
+                    unchanged[i] = row;
+                }
+                row++;
+                if (cmp == 0) break;
+            }
+            if (unchanged[i] < 0) {
+                staleIndex[stale.size()] = i;
+                stale.add(key.path);
+            }
+        }
+        
+        // Parsed files arrive in list order; add the unchanged rows listed before each one first
+        ArticleCollection collection = result.getCollection();
+        List<FileKey> stored = new ArrayList<>(files.size());
+        ArticleSnapshot snapshot = previous;
+        int[] next = {0};
+        int[] parsed = {0};
+        IntConsumer addUnchangedBefore = end -> {
+            for (; next[0] < end; next[0]++) {
+                if (unchanged[next[0]] < 0) continue;
+                snapshot.addTo(collection, unchanged[next[0]], files.get(next[0]).path);
+                stored.add(files.get(next[0]));
+                result.reused++;
+            }
+        };
+        CNNArticleParser.parseFiles(stale, options,
+            (path, article) -> {
+                int i = staleIndex[parsed[0]++];
+                addUnchangedBefore.accept(i);
+                collection.addArticle(article, path);
+                stored.add(files.get(i));
+                next[0] = i + 1;
+            },
+            (path, error) -> {
+                int i = staleIndex[parsed[0]++];
+                addUnchangedBefore.accept(i);
+                result.addError(path, error);
+                next[0] = i + 1;
+            });
+        addUnchangedBefore.accept(files.size());
+        
+        if (previous == null || !stale.isEmpty() || result.reused != previous.rows) {
+            try {
+                write(file, dir, collection, stored);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not write " + FILE_NAME + ": " + e.getMessage());
+            }
+        }
+        return result;
+    }
+    
+    /** Article files under dir in sorted order, with the size and mtime from the walk's own stat. */
+    static List<FileKey> listFiles(Path dir) throws IOException {
+        List<FileKey> files = new ArrayList<>();
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!CNNArticleParser.isArticleFile(file)) return FileVisitResult.CONTINUE;
+                // Like Files.isRegularFile, a link counts as the file it points to
+                if (attrs.isSymbolicLink()) {
+                    if (!Files.isRegularFile(file)) return FileVisitResult.CONTINUE;
+                    attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                }
+                if (attrs.isRegularFile()) {
+                    files.add(new FileKey(file, attrs.size(), attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS)));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        files.sort(Comparator.comparing(key -> key.path));
+        return files;
+    }
+    
+    /** Maps a snapshot and checks every row against the file's bounds; null if there is none. */
+    static ArticleSnapshot open(Path file) throws IOException {
+        if (!Files.exists(file)) return null;
+        
+        ByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER + MAGIC.length || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected size " + size);
+            }
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        int end = buf.capacity() - MAGIC.length;
+        if (!buf.slice(0, MAGIC.length).equals(ByteBuffer.wrap(MAGIC))
+                || !buf.slice(end, MAGIC.length).equals(ByteBuffer.wrap(MAGIC))) {
+            throw new IOException("Not a snapshot, or an incomplete one");
+        }
+        
+        int rows = buf.getInt(8);
+        long dictionaries = buf.getLong(24);
+        long heap = HEADER + (long) rows * ROW;
+        if (rows < 0 || heap > dictionaries || dictionaries > end) {
+            throw new IOException("Corrupt header");
+        }
+        
+        buf.position((int) dictionaries);
+        String[] authors = readStrings(buf, buf.getInt(12), end);
+        String[] categories = readStrings(buf, buf.getInt(16), end);
+        
+        ArticleSnapshot snapshot = new ArticleSnapshot(buf, rows, authors, categories);
+        for (int row = 0; row < rows; row++) {
+            int at = HEADER + row * ROW;
+            long position = buf.getLong(at + 32);
+            long length = (long) buf.getInt(at + 68) + buf.getInt(at + 72) + buf.getInt(at + 76);
+            if (position < heap || position + length > dictionaries
+                    || buf.getInt(at + 68) < 0 || buf.getInt(at + 72) < 0 || buf.getInt(at + 76) < 0
+                    || Integer.compareUnsigned(buf.getInt(at + 44), authors.length) >= 0
+                    || Integer.compareUnsigned(buf.getInt(at + 48), categories.length) >= 0) {
+                throw new IOException("Corrupt row " + row);
+            }
+        }
+        return snapshot;
+    }
+    
+    private static String[] readStrings(ByteBuffer buf, int count, int end) throws IOException {
+        if (count < 0) throw new IOException("Corrupt dictionary");
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = buf.remaining() >= 4 ? buf.getInt() : -1;
+            if (length < 0 || length > end - buf.position()) throw new IOException("Corrupt dictionary");
+            byte[] bytes = new byte[length];
+            buf.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+    
+    private long size(int row) {
+        return buf.getLong(HEADER + row * ROW);
+    }
+    
+    private long modified(int row) {
+        return buf.getLong(HEADER + row * ROW + 8);
+    }
+    
+    private String path(int row) {
+        int at = HEADER + row * ROW;
+        return string(buf.getLong(at + 32), buf.getInt(at + 68));
+    }
+    
+    private void addTo(ArticleCollection collection, int row, Path source) {
+        int at = HEADER + row * ROW;
+        long position = buf.getLong(at + 32);
+        int pathLength = buf.getInt(at + 68);
+        int urlLength = buf.getInt(at + 72);
+        collection.add(string(position + pathLength, urlLength),
+                       string(position + pathLength + urlLength, buf.getInt(at + 76)),
+                       authors[buf.getInt(at + 44)], categories[buf.getInt(at + 48)],
+                       buf.getInt(at + 52), buf.getInt(at + 56), buf.getInt(at + 60), buf.getInt(at + 64),
+                       buf.getLong(at + 16), buf.getLong(at + 24), buf.getInt(at + 40), source, null);
+    }
+    
+    private String string(long position, int length) {
+        if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        buf.get((int) position, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Writes the collection's rows, keyed by the files they came from, to a
+     * temporary file and moves it over the snapshot. Rows and heap are
+     * written side by side, each through its own buffer at its own offset.
+     */
+    static void write(Path target, Path dir, ArticleCollection collection, List<FileKey> keys) throws IOException {
+        long racy = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - RACY_NANOS;
+        int rows = 0;
+        for (FileKey key : keys) {
+            if (key.modified < racy) rows++;
+        }
+        
+        Path temp = target.resolveSibling(FILE_NAME + ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer rowBuffer = ByteBuffer.allocate(ROW * 1024).order(ByteOrder.LITTLE_ENDIAN);
+                ByteBuffer heapBuffer = ByteBuffer.allocate(256 << 10);
+                long rowPosition = HEADER;
+                long heapPosition = HEADER + (long) rows * ROW;
+                long heapWritten = heapPosition;
+                StringDictionary authors = new StringDictionary();
+                StringDictionary categories = new StringDictionary();
+                
+                for (int i = 0; i < keys.size(); i++) {
+                    FileKey key = keys.get(i);
+                    if (key.modified >= racy) continue;
+                    
+                    Article article = collection.get(i);
+                    byte[] path = dir.relativize(key.path).toString().getBytes(StandardCharsets.UTF_8);
+                    byte[] url = article.getUrl().getBytes(StandardCharsets.UTF_8);
+                    byte[] title = article.getTitle().getBytes(StandardCharsets.UTF_8);
+                    LocalDateTime received = article.getReceivedDate();
+                    TextStats stats = article.getStats();
+                    
+                    if (!rowBuffer.hasRemaining()) rowPosition += flush(out, rowBuffer, rowPosition);
+                    rowBuffer.putLong(key.size)
+                             .putLong(key.modified)
+                             .putLong(article.getPublishDate() != null
+                                      ? article.getPublishDate().toEpochDay() : ArticleCollection.NO_DATE)
+                             .putLong(received != null
+                                      ? received.toEpochSecond(ZoneOffset.UTC) : ArticleCollection.NO_DATE)
+                             .putLong(heapPosition)
+                             .putInt(received != null ? received.getNano() : 0)
+                             .putInt(authors.idOf(article.getAuthor()))
+                             .putInt(categories.idOf(article.getCategory()))
+                             .putInt(article.getWordCount())
+                             .putInt(stats.sentences)
+                             .putInt(stats.characters)
+                             .putInt(stats.paragraphs)
+                             .putInt(path.length)
+                             .putInt(url.length)
+                             .putInt(title.length);
+                    
+                    for (byte[] bytes : new byte[][] {path, url, title}) {
+                        if (heapBuffer.remaining() < bytes.length) heapWritten += flush(out, heapBuffer, heapWritten);
+                        if (bytes.length > heapBuffer.capacity()) {
+                            heapWritten += flush(out, ByteBuffer.wrap(bytes).position(bytes.length), heapWritten);
+                        } else {
+                            heapBuffer.put(bytes);
+                        }
+                        heapPosition += bytes.length;
+                    }
+                }
+                flush(out, rowBuffer, rowPosition);
+                heapWritten += flush(out, heapBuffer, heapWritten);
+                
+                ByteArrayOutputStream tail = new ByteArrayOutputStream();
+                DataOutputStream data = new DataOutputStream(tail);
+                for (StringDictionary dictionary : List.of(authors, categories)) {
+                    for (int id = 0; id < dictionary.size(); id++) {
+                        byte[] value = dictionary.valueOf(id).getBytes(StandardCharsets.UTF_8);
+                        data.writeInt(Integer.reverseBytes(value.length));
+                        data.write(value);
+                    }
+                }
+                data.write(MAGIC);
+                flush(out, ByteBuffer.wrap(tail.toByteArray()).position(tail.size()), heapWritten);
+                
+                ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN)
+                    .put(MAGIC).putInt(rows).putInt(authors.size()).putInt(categories.size()).putInt(0)
+                    .putLong(heapWritten);
+                flush(out, header, 0);
+                out.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    // Writes the buffer's contents at position and clears it; returns the bytes written
+    private static long flush(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+        buffer.clear();
+        return written;
+    }
+}
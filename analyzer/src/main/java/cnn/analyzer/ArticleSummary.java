@@ -0,0 +1,14 @@
+package cnn.analyzer;
+
+import java.time.*;
+import java.util.*;
+
+// Summary statistics shared by ArticleCollection and the incremental RunningAggregates
+interface ArticleSummary {
+    int getTotalArticles();
+    Map<String, Integer> getArticlesByAuthor();
+    Map<String, Integer> getArticlesByCategory();
+    Map<LocalDate, Integer> getArticlesByDate();
+    Map<String, Double> getAvgWordCountByCategory();
+    List<Article> getTopArticlesByWordCount(int n);
+}
@@ -0,0 +1,174 @@
+package cnn.analyzer;
+
+import java.util.*;
+
+/**
+ * Splits a body into terms and counts each distinct term once per article,
+ * reusing its tables from one article to the next. A term is a run of
+ * letters and digits with at least one letter and MIN_LENGTH characters,
+ * lowercased, and not a stopword; an apostrophe suffix ("’s", "n’t") is
+ * dropped. Terms are identified by a 64-bit hash of their lowercased chars
+ * and only become Strings when term() is called.
+ */
+public class ArticleTerms {
+    static final int MIN_LENGTH = 3;
+    
+    private static final long FNV_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int LETTER = 1;
+    private static final int DIGIT = 2;
+    private static final byte[] ASCII_KINDS = asciiKinds();
+    
+    // Words common enough to top every table, plus the stems left by dropping "n’t"
+    private static final long[] STOPWORDS = hashSet(
+        "the", "and", "for", "are", "but", "not", "you", "all", "any", "can", "had", "her", "was", "one",
+        "our", "out", "has", "his", "how", "its", "who", "did", "get", "him", "she", "too", "use", "that",
+        "with", "have", "this", "will", "your", "from", "they", "been", "were", "said", "says", "each",
+        "which", "their", "there", "what", "about", "would", "these", "other", "into", "more", "some",
+        "than", "them", "then", "also", "when", "where", "after", "over", "such", "only", "could",
+        "should", "just", "like", "while", "most", "many", "very", "being", "because", "those", "before",
+        "between", "against", "during", "under", "both", "told", "according", "here", "does", "doing",
+        "down", "off", "own", "same", "why", "whom", "itself", "himself", "herself", "themselves", "ours",
+        "yours", "don", "isn", "aren", "wasn", "weren", "didn", "doesn", "hasn", "haven", "couldn",
+        "wouldn", "shouldn");
+    
+    private char[] text = new char[4096];
+    private long[] hashes = new long[256];
+    private int[] counts = new int[256];
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    
+    // Open addressing: slot -> term index + 1, 0 when free
+    private int[] table = new int[512];
+    private int size;
+    
+    public void split(String content) {
+        int length = content.length();
+        if (text.length < length) text = new char[Integer.highestOneBit(length) << 1];
+        content.getChars(0, length, text, 0);
+        char[] text = this.text;
+        Arrays.fill(table, 0);
+        size = 0;
+        
+        for (int i = 0; i < length; ) {
+            if (kind(text[i]) == 0) {
+                i++;
+                continue;
+            }
+            int start = i;
+            long hash = FNV_BASIS;
+            boolean letter = false;
+            for (int kind; i < length && (kind = kind(text[i])) != 0; i++) {
+                letter |= kind == LETTER;
+                hash = (hash ^ lower(text[i])) * FNV_PRIME;
+            }
+            int end = i;
+            if (i + 1 < length && isApostrophe(text[i]) && kind(text[i + 1]) == LETTER) {
+                for (i++; i < length && kind(text[i]) != 0; i++) {
+                    // skip the suffix
+                }
+            }
+            if (letter && end - start >= MIN_LENGTH) {
+                hash = CountMinSketch.mix(hash);
+                if (!isStopword(hash)) add(hash, start, end);
+            }
+        }
+    }
+    
+    public int size() { return size; }
+    long hash(int i) { return hashes[i]; }
+    public int count(int i) { return counts[i]; }
+    
+    // The i-th term's text, lowercased
+    public String term(int i) {
+        char[] chars = new char[ends[i] - starts[i]];
+        for (int c = 0; c < chars.length; c++) {
+            chars[c] = lower(text[starts[i] + c]);
+        }
+        return new String(chars);
+    }
+    
+    /** The hash split() gives a term, for looking one up. */
+    static long hashOf(CharSequence term) {
+        long hash = FNV_BASIS;
+        for (int i = 0; i < term.length(); i++) {
+            hash = (hash ^ lower(term.charAt(i))) * FNV_PRIME;
+        }
+        return CountMinSketch.mix(hash);
+    }
+    
+    private void add(long hash, int start, int end) {
+        int mask = table.length - 1;
+        int slot = (int) hash & mask;
+        for (int t; (t = table[slot]) != 0; slot = slot + 1 & mask) {
+            if (hashes[t - 1] == hash) {
+                counts[t - 1]++;
+                return;
+            }
+        }
+        
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        hashes[size] = hash;
+        counts[size] = 1;
+        starts[size] = start;
+        ends[size] = end;
+        table[slot] = ++size;
+        if (size * 2 > table.length) rehash();
+    }
+    
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int t = 0; t < size; t++) {
+            int slot = (int) hashes[t] & mask;
+            while (table[slot] != 0) slot = slot + 1 & mask;
+            table[slot] = t + 1;
+        }
+    }
+    
+    private static int kind(char c) {
+        if (c < 128) return ASCII_KINDS[c];
+        return Character.isLetter(c) ? LETTER : Character.isDigit(c) ? DIGIT : 0;
+    }
+    
+    private static char lower(char c) {
+        if (c < 128) return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        return Character.toLowerCase(c);
+    }
+    
+    private static boolean isApostrophe(char c) {
+        return c == '\'' || c == '’';
+    }
+    
+    private static byte[] asciiKinds() {
+        byte[] kinds = new byte[128];
+        for (char c = '0'; c <= '9'; c++) kinds[c] = DIGIT;
+        for (char c = 'a'; c <= 'z'; c++) kinds[c] = kinds[c - 32] = LETTER;
+        return kinds;
+    }
+    
+    private static boolean isStopword(long hash) {
+        int mask = STOPWORDS.length - 1;
+        for (int slot = (int) hash & mask; STOPWORDS[slot] != 0; slot = slot + 1 & mask) {
+            if (STOPWORDS[slot] == hash) return true;
+        }
+        return false;
+    }
+    
+    // Open-addressing set of the words' hashes, at most a quarter full; 0 marks a free slot
+    private static long[] hashSet(String... words) {
+        long[] set = new long[Integer.highestOneBit(words.length * 4) << 1];
+        for (String word : words) {
+            long hash = hashOf(word);
+            int slot = (int) hash & set.length - 1;
+            while (set[slot] != 0 && set[slot] != hash) slot = slot + 1 & set.length - 1;
+            set[slot] = hash;
+        }
+        return set;
+    }
+}
@@ -0,0 +1,209 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Main class with usage example
+public class CNNArticleAnalyzer {
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--watch")) {
+            watch(args.length > 1 ? args[1] : "/home/admin/cnn_scape/articles_data");
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--trends")) {
+            trends(args.length > 1 ? args[1] : "/home/admin/cnn_scape/articles_data",
+                   Arrays.asList(args).subList(Math.min(2, args.length), args.length));
+            return;
+        }
+        if (args.length >= 3 && args[0].equals("--export")) {
+            export(args[1], args[2], args.length > 3 ? args[3] : null);
+            return;
+        }
+        
+        // Parse all articles from the specified directory
+        String articlesDir = args.length > 0 ? args[0] : "/home/admin/cnn_scape/articles_data";
+        ParseOptions options = ParseOptions.fromSystemProperties();
+        ParseResult result = options.snapshot
+            ? ArticleSnapshot.parseDirectory(Paths.get(articlesDir), options)
+            : CNNArticleParser.parseDirectory(articlesDir, options);
+        ArticleCollection collection = result.getCollection();
+        if (options.snapshot) {
+            System.out.println("Snapshot: " + result.getReused() + " articles unchanged, "
+                               + (collection.getTotalArticles() - result.getReused()) + " parsed");
+        }
+        
+        if (!result.getErrors().isEmpty()) {
+            System.err.println("\n--- " + result.getErrors().size() + " files could not be parsed ---");
+            result.getErrors().forEach((file, error) -> System.err.println(file + ": " + error));
+        }
+        
+        // Every aggregate in the summary from one pass over the collection
+        printSummary(new AggregationEngine(options.parallelism)
+                         .run(collection, EnumSet.allOf(Aggregate.class), 5));
+        
+        // Export data for visualization (CSV format)
+        exportToCSV(collection, "articles_export.csv");
+    }
+    
+    // Incremental mode: keep the summary current as articles arrive; Enter prints it
+    static void watch(String articlesDir) throws Exception {
+        IncrementalAnalyzer analyzer = new IncrementalAnalyzer(Paths.get(articlesDir),
+            ParseOptions.fromSystemProperties(), Long.getLong("cnn.checkpoint.secs", 10));
+        // Stop the watch loop before the final checkpoint, so nothing is applied after it
+        Thread watchThread = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                analyzer.stop();
+                watchThread.join(TimeUnit.SECONDS.toMillis(10));
+                analyzer.close();
+            } catch (IOException e) {
+                System.err.println("Error saving checkpoint: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        
+        System.out.println("Catching up: " + analyzer.catchUp() + " new articles since the last checkpoint");
+        printSummary(analyzer.getAggregates());
+        
+        Thread input = new Thread(() -> {
+            Scanner scanner = new Scanner(System.in);
+            while (scanner.hasNextLine()) {
+                scanner.nextLine();
+                printSummary(analyzer.getAggregates());
+            }
+        }, "summary-input");
+        input.setDaemon(true);
+        input.start();
+        
+        System.out.println("\nWatching " + articlesDir + " (press Enter for a summary, Ctrl+C to stop)");
+        analyzer.watch();
+    }
+    
+    // Counts bodies the last run has not seen, then prints rising terms, top terms and each given term by day
+    static void trends(String articlesDir, List<String> terms) throws IOException {
+        ParseOptions options = ParseOptions.fromSystemProperties();
+        Path dir = Paths.get(articlesDir);
+        Path state = dir.resolve(TermTrends.FILE_NAME);
+        TermTrends trends = TermTrends.load(state, options);
+        
+        Map<Path, String> errors = new LinkedHashMap<>();
+        int counted = trends.count(dir, CNNArticleParser.listArticleFiles(dir), options, errors::put);
+        if (counted > 0) trends.save(state);
+        
+        if (!errors.isEmpty()) {
+            System.err.println("\n--- " + errors.size() + " files could not be parsed ---");
+            errors.forEach((file, error) -> System.err.println(file + ": " + error));
+        }
+        System.out.println("Trends: " + counted + " new articles counted, " + trends.getTotalArticles() + " in total");
+        
+        LocalDate end = trends.getLastDay();
+        if (end != null) {
+            System.out.println("\n--- Rising Terms: week to " + end + " vs the week before ---");
+            trends.risingTerms(end, 7, 10).forEach(t ->
+                System.out.printf("%s: %d (%d the week before, x%.1f)%n", t.term, t.count, t.previous, t.growth));
+        }
+        
+        System.out.println("\n--- Top Terms by Category ---");
+        for (String category : trends.getCategories()) {
+            StringJoiner top = new StringJoiner(", ", category + ": ", "");
+            trends.topTerms(category, 8).forEach(t -> top.add(t.term + " (" + t.count + ")"));
+            System.out.println(top);
+        }
+        
+        for (String term : terms) {
+            System.out.println("\n--- \"" + term + "\" by Day ---");
+            long total = 0;
+            for (Map.Entry<LocalDate, Long> e : trends.frequencyByDay(term).entrySet()) {
+                if (e.getValue() == 0) continue;
+                System.out.printf("%s: %d%n", e.getKey(), e.getValue());
+                total += e.getValue();
+            }
+            System.out.println("Total: " + total);
+        }
+        System.out.printf("%nDay counts are estimates, at most %d over the true count (98%% confidence)%n",
+                          trends.dayErrorBound());
+    }
+    
+    static void printSummary(ArticleSummary collection) {
+        // Display articles by author
+        System.out.println("\n--- Articles by Author ---");
+        collection.getArticlesByAuthor().entrySet().stream()
+                 .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                 .forEach(e -> System.out.printf("%s: %d articles%n", e.getKey(), e.getValue()));
+        
+        // Display articles by category
+        System.out.println("\n--- Articles by Category ---");
+        collection.getArticlesByCategory().forEach((cat, count) -> 
+            System.out.printf("%s: %d articles%n", cat, count));
+        
+        // Display average word counts by category
+        System.out.println("\n--- Average Word Count by Category ---");
+        collection.getAvgWordCountByCategory().forEach((cat, avg) -> 
+            System.out.printf("%s: %.0f words%n", cat, avg));
+        
+        // Top 5 longest articles
+        System.out.println("\n--- Top 5 Longest Articles ---");
+        collection.getTopArticlesByWordCount(5).forEach(a -> 
+            System.out.printf("%s (%d words)%n", a.getTitle(), a.getWordCount()));
+        System.out.println("\n=== CNN Article Database Analysis ===");
+        System.out.println("Total articles: " + collection.getTotalArticles());
+    }
+    
+    // Export straight from the files, without loading the collection: CSV and optionally columnar
+    static void export(String articlesDir, String csvFile, String columnarFile) throws IOException {
+        ParseOptions options = ParseOptions.fromSystemProperties();
+        List<Path> files = CNNArticleParser.listArticleFiles(Paths.get(articlesDir));
+        
+        List<ExportSink> sinks = new ArrayList<>();
+        ExportResult result;
+        try {
+            sinks.add(new CsvExportSink(Paths.get(csvFile)));
+            if (columnarFile != null) sinks.add(new ColumnarExportSink(Paths.get(columnarFile)));
+            result = StreamingExporter.export(files, options, sinks);
+        } catch (IOException | RuntimeException e) {
+            // Leave the previous export in place rather than a truncated one
+            for (ExportSink sink : sinks) {
+                try {
+                    sink.abort();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+        for (ExportSink sink : sinks) {
+            sink.close();
+        }
+        
+        if (!result.getErrors().isEmpty()) {
+            System.err.println("\n--- " + result.getErrors().size() + " files could not be parsed ---");
+            result.getErrors().forEach((file, error) -> System.err.println(file + ": " + error));
+        }
+        System.out.println("Exported " + result.getRows() + " articles to " + csvFile
+                           + (columnarFile != null ? " and " + columnarFile : ""));
+    }
+    
+    public static void exportToCSV(ArticleCollection collection, String filename) {
+        try {
+            CsvExportSink csv = new CsvExportSink(Paths.get(filename));
+            try {
+                for (int i = 0; i < collection.getTotalArticles(); i++) {
+                    csv.accept(new ExportRow(collection.get(i)));
+                }
+            } catch (IOException | RuntimeException e) {
+                csv.abort();
+                throw e;
+            }
+            csv.close();
+            
+            System.out.println("\nData exported to: " + filename);
+        } catch (IOException e) {
+            System.err.println("Error exporting CSV: " + e.getMessage());
+        }
+    }
+}
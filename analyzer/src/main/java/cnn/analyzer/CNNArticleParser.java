@@ -0,0 +1,398 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Parser for CNN Article Text Files
+public class CNNArticleParser {
+    private static final byte[] BANNER = "=".repeat(80).getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONTENT_MARK = "CONTENT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END_MARK = "END OF ARTICLE".getBytes(StandardCharsets.US_ASCII);
+    
+    // Files at least this big are mapped rather than read into a buffer
+    private static final int MMAP_THRESHOLD = 1 << 20;
+    
+    // Per-thread read buffer, grown to the largest file seen
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 << 10));
+    
+    // Files the server compressed (cnn.compress): zlib streams with a preset dictionary
+    static final String COMPRESSED_SUFFIX = ".txt.dfl";
+    
+    // Dictionaries by file; they never change once written
+    private static final Map<Path, byte[]> DICTIONARIES = new ConcurrentHashMap<>();
+    
+    public static Article parseArticleFile(Path filePath) throws IOException {
+        if (filePath.toString().endsWith(COMPRESSED_SUFFIX)) {
+            return parseArticle(ByteBuffer.wrap(inflate(filePath)));
+        }
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MMAP_THRESHOLD) {
+                return parseArticle(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+            
+            ByteBuffer buffer = READ_BUFFER.get();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate(Integer.highestOneBit((int) size) << 1);
+                READ_BUFFER.set(buffer);
+            }
+            buffer.clear().limit((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading
+            }
+            return parseArticle(buffer.flip());
+        }
+    }
+    
+    /**
+     * Walks the layout written by the server's TextFileBackend once: header
+     * lines ("Key: value") up to the CONTENT banner, then the body up to the
+     * END OF ARTICLE banner. Only the field values and the body are decoded
+     * to Strings. Files from before the Sentences/Characters/Paragraphs
+     * header lines have their body counted here, once.
+     */
+    static Article parseArticle(ByteBuffer buf) {
+        String url = "", title = "", author = "", date = "", received = "";
+        int wordCount = 0;
+        int sentences = -1, characters = -1, paragraphs = -1;
+        
+        int pos = buf.position();
+        int limit = buf.limit();
+        int contentStart = -1;
+        
+        while (pos < limit) {
+            int eol = indexOf(buf, (byte) '\n', pos, limit);
+            if (eol < 0) eol = limit;
+            
+            if (startsWith(buf, pos, eol, CONTENT_MARK) && bannerStart(buf, pos) >= 0) {
+                // Skip "CONTENT\n" and the banner line under it
+                contentStart = indexOf(buf, (byte) '\n', eol + 1, limit);
+                contentStart = contentStart < 0 ? limit : contentStart + 1;
+                break;
+            }
+            
+            int colon = indexOf(buf, (byte) ':', pos, eol);
+            if (colon > pos) {
+                int from = skipSpaces(buf, colon + 1, eol);
+                int to = trimEnd(buf, from, eol);
+                switch (colon - pos) {
+                    case 3:
+                        if (startsWith(buf, pos, colon, "URL")) url = decode(buf, from, to);
+                        break;
+                    case 4:
+                        if (startsWith(buf, pos, colon, "Date")) date = decode(buf, from, to);
+                        break;
+                    case 5:
+                        if (startsWith(buf, pos, colon, "Title")) title = decode(buf, from, to);
+                        break;
+                    case 6:
+                        if (startsWith(buf, pos, colon, "Author")) author = decode(buf, from, to);
+                        break;
+                    case 8:
+                        if (startsWith(buf, pos, colon, "Received")) received = decode(buf, from, to);
+                        break;
+                    case 9:
+                        if (startsWith(buf, pos, colon, "Sentences")) sentences = parseInt(buf, from, to);
+                        break;
+                    case 10:
+                        if (startsWith(buf, pos, colon, "Word Count")) wordCount = parseInt(buf, from, to);
+                        else if (startsWith(buf, pos, colon, "Characters")) characters = parseInt(buf, from, to);
+                        else if (startsWith(buf, pos, colon, "Paragraphs")) paragraphs = parseInt(buf, from, to);
+                        break;
+                }
+            }
+            pos = eol + 1;
+        }
+        
+        String content = "";
+        if (contentStart >= 0) {
+            int contentEnd = lastIndexOfEndMark(buf, contentStart, limit);
+            content = unescapeUnicode(decode(buf, skipWhitespace(buf, contentStart, contentEnd),
+                                             trimEnd(buf, contentStart, contentEnd)));
+        }
+        
+        TextStats stats = sentences >= 0 && characters >= 0 && paragraphs >= 0
+            ? new TextStats(wordCount, sentences, characters, paragraphs)
+            : TextStats.of(content);
+        return new Article(url, title, author, parseDate(date), parseDateTime(received),
+                           wordCount, null, stats, content, null);
+    }
+    
+    // Publish dates arrive as plain dates or as full ISO timestamps (2025-12-19T14:32:10.000Z)
+    static LocalDate parseDate(String dateStr) {
+        try {
+            if (dateStr.length() > 10 && dateStr.charAt(10) == 'T') {
+                return LocalDate.from(DateTimeFormatter.ISO_DATE_TIME.parse(dateStr));
+            }
+            return LocalDate.parse(dateStr, DateTimeFormatter.ISO_LOCAL_DATE);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
+    // Local timestamps as written by the server, or ISO timestamps with an offset
+    static LocalDateTime parseDateTime(String dateTimeStr) {
+        try {
+            return LocalDateTime.from(DateTimeFormatter.ISO_DATE_TIME.parse(dateTimeStr));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
+    // Older scrapes stored JSON unicode escapes as literal text; decode them
+    static String unescapeUnicode(String text) {
+        int escape = text.indexOf("\\u");
+        if (escape < 0) return text;
+        
+        StringBuilder out = new StringBuilder(text.length());
+        int from = 0;
+        while (escape >= 0) {
+            if (escape + 6 > text.length()) break;
+            int code = hexValue(text, escape + 2);
+            if (code >= 0) {
+                out.append(text, from, escape).append((char) code);
+                from = escape + 6;
+            }
+            escape = text.indexOf("\\u", escape + 1 + (code >= 0 ? 5 : 0));
+        }
+        return out.append(text, from, text.length()).toString();
+    }
+    
+    private static int hexValue(String text, int at) {
+        int value = 0;
+        for (int i = at; i < at + 4; i++) {
+            int digit = Character.digit(text.charAt(i), 16);
+            if (digit < 0) return -1;
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+    
+    private static int indexOf(ByteBuffer buf, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == b) return i;
+        }
+        return -1;
+    }
+    
+    private static boolean startsWith(ByteBuffer buf, int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf.get(from + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+    
+    private static boolean startsWith(ByteBuffer buf, int from, int to, String prefix) {
+        if (to - from < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buf.get(from + i) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+    
+    // Start of the banner line directly above the line at lineStart, or -1
+    private static int bannerStart(ByteBuffer buf, int lineStart) {
+        int end = lineStart - 1;
+        if (end > buf.position() && buf.get(end - 1) == '\r') end--;
+        int start = end - BANNER.length;
+        return start >= buf.position() && startsWith(buf, start, end, BANNER) ? start : -1;
+    }
+    
+    // Start of the "<banner>\nEND OF ARTICLE" trailer, or `to` if it is missing
+    private static int lastIndexOfEndMark(ByteBuffer buf, int from, int to) {
+        for (int i = to - END_MARK.length; i >= from; i--) {
+            if (buf.get(i) == 'E' && startsWith(buf, i, to, END_MARK)) {
+                int banner = bannerStart(buf, i);
+                if (banner >= 0) return Math.max(from, banner);
+            }
+        }
+        return to;
+    }
+    
+    private static int skipSpaces(ByteBuffer buf, int from, int to) {
+        while (from < to && (buf.get(from) == ' ' || buf.get(from) == '\t')) from++;
+        return from;
+    }
+    
+    private static int skipWhitespace(ByteBuffer buf, int from, int to) {
+        while (from < to && buf.get(from) <= ' ' && buf.get(from) >= 0) from++;
+        return from;
+    }
+    
+    private static int trimEnd(ByteBuffer buf, int from, int to) {
+        while (to > from && buf.get(to - 1) <= ' ' && buf.get(to - 1) >= 0) to--;
+        return to;
+    }
+    
+    private static int parseInt(ByteBuffer buf, int from, int to) {
+        if (from == to || to - from > 9) return 0;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9) return 0;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+    
+    private static String decode(ByteBuffer buf, int from, int to) {
+        if (from >= to) return "";
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + from, to - from, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    public static ArticleCollection parseDirectory(String directoryPath) {
+        return parseDirectory(directoryPath, ParseOptions.fromSystemProperties()).getCollection();
+    }
+    
+    /**
+     * Parses every .txt (or .txt.dfl) file under the directory on a pool of worker threads.
+     * Files are parsed in sorted path order in fixed-size chunks, and each
+     * chunk is appended in that order, so the resulting collection (and any
+     * logging) is identical whatever the parallelism.
+     */
+    public static ParseResult parseDirectory(String directoryPath, ParseOptions options) {
+        ParseResult result = new ParseResult();
+        
+        List<Path> files;
+        try {
+            files = listArticleFiles(Paths.get(directoryPath));
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading directory: " + e.getMessage());
+            return result;
+        }
+        
+        parseFiles(files, options, (path, article) -> result.getCollection().addArticle(article, path),
+                   result::addError);
+        return result;
+    }
+    
+    /**
+     * Inflates a .txt.dfl file to the text it was written from. The zlib
+     * header names the preset dictionary by Adler-32, and the server keeps
+     * it in the same directory as dict-XXXXXXXX.zdict.
+     */
+    static byte[] inflate(Path file) throws IOException {
+        byte[] compressed = Files.readAllBytes(file);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] out = new byte[Math.max(1024, compressed.length * 4)];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == out.length) out = Arrays.copyOf(out, out.length * 2);
+                int inflated = inflater.inflate(out, length, out.length - length);
+                if (inflated == 0 && inflater.needsDictionary()) {
+                    inflater.setDictionary(dictionary(file.resolveSibling(
+                        String.format("dict-%08x.zdict", inflater.getAdler())), inflater.getAdler()));
+                } else if (inflated == 0 && inflater.needsInput()) {
+                    throw new EOFException("Truncated compressed article");
+                }
+                length += inflated;
+            }
+            return Arrays.copyOf(out, length);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed article: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    private static byte[] dictionary(Path file, int adler) throws IOException {
+        byte[] dictionary = DICTIONARIES.get(file);
+        if (dictionary == null) {
+            if (!Files.exists(file)) throw new IOException("Missing compression dictionary " + file);
+            dictionary = Files.readAllBytes(file);
+            
+            Adler32 checksum = new Adler32();
+            checksum.update(dictionary);
+            if ((int) checksum.getValue() != adler) throw new IOException("Corrupt compression dictionary " + file);
+            DICTIONARIES.put(file, dictionary);
+        }
+        return dictionary;
+    }
+    
+    static boolean isArticleFile(Path file) {
+        String name = file.toString();
+        return name.endsWith(".txt") || name.endsWith(COMPRESSED_SUFFIX);
+    }
+    
+    public static List<Path> listArticleFiles(Path directory) throws IOException {
+        try (var paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                        .filter(CNNArticleParser::isArticleFile)
+                        .sorted()
+                        .toList();
+        }
+    }
+    
+    /** Reads one article file; null skips the file without reporting an error. */
+    interface ArticleReader {
+        Article read(Path file) throws IOException;
+    }
+    
+    /**
+     * Parses the files on a pool of options.parallelism workers, handing each
+     * article (or error) to the callbacks on the calling thread in list order.
+     */
+    public static void parseFiles(List<Path> files, ParseOptions options,
+                                  BiConsumer<Path, Article> onArticle,
+                                  BiConsumer<Path, String> onError) {
+        parseFiles(files, options, CNNArticleParser::parseArticleFile, onArticle, onError);
+    }
+    
+    static void parseFiles(List<Path> files, ParseOptions options, ArticleReader reader,
+                           BiConsumer<Path, Article> onArticle,
+                           BiConsumer<Path, String> onError) {
+        ForkJoinPool pool = new ForkJoinPool(options.parallelism);
+        try {
+            for (int from = 0; from < files.size(); from += options.chunkSize) {
+                List<Path> chunk = files.subList(from, Math.min(files.size(), from + options.chunkSize));
+                Article[] parsed = new Article[chunk.size()];
+                String[] errors = new String[chunk.size()];
+                
+                pool.submit(() -> IntStream.range(0, parsed.length).parallel().forEach(i -> {
+                    try {
+                        parsed[i] = reader.read(chunk.get(i));
+                    } catch (Exception e) {
+                        errors[i] = String.valueOf(e.getMessage());
+                    }
+                })).get();
+                
+                for (int i = 0; i < parsed.length; i++) {
+                    if (parsed[i] != null) {
+                        onArticle.accept(chunk.get(i), parsed[i]);
+                        if (options.verbose) System.out.println("Parsed: " + parsed[i].getTitle());
+                    } else if (errors[i] != null) {
+                        onError.accept(chunk.get(i), errors[i]);
+                        if (options.verbose) System.err.println("Error parsing " + chunk.get(i) + ": " + errors[i]);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error parsing files: " + e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Column-oriented binary export, loadable with numpy/pandas/Arrow without
+ * parsing text. Layout, all integers little-endian:
+ *
+ *   "CNNCOL01"
+ *   column buffers, each starting on an 8-byte boundary
+ *   footer: UTF-8 JSON naming each column's type and buffer offsets/lengths
+ *   int32 footer length, "CNNCOL01"
+ *
+ * Strings are int64 offsets (rows + 1) into a UTF-8 data buffer; author and
+ * category are int32 codes into a dictionary listed in the footer; dates are
+ * int32 epoch days and received times int64 epoch milliseconds, with the
+ * type's minimum value meaning missing. Each buffer is spilled to its own
+ * temporary file as rows arrive, so only the dictionaries are held in memory.
+ */
+public class ColumnarExportSink implements ExportSink {
+    static final byte[] MAGIC = "CNNCOL01".getBytes(StandardCharsets.US_ASCII);
+    
+    private final Path target;
+    private final List<SpillBuffer> buffers = new ArrayList<>();
+    private final SpillBuffer urlOffsets, urlData, titleOffsets, titleData;
+    private final SpillBuffer authorCodes, categoryCodes, publishDays, receivedMillis;
+    private final SpillBuffer wordCounts, sentenceCounts, paragraphCounts, contentLengths;
+    private final StringDictionary authors = new StringDictionary();
+    private final StringDictionary categories = new StringDictionary();
+    private long rows;
+    
+    public ColumnarExportSink(Path target) throws IOException {
+        this.target = target;
+        try {
+            urlOffsets = spill("url.offsets");
+            urlData = spill("url.data");
+            titleOffsets = spill("title.offsets");
+            titleData = spill("title.data");
+            authorCodes = spill("author");
+            categoryCodes = spill("category");
+            publishDays = spill("publishDate");
+            receivedMillis = spill("received");
+            wordCounts = spill("wordCount");
+            sentenceCounts = spill("sentenceCount");
+            paragraphCounts = spill("paragraphCount");
+            contentLengths = spill("contentLength");
+        } catch (IOException e) {
+            discard();
+            throw e;
+        }
+        urlOffsets.putLong(0);
+        titleOffsets.putLong(0);
+    }
+    
+    private SpillBuffer spill(String name) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        SpillBuffer buffer = new SpillBuffer(Files.createTempFile(dir, target.getFileName() + "." + name + ".", ".tmp"));
+        buffers.add(buffer);
+        return buffer;
+    }
+    
+    @Override
+    public void accept(ExportRow row) throws IOException {
+        putString(urlOffsets, urlData, row.url);
+        putString(titleOffsets, titleData, row.title);
+        authorCodes.putInt(authors.idOf(row.author));
+        categoryCodes.putInt(categories.idOf(row.category));
+        publishDays.putInt(row.publishDate != null ? (int) row.publishDate.toEpochDay() : Integer.MIN_VALUE);
+        receivedMillis.putLong(row.receivedDate != null
+                               ? row.receivedDate.toInstant(ZoneOffset.UTC).toEpochMilli() : Long.MIN_VALUE);
+        wordCounts.putInt(row.wordCount);
+        sentenceCounts.putInt(row.sentenceCount);
+        paragraphCounts.putInt(row.paragraphCount);
+        contentLengths.putInt(row.contentLength);
+        rows++;
+    }
+    
+    private static void putString(SpillBuffer offsets, SpillBuffer data, String value) throws IOException {
+        data.put(value.getBytes(StandardCharsets.UTF_8));
+        offsets.putLong(data.size());
+    }
+    
+    /** Concatenates the spilled buffers into the target file, replacing it atomically. */
+    @Override
+    public void close() throws IOException {
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        boolean written = false;
+        try (FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, ByteBuffer.wrap(MAGIC));
+            for (SpillBuffer buffer : buffers) {
+                buffer.flush();
+                long aligned = (out.position() + 7) & ~7L;
+                writeFully(out, ByteBuffer.allocate((int) (aligned - out.position())));
+                buffer.offset = aligned;
+                buffer.transferTo(out);
+            }
+            
+            byte[] footer = footer().getBytes(StandardCharsets.UTF_8);
+            writeFully(out, ByteBuffer.wrap(footer));
+            writeFully(out, ByteBuffer.allocate(4 + MAGIC.length).order(ByteOrder.LITTLE_ENDIAN)
+                                      .putInt(footer.length).put(MAGIC).flip());
+            out.force(true);
+            written = true;
+        } finally {
+            discard();
+            if (!written) Files.deleteIfExists(partial);
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    @Override
+    public void abort() throws IOException {
+        discard();
+    }
+    
+    private void discard() throws IOException {
+        for (SpillBuffer buffer : buffers) {
+            buffer.delete();
+        }
+    }
+    
+    private String footer() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"format\":\"cnn-columnar\",\"version\":1,\"rows\":").append(rows).append(",\"columns\":[");
+        stringColumn(json, "url", urlOffsets, urlData).append(',');
+        stringColumn(json, "title", titleOffsets, titleData).append(',');
+        dictionaryColumn(json, "author", authorCodes, authors).append(',');
+        dictionaryColumn(json, "category", categoryCodes, categories).append(',');
+        json.append("{\"name\":\"publishDate\",\"type\":\"int32\",\"unit\":\"epoch_day\",\"null\":")
+            .append(Integer.MIN_VALUE).append(",\"data\":");
+        range(json, publishDays).append("},");
+        json.append("{\"name\":\"received\",\"type\":\"int64\",\"unit\":\"epoch_ms\",\"null\":")
+            .append(Long.MIN_VALUE).append(",\"data\":");
+        range(json, receivedMillis).append("},");
+        intColumn(json, "wordCount", wordCounts).append(',');
+        intColumn(json, "sentenceCount", sentenceCounts).append(',');
+        intColumn(json, "paragraphCount", paragraphCounts).append(',');
+        intColumn(json, "contentLength", contentLengths);
+        return json.append("]}").toString();
+    }
+    
+    private static StringBuilder stringColumn(StringBuilder json, String name, SpillBuffer offsets, SpillBuffer data) {
+        json.append("{\"name\":\"").append(name).append("\",\"type\":\"utf8\",\"offsets\":");
+        range(json, offsets).append(",\"data\":");
+        return range(json, data).append('}');
+    }
+    
+    private static StringBuilder dictionaryColumn(StringBuilder json, String name, SpillBuffer codes,
+                                                  StringDictionary dictionary) {
+        json.append("{\"name\":\"").append(name).append("\",\"type\":\"dictionary\",\"codes\":");
+        range(json, codes).append(",\"values\":[");
+        for (int id = 0; id < dictionary.size(); id++) {
+            if (id > 0) json.append(',');
+            jsonString(json, dictionary.valueOf(id));
+        }
+        return json.append("]}");
+    }
+    
+    private static StringBuilder intColumn(StringBuilder json, String name, SpillBuffer data) {
+        json.append("{\"name\":\"").append(name).append("\",\"type\":\"int32\",\"data\":");
+        return range(json, data).append('}');
+    }
+    
+    private static StringBuilder range(StringBuilder json, SpillBuffer buffer) {
+        return json.append("{\"offset\":").append(buffer.offset).append(",\"length\":").append(buffer.size()).append('}');
+    }
+    
+    private static void jsonString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+    
+    private static void writeFully(FileChannel out, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) out.write(bytes);
+    }
+    
+    // One column buffer, appended through a small little-endian staging buffer
+    private static class SpillBuffer {
+        final Path file;
+        final FileChannel channel;
+        final ByteBuffer staging = ByteBuffer.allocate(64 << 10).order(ByteOrder.LITTLE_ENDIAN);
+        long written;
+        long offset;
+        
+        SpillBuffer(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        
+        void putInt(int value) throws IOException {
+            if (staging.remaining() < 4) flush();
+            staging.putInt(value);
+        }
+        
+        void putLong(long value) throws IOException {
+            if (staging.remaining() < 8) flush();
+            staging.putLong(value);
+        }
+        
+        void put(byte[] bytes) throws IOException {
+            if (staging.remaining() < bytes.length) flush();
+            if (bytes.length > staging.capacity()) {
+                writeFully(channel, ByteBuffer.wrap(bytes));
+                written += bytes.length;
+            } else {
+                staging.put(bytes);
+            }
+        }
+        
+        long size() {
+            return written + staging.position();
+        }
+        
+        void flush() throws IOException {
+            staging.flip();
+            written += staging.remaining();
+            writeFully(channel, staging);
+            staging.clear();
+        }
+        
+        void transferTo(FileChannel out) throws IOException {
+            for (long position = 0; position < written; ) {
+                position += channel.transferTo(position, written - position, out);
+            }
+        }
+        
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
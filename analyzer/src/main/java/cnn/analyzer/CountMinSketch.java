@@ -0,0 +1,91 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Count-min sketch with conservative update: DEPTH rows of width counters,
+ * one counter per row for each key. An add only raises the key's counters
+ * that are below its new estimate, and the estimate is the smallest of them,
+ * so it is never below the true count and exceeds it by at most
+ * e * total / width with probability 1 - e^-DEPTH (98%). Sketches of the same
+ * width merge by adding counters, with the same bound.
+ */
+class CountMinSketch {
+    static final int DEPTH = 4;
+    
+    private final int width;
+    private final int[] counters;
+    private long total;
+    
+    CountMinSketch(int width) {
+        if (Integer.bitCount(width) != 1) throw new IllegalArgumentException("Sketch width must be a power of two");
+        this.width = width;
+        this.counters = new int[width * DEPTH];
+    }
+    
+    void add(long key, int count) {
+        long h = mix(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters[index(row, h1, h2)]);
+        }
+        int target = (int) Math.min(Integer.MAX_VALUE, (long) estimate + count);
+        for (int row = 0; row < DEPTH; row++) {
+            int i = index(row, h1, h2);
+            if (counters[i] < target) counters[i] = target;
+        }
+        total += count;
+    }
+    
+    int estimate(long key) {
+        long h = mix(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters[index(row, h1, h2)]);
+        }
+        return estimate;
+    }
+    
+    void addAll(CountMinSketch other) {
+        if (other.width != width) throw new IllegalArgumentException("Sketch widths differ");
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = (int) Math.min(Integer.MAX_VALUE, (long) counters[i] + other.counters[i]);
+        }
+        total += other.total;
+    }
+    
+    long errorBound() {
+        return (long) Math.ceil(Math.E * total / width);
+    }
+    
+    // Row r uses h1 + r * h2, so one 64-bit hash gives every row an independent-enough index
+    private int index(int row, int h1, int h2) {
+        return row * width + (h1 + row * h2 & width - 1);
+    }
+    
+    // Murmur3's 64-bit finalizer
+    static long mix(long h) {
+        h = (h ^ h >>> 33) * 0xff51afd7ed558ccdL;
+        h = (h ^ h >>> 33) * 0xc4ceb9fe1a85ec53L;
+        return h ^ h >>> 33;
+    }
+    
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(total);
+        ByteBuffer bytes = ByteBuffer.allocate(counters.length * 4);
+        bytes.asIntBuffer().put(counters);
+        out.write(bytes.array());
+    }
+    
+    void readFrom(DataInputStream in) throws IOException {
+        total = in.readLong();
+        byte[] bytes = new byte[counters.length * 4];
+        in.readFully(bytes);
+        ByteBuffer.wrap(bytes).asIntBuffer().get(counters);
+    }
+}
@@ -0,0 +1,55 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// articles_export.csv, one line per article
+public class CsvExportSink implements ExportSink {
+    static final String HEADER = "Title,Author,Date,Category,WordCount,SentenceCount,AvgWordsPerSentence";
+    
+    private final Path target;
+    private final Path partial;
+    private final Writer writer;
+    
+    public CsvExportSink(Path file) throws IOException {
+        this.target = file;
+        this.partial = file.resolveSibling(file.getFileName() + ".partial");
+        this.writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8);
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+    
+    @Override
+    public void accept(ExportRow row) throws IOException {
+        writer.write(String.format(Locale.ROOT, "\"%s\",\"%s\",%s,%s,%d,%d,%.2f\n",
+            row.title.replace("\"", "\"\""),
+            row.author.replace("\"", "\"\""),
+            row.publishDate,
+            row.category,
+            row.wordCount,
+            row.sentenceCount,
+            row.getAvgWordsPerSentence()));
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    @Override
+    public void abort() throws IOException {
+        try {
+            writer.close();
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package cnn.analyzer;
+
+import java.time.*;
+import java.util.*;
+
+// Open-addressing epoch day -> count table; avoids boxing a key per article
+class DayCounts {
+    private long[] keys = new long[64];
+    private int[] counts = new int[64];
+    private boolean[] used = new boolean[64];
+    private int size;
+    
+    void increment(long day) {
+        add(day, 1);
+    }
+    
+    void add(long day, int count) {
+        int mask = keys.length - 1;
+        int slot = (int) (day ^ (day >>> 32)) * 0x9E3779B9 & mask;
+        while (used[slot] && keys[slot] != day) {
+            slot = (slot + 1) & mask;
+        }
+        if (!used[slot]) {
+            used[slot] = true;
+            keys[slot] = day;
+            if (++size * 2 > keys.length) {
+                counts[slot] = count;
+                rehash();
+                return;
+            }
+        }
+        counts[slot] += count;
+    }
+    
+    void addAll(DayCounts other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.used[slot]) add(other.keys[slot], other.counts[slot]);
+        }
+    }
+    
+    Map<LocalDate, Integer> toMap() {
+        Map<LocalDate, Integer> map = new HashMap<>();
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) map.put(ArticleCollection.toDate(keys[slot]), counts[slot]);
+        }
+        return map;
+    }
+    
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) add(oldKeys[slot], oldCounts[slot]);
+        }
+    }
+}
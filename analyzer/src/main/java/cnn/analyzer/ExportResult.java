@@ -0,0 +1,17 @@
+package cnn.analyzer;
+
+import java.nio.file.*;
+import java.util.*;
+
+// Rows written by StreamingExporter, plus the files that failed
+public class ExportResult {
+    long rows;
+    private Map<Path, String> errors = new LinkedHashMap<>();
+    
+    public long getRows() { return rows; }
+    public Map<Path, String> getErrors() { return errors; }
+    
+    void addError(Path file, String message) {
+        errors.put(file, message);
+    }
+}
@@ -0,0 +1,34 @@
+package cnn.analyzer;
+
+import java.time.*;
+
+// One exported row: an article's header fields and body statistics, without the body
+public class ExportRow {
+    public final String url;
+    public final String title;
+    public final String author;
+    public final String category;
+    public final LocalDate publishDate;
+    public final LocalDateTime receivedDate;
+    public final int wordCount;
+    public final int sentenceCount;
+    public final int paragraphCount;
+    public final int contentLength;
+    
+    public ExportRow(Article a) {
+        this.url = a.getUrl();
+        this.title = a.getTitle();
+        this.author = a.getAuthor();
+        this.category = a.getCategory();
+        this.publishDate = a.getPublishDate();
+        this.receivedDate = a.getReceivedDate();
+        this.wordCount = a.getWordCount();
+        this.sentenceCount = a.getSentenceCount();
+        this.paragraphCount = a.getParagraphCount();
+        this.contentLength = a.getContentLength();
+    }
+    
+    double getAvgWordsPerSentence() {
+        return sentenceCount > 0 ? (double) wordCount / sentenceCount : 0;
+    }
+}
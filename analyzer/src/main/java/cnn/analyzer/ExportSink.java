@@ -0,0 +1,11 @@
+package cnn.analyzer;
+
+import java.io.*;
+
+// Destination for rows from StreamingExporter; rows arrive in file order on one thread.
+// close() publishes the output; abort() drops it and leaves any existing file untouched.
+public interface ExportSink extends Closeable {
+    void accept(ExportRow row) throws IOException;
+    
+    void abort() throws IOException;
+}
@@ -0,0 +1,159 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Misra-Gries summary of the most frequent terms in a stream. It holds up to
+ * 2 * capacity counters; when one more is needed, every counter drops by the
+ * (capacity + 1)-th largest and those at zero are freed, so the work is
+ * amortized over capacity inserts. A term's true count is between its counter
+ * and counter + dropped, and a term without a counter occurred at most dropped
+ * times, where dropped <= total / (capacity + 1). Summaries merge by adding
+ * counters and reducing the same way, with the same bounds.
+ */
+class HeavyHitters {
+    private final int capacity;
+    private long[] hashes;
+    private long[] counts;
+    
+    // null marks a free slot
+    private String[] terms;
+    private int size;
+    private long total;
+    private long dropped;
+    
+    HeavyHitters(int capacity) {
+        this.capacity = capacity;
+        // At most half full with 2 * capacity + 1 counters
+        int slots = Integer.highestOneBit(capacity * 4 + 1) << 1;
+        hashes = new long[slots];
+        counts = new long[slots];
+        terms = new String[slots];
+    }
+    
+    // A term from ArticleTerms; its text is only built if it needs a new counter
+    void add(long hash, long count, ArticleTerms source, int index) {
+        int slot = slot(hash);
+        total += count;
+        if (terms[slot] != null) {
+            counts[slot] += count;
+        } else {
+            insert(slot, hash, count, source.term(index));
+        }
+    }
+    
+    void add(long hash, long count, String term) {
+        int slot = slot(hash);
+        total += count;
+        if (terms[slot] != null) {
+            counts[slot] += count;
+        } else {
+            insert(slot, hash, count, term);
+        }
+    }
+    
+    HeavyHitters addAll(HeavyHitters other) {
+        long before = total;
+        for (int slot = 0; slot < other.terms.length; slot++) {
+            if (other.terms[slot] != null) add(other.hashes[slot], other.counts[slot], other.terms[slot]);
+        }
+        // The adds only counted what other kept
+        total = before + other.total;
+        dropped += other.dropped;
+        return this;
+    }
+    
+    long upperBound(long hash) {
+        int slot = slot(hash);
+        return (terms[slot] != null ? counts[slot] : 0) + dropped;
+    }
+    
+    long getTotal() {
+        return total;
+    }
+    
+    // Kept terms by count, most frequent first, then alphabetically
+    List<TermCount> top(int n) {
+        List<TermCount> kept = new ArrayList<>(size);
+        for (int slot = 0; slot < terms.length; slot++) {
+            if (terms[slot] != null) kept.add(new TermCount(terms[slot], hashes[slot], counts[slot]));
+        }
+        kept.sort(Comparator.comparingLong((TermCount t) -> -t.count).thenComparing(t -> t.term));
+        return kept.subList(0, Math.min(n, kept.size()));
+    }
+    
+    private int slot(long hash) {
+        int mask = terms.length - 1;
+        int slot = (int) hash & mask;
+        while (terms[slot] != null && hashes[slot] != hash) {
+            slot = slot + 1 & mask;
+        }
+        return slot;
+    }
+    
+    private void insert(int slot, long hash, long count, String term) {
+        hashes[slot] = hash;
+        counts[slot] = count;
+        terms[slot] = term;
+        if (++size > capacity * 2) reduce();
+    }
+    
+    private void reduce() {
+        long[] live = new long[size];
+        int n = 0;
+        for (int slot = 0; slot < terms.length; slot++) {
+            if (terms[slot] != null) live[n++] = counts[slot];
+        }
+        Arrays.sort(live);
+        long cut = live[size - capacity - 1];
+        dropped += cut;
+        
+        long[] oldHashes = hashes;
+        long[] oldCounts = counts;
+        String[] oldTerms = terms;
+        hashes = new long[oldTerms.length];
+        counts = new long[oldTerms.length];
+        terms = new String[oldTerms.length];
+        size = 0;
+        for (int slot = 0; slot < oldTerms.length; slot++) {
+            if (oldTerms[slot] != null && oldCounts[slot] > cut) {
+                int to = slot(oldHashes[slot]);
+                hashes[to] = oldHashes[slot];
+                counts[to] = oldCounts[slot] - cut;
+                terms[to] = oldTerms[slot];
+                size++;
+            }
+        }
+    }
+    
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(total);
+        out.writeLong(dropped);
+        out.writeInt(size);
+        for (int slot = 0; slot < terms.length; slot++) {
+            if (terms[slot] == null) continue;
+            out.writeLong(hashes[slot]);
+            out.writeLong(counts[slot]);
+            RunningAggregates.writeString(out, terms[slot]);
+        }
+    }
+    
+    static HeavyHitters readFrom(DataInputStream in, int capacity) throws IOException {
+        HeavyHitters summary = new HeavyHitters(capacity);
+        long total = in.readLong();
+        long dropped = in.readLong();
+        int size = in.readInt();
+        if (size < 0 || size > capacity * 2) throw new IOException("Corrupt term summary");
+        for (int i = 0; i < size; i++) {
+            long hash = in.readLong();
+            long count = in.readLong();
+            String term = RunningAggregates.readString(in);
+            if (term == null) throw new IOException("Corrupt term summary");
+            summary.add(hash, count, term);
+        }
+        summary.total = total;
+        summary.dropped = dropped;
+        return summary;
+    }
+}
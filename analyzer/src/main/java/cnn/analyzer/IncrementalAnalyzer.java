@@ -0,0 +1,247 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Long-running analyzer that keeps RunningAggregates current as the server
+ * writes new article files. Work per update is proportional to the new files:
+ * a WatchService reports them, and only those are parsed.
+ *
+ * State survives restarts in two files in the articles directory:
+ * analyzer.checkpoint (a snapshot of the aggregates) and analyzer.processed
+ * (an append-only list of counted file names). The snapshot records how many
+ * bytes of the list it covers, and names past that are dropped on load, so a
+ * crash between the two writes re-counts those files instead of losing them.
+ */
+class IncrementalAnalyzer implements Closeable {
+    private static final byte[] MAGIC = "CNNAGG02".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRAILER = ("END OF ARTICLE\n" + "=".repeat(80) + "\n")
+                                          .getBytes(StandardCharsets.US_ASCII);
+    
+    private final Path dir;
+    private final Path checkpointPath;
+    private final ParseOptions options;
+    private final long checkpointNanos;
+    
+    private RunningAggregates aggregates = new RunningAggregates();
+    private final Set<String> processed = new HashSet<>();
+    private final FileChannel processedLog;
+    private final StringBuilder unsavedNames = new StringBuilder();
+    
+    // A file still incomplete this long after its last change is dropped until it changes again
+    static final long INCOMPLETE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    
+    // Files seen but not yet counted, with when they last changed; retried on the next tick
+    private final Map<Path, Long> pending = new TreeMap<>();
+    private long lastCheckpoint = System.nanoTime();
+    private volatile boolean stopped;
+    
+    public IncrementalAnalyzer(Path dir, ParseOptions options, long checkpointSeconds) throws IOException {
+        this.dir = dir;
+        this.checkpointPath = dir.resolve("analyzer.checkpoint");
+        this.options = options;
+        this.checkpointNanos = TimeUnit.SECONDS.toNanos(checkpointSeconds);
+        this.processedLog = FileChannel.open(dir.resolve("analyzer.processed"), StandardOpenOption.CREATE,
+                                             StandardOpenOption.READ, StandardOpenOption.WRITE);
+        
+        long covered = 0;
+        if (Files.exists(checkpointPath)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                     Files.newInputStream(checkpointPath)))) {
+                byte[] magic = new byte[MAGIC.length];
+                in.readFully(magic);
+                if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not an analyzer checkpoint");
+                covered = in.readLong();
+                aggregates = RunningAggregates.readFrom(in);
+            } catch (IOException e) {
+                System.err.println("Ignoring unreadable checkpoint, starting over: " + e.getMessage());
+                aggregates = new RunningAggregates();
+                covered = 0;
+            }
+        }
+        
+        // Names after the covered prefix were never counted in the snapshot
+        if (covered > processedLog.size()) {
+            System.err.println("Checkpoint is ahead of analyzer.processed, starting over");
+            aggregates = new RunningAggregates();
+            covered = 0;
+        }
+        processedLog.truncate(covered);
+        if (covered > 0) {
+            ByteBuffer names = ByteBuffer.allocate((int) covered);
+            while (names.hasRemaining() && processedLog.read(names, names.position()) > 0) {
+                // keep reading
+            }
+            for (String name : new String(names.array(), StandardCharsets.UTF_8).split("\n")) {
+                if (!name.isEmpty()) processed.add(name);
+            }
+        }
+        processedLog.position(covered);
+    }
+    
+    public RunningAggregates getAggregates() {
+        return aggregates;
+    }
+    
+    /** Counts every article file not seen before; run once at startup and after event overflow. */
+    public int catchUp() throws IOException {
+        List<Path> unseen = new ArrayList<>();
+        for (Path file : CNNArticleParser.listArticleFiles(dir)) {
+            if (!processed.contains(name(file))) unseen.add(file);
+        }
+        return apply(unseen);
+    }
+    
+    /** Watches the directory until stop() is called, applying new files as they appear. */
+    public void watch() throws IOException, InterruptedException {
+        try (WatchService watcher = dir.getFileSystem().newWatchService()) {
+            dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            
+            // Files written between the initial scan and registering the watch
+            catchUp();
+            
+            while (!stopped) {
+                WatchKey key = watcher.poll(1, TimeUnit.SECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            catchUp();
+                            continue;
+                        }
+                        Path file = dir.resolve((Path) event.context());
+                        if (CNNArticleParser.isArticleFile(file) && !processed.contains(name(file))) {
+                            pending.put(file, System.nanoTime());
+                        }
+                    }
+                    key.reset();
+                }
+                
+                if (!pending.isEmpty()) {
+                    apply(new ArrayList<>(pending.keySet()));
+                }
+                if (unsavedNames.length() > 0 && System.nanoTime() - lastCheckpoint >= checkpointNanos) {
+                    checkpoint();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Ends watch() within a second, between files. Used instead of an
+     * interrupt, which would close processedLog if it landed during a write.
+     */
+    public void stop() {
+        stopped = true;
+    }
+    
+    private int apply(List<Path> files) {
+        Set<Path> incomplete = ConcurrentHashMap.newKeySet();
+        int[] added = new int[1];
+        CNNArticleParser.parseFiles(files, options, file -> readIfComplete(file, incomplete), (file, article) -> {
+            String name = name(file);
+            // Under the checkpoint lock, so a snapshot never counts a name the log does not list
+            synchronized (this) {
+                if (processed.add(name)) {
+                    aggregates.add(name, article);
+                    unsavedNames.append(name).append('\n');
+                    added[0]++;
+                }
+            }
+        }, (file, error) -> System.err.println("Error parsing " + file + ": " + error));
+        
+        long now = System.nanoTime();
+        for (Path file : files) {
+            if (!incomplete.contains(file)) {
+                pending.remove(file);
+            } else if (now - pending.computeIfAbsent(file, f -> now) >= INCOMPLETE_NANOS) {
+                pending.remove(file);
+                System.err.println("Skipping " + file + " until it changes: still incomplete after "
+                                   + TimeUnit.NANOSECONDS.toSeconds(INCOMPLETE_NANOS) + " s");
+            }
+        }
+        
+        if (added[0] > 0) {
+            System.out.println("Applied " + added[0] + " new articles (total " + aggregates.getTotalArticles() + ")");
+        }
+        return added[0];
+    }
+    
+    /**
+     * Parses a file the server has finished writing. It writes each file in one
+     * call, so a .txt without the trailer or a .txt.dfl whose zlib stream ends
+     * early is still being written: it goes into incomplete and null is
+     * returned. A compressed file is inflated once, for both the check and the
+     * parse. Files deleted in the meantime are skipped.
+     */
+    private static Article readIfComplete(Path file, Set<Path> incomplete) throws IOException {
+        try {
+            if (file.toString().endsWith(CNNArticleParser.COMPRESSED_SUFFIX)) {
+                byte[] text;
+                try {
+                    text = CNNArticleParser.inflate(file);
+                } catch (EOFException e) {
+                    incomplete.add(file);
+                    return null;
+                }
+                return CNNArticleParser.parseArticle(ByteBuffer.wrap(text));
+            }
+            if (!hasTrailer(file)) {
+                incomplete.add(file);
+                return null;
+            }
+            return CNNArticleParser.parseArticleFile(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+    
+    private static boolean hasTrailer(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < TRAILER.length) return false;
+            
+            ByteBuffer tail = ByteBuffer.allocate(TRAILER.length);
+            while (tail.hasRemaining() && channel.read(tail, size - TRAILER.length + tail.position()) > 0) {
+                // keep reading
+            }
+            return Arrays.equals(tail.array(), TRAILER);
+        }
+    }
+    
+    private String name(Path file) {
+        return dir.relativize(file).toString();
+    }
+    
+    /** Appends newly counted names, then atomically replaces the aggregate snapshot. */
+    public synchronized void checkpoint() throws IOException {
+        if (unsavedNames.length() > 0) {
+            ByteBuffer names = ByteBuffer.wrap(unsavedNames.toString().getBytes(StandardCharsets.UTF_8));
+            while (names.hasRemaining()) {
+                processedLog.write(names);
+            }
+            processedLog.force(false);
+            unsavedNames.setLength(0);
+        }
+        
+        Path temp = checkpointPath.resolveSibling("analyzer.checkpoint.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.write(MAGIC);
+            out.writeLong(processedLog.position());
+            aggregates.writeTo(out);
+        }
+        Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lastCheckpoint = System.nanoTime();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        checkpoint();
+        processedLog.close();
+    }
+}
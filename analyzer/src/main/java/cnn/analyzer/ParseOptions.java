@@ -0,0 +1,41 @@
+package cnn.analyzer;
+
+// Options for CNNArticleParser.parseDirectory
+public class ParseOptions {
+    public int parallelism = Runtime.getRuntime().availableProcessors();
+    public boolean verbose = false;
+    
+    // Files parsed per round; bounds the work in flight (and the log buffer)
+    public int chunkSize = 1024;
+    
+    // Reuse and refresh analyzer.snapshot in the articles directory (CNNArticleAnalyzer only)
+    public boolean snapshot = true;
+    
+    // Count-min sketch width and terms kept per day and category (--trends only)
+    public int trendWidth = 1 << 19;
+    public int trendTerms = 100;
+    
+    public static ParseOptions fromSystemProperties() {
+        ParseOptions options = new ParseOptions();
+        options.parallelism = Integer.getInteger("cnn.parallelism", options.parallelism);
+        options.verbose = Boolean.parseBoolean(System.getProperty("cnn.verbose", "false"));
+        options.chunkSize = Integer.getInteger("cnn.chunk", options.chunkSize);
+        options.snapshot = Boolean.parseBoolean(System.getProperty("cnn.snapshot", "true"));
+        options.trendWidth = Integer.getInteger("cnn.trends.width", options.trendWidth);
+        options.trendTerms = Integer.getInteger("cnn.trends.terms", options.trendTerms);
+        
+        if (options.parallelism < 1) {
+            throw new IllegalArgumentException("cnn.parallelism must be at least 1");
+        }
+        if (options.chunkSize < 1) {
+            throw new IllegalArgumentException("cnn.chunk must be at least 1");
+        }
+        if (Integer.bitCount(options.trendWidth) != 1 || options.trendWidth > 1 << 26) {
+            throw new IllegalArgumentException("cnn.trends.width must be a power of two up to 67108864");
+        }
+        if (options.trendTerms < 1) {
+            throw new IllegalArgumentException("cnn.trends.terms must be at least 1");
+        }
+        return options;
+    }
+}
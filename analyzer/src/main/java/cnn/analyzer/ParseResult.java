@@ -0,0 +1,21 @@
+package cnn.analyzer;
+
+import java.nio.file.*;
+import java.util.*;
+
+// Articles parsed from a directory, plus the files that failed
+public class ParseResult {
+    private ArticleCollection collection = new ArticleCollection();
+    private Map<Path, String> errors = new LinkedHashMap<>();
+    
+    // Articles taken from ArticleSnapshot rather than parsed
+    int reused;
+    
+    public ArticleCollection getCollection() { return collection; }
+    public Map<Path, String> getErrors() { return errors; }
+    public int getReused() { return reused; }
+    
+    void addError(Path file, String message) {
+        errors.put(file, message);
+    }
+}
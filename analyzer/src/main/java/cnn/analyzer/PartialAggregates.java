@@ -0,0 +1,41 @@
+package cnn.analyzer;
+
+import java.util.*;
+
+// One leaf's aggregates, indexed by dictionary ID; a null array means not requested
+class PartialAggregates {
+    int[] byAuthor;
+    int[] byCategory;
+    long[] wordSums;
+    int[] wordCounted;
+    DayCounts byDate;
+    TopN top;
+    
+    PartialAggregates(ArticleCollection collection, Set<Aggregate> aggregates, int topN) {
+        if (aggregates.contains(Aggregate.BY_AUTHOR)) byAuthor = new int[collection.authorCount()];
+        if (aggregates.contains(Aggregate.BY_CATEGORY)) byCategory = new int[collection.categoryCount()];
+        if (aggregates.contains(Aggregate.WORDS_BY_CATEGORY)) {
+            wordSums = new long[collection.categoryCount()];
+            wordCounted = new int[collection.categoryCount()];
+        }
+        if (aggregates.contains(Aggregate.BY_DATE)) byDate = new DayCounts();
+        if (topN > 0) top = new TopN(topN);
+    }
+    
+    PartialAggregates merge(PartialAggregates other) {
+        add(byAuthor, other.byAuthor);
+        add(byCategory, other.byCategory);
+        add(wordCounted, other.wordCounted);
+        if (wordSums != null) {
+            for (int id = 0; id < wordSums.length; id++) wordSums[id] += other.wordSums[id];
+        }
+        if (byDate != null) byDate.addAll(other.byDate);
+        if (top != null) top.addAll(other.top);
+        return this;
+    }
+    
+    private static void add(int[] into, int[] from) {
+        if (into == null) return;
+        for (int id = 0; id < into.length; id++) into[id] += from[id];
+    }
+}
@@ -0,0 +1,156 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.*;
+
+// Aggregates kept up to date one article at a time, for the incremental analyzer
+class RunningAggregates implements ArticleSummary {
+    // Longest articles remembered for getTopArticlesByWordCount
+    static final int TOP_KEPT = 10;
+    
+    private int total;
+    private Map<String, Integer> byAuthor = new HashMap<>();
+    private Map<String, Integer> byCategory = new HashMap<>();
+    private Map<LocalDate, Integer> byDate = new HashMap<>();
+    
+    // category -> {word sum, article count}
+    private Map<String, long[]> wordsByCategory = new HashMap<>();
+    
+    // Longest first; ties broken by file name, matching a sorted full parse
+    private List<Article> top = new ArrayList<>();
+    private List<String> topFiles = new ArrayList<>();
+    
+    public synchronized void add(String file, Article a) {
+        total++;
+        byAuthor.merge(a.getAuthor(), 1, Integer::sum);
+        byCategory.merge(a.getCategory(), 1, Integer::sum);
+        byDate.merge(a.getPublishDate(), 1, Integer::sum);
+        
+        long[] words = wordsByCategory.computeIfAbsent(a.getCategory(), k -> new long[2]);
+        words[0] += a.getWordCount();
+        words[1]++;
+        
+        int at = top.size();
+        while (at > 0 && (top.get(at - 1).getWordCount() < a.getWordCount()
+                          || (top.get(at - 1).getWordCount() == a.getWordCount()
+                              && topFiles.get(at - 1).compareTo(file) > 0))) {
+            at--;
+        }
+        if (at < TOP_KEPT) {
+            // Drop the body; only the header fields are reported
+            top.add(at, new Article(a.getUrl(), a.getTitle(), a.getAuthor(), a.getPublishDate(),
+                                    a.getReceivedDate(), a.getWordCount(), null));
+            topFiles.add(at, file);
+            if (top.size() > TOP_KEPT) {
+                top.remove(TOP_KEPT);
+                topFiles.remove(TOP_KEPT);
+            }
+        }
+    }
+    
+    public synchronized int getTotalArticles() { return total; }
+    public synchronized Map<String, Integer> getArticlesByAuthor() { return new HashMap<>(byAuthor); }
+    public synchronized Map<String, Integer> getArticlesByCategory() { return new HashMap<>(byCategory); }
+    public synchronized Map<LocalDate, Integer> getArticlesByDate() { return new HashMap<>(byDate); }
+    
+    public synchronized Map<String, Double> getAvgWordCountByCategory() {
+        Map<String, Double> avgWords = new HashMap<>();
+        wordsByCategory.forEach((cat, words) -> avgWords.put(cat, (double) words[0] / words[1]));
+        return avgWords;
+    }
+    
+    public synchronized List<Article> getTopArticlesByWordCount(int n) {
+        if (n > TOP_KEPT) throw new IllegalArgumentException("Only the top " + TOP_KEPT + " are kept");
+        return List.copyOf(top.subList(0, Math.min(n, top.size())));
+    }
+    
+    synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(total);
+        writeCounts(out, byAuthor);
+        writeCounts(out, byCategory);
+        
+        out.writeInt(byDate.size());
+        for (Map.Entry<LocalDate, Integer> e : byDate.entrySet()) {
+            out.writeLong(e.getKey() != null ? e.getKey().toEpochDay() : Long.MIN_VALUE);
+            out.writeInt(e.getValue());
+        }
+        
+        out.writeInt(wordsByCategory.size());
+        for (Map.Entry<String, long[]> e : wordsByCategory.entrySet()) {
+            writeString(out, e.getKey());
+            out.writeLong(e.getValue()[0]);
+            out.writeLong(e.getValue()[1]);
+        }
+        
+        out.writeInt(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            Article a = top.get(i);
+            writeString(out, topFiles.get(i));
+            writeString(out, a.getUrl());
+            writeString(out, a.getTitle());
+            writeString(out, a.getAuthor());
+            out.writeLong(a.getPublishDate() != null ? a.getPublishDate().toEpochDay() : Long.MIN_VALUE);
+            out.writeInt(a.getWordCount());
+        }
+    }
+    
+    static RunningAggregates readFrom(DataInputStream in) throws IOException {
+        RunningAggregates aggregates = new RunningAggregates();
+        aggregates.total = in.readInt();
+        readCounts(in, aggregates.byAuthor);
+        readCounts(in, aggregates.byCategory);
+        
+        for (int i = in.readInt(); i > 0; i--) {
+            aggregates.byDate.put(readDate(in), in.readInt());
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            aggregates.wordsByCategory.put(readString(in), new long[] {in.readLong(), in.readLong()});
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            aggregates.topFiles.add(readString(in));
+            aggregates.top.add(new Article(readString(in), readString(in), readString(in), readDate(in),
+                                           null, in.readInt(), null));
+        }
+        return aggregates;
+    }
+    
+    private static void writeCounts(DataOutputStream out, Map<String, Integer> counts) throws IOException {
+        out.writeInt(counts.size());
+        for (Map.Entry<String, Integer> e : counts.entrySet()) {
+            writeString(out, e.getKey());
+            out.writeInt(e.getValue());
+        }
+    }
+    
+    private static void readCounts(DataInputStream in, Map<String, Integer> counts) throws IOException {
+        for (int i = in.readInt(); i > 0; i--) {
+            counts.put(readString(in), in.readInt());
+        }
+    }
+    
+    // Length-prefixed UTF-8, -1 for null (writeUTF caps strings at 64KB)
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        long day = in.readLong();
+        return day != Long.MIN_VALUE ? LocalDate.ofEpochDay(day) : null;
+    }
+}
@@ -0,0 +1,57 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Parses files and hands rows to the sinks without building an
+ * ArticleCollection. Workers parse and reduce each file to an ExportRow, and
+ * the calling thread writes the rows strictly in list order, while up to
+ * options.chunkSize files are in flight, so memory does not grow with the
+ * corpus (beyond the file list itself) and the output is the same for any
+ * parallelism.
+ */
+public class StreamingExporter {
+    
+    public static ExportResult export(List<Path> files, ParseOptions options, List<ExportSink> sinks)
+            throws IOException {
+        ExportResult result = new ExportResult();
+        ForkJoinPool pool = new ForkJoinPool(options.parallelism);
+        ArrayDeque<ForkJoinTask<ExportRow>> inFlight = new ArrayDeque<>(options.chunkSize);
+        try {
+            int next = 0;
+            for (int written = 0; written < files.size(); written++) {
+                while (next < files.size() && inFlight.size() < options.chunkSize) {
+                    Path file = files.get(next++);
+                    inFlight.add(pool.submit(() -> {
+                        return new ExportRow(CNNArticleParser.parseArticleFile(file));
+                    }));
+                }
+                
+                Path file = files.get(written);
+                ExportRow row;
+                try {
+                    row = inFlight.poll().get();
+                } catch (ExecutionException e) {
+                    String error = String.valueOf(e.getCause().getMessage());
+                    result.addError(file, error);
+                    if (options.verbose) System.err.println("Error parsing " + file + ": " + error);
+                    continue;
+                }
+                for (ExportSink sink : sinks) {
+                    sink.accept(row);
+                }
+                result.rows++;
+                if (options.verbose) System.out.println("Exported: " + row.title);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export interrupted");
+        } finally {
+            pool.shutdownNow();
+        }
+        return result;
+    }
+}
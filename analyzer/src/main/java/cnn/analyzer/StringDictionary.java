@@ -0,0 +1,27 @@
+package cnn.analyzer;
+
+import java.util.*;
+
+// String <-> dense int ID mapping for dictionary-encoded columns (null allowed)
+class StringDictionary {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    
+    public int idOf(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+    
+    public String valueOf(int id) {
+        return values.get(id);
+    }
+    
+    public int size() {
+        return values.size();
+    }
+}
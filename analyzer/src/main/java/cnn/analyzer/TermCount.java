@@ -0,0 +1,14 @@
+package cnn.analyzer;
+
+// A term and its count in a HeavyHitters summary
+class TermCount {
+    final String term;
+    final long hash;
+    final long count;
+    
+    TermCount(String term, long hash, long count) {
+        this.term = term;
+        this.hash = hash;
+        this.count = count;
+    }
+}
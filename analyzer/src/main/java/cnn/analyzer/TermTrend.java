@@ -0,0 +1,16 @@
+package cnn.analyzer;
+
+// A term's count in a window of days and in the window before; growth is relative to the text in each
+class TermTrend {
+    final String term;
+    final long count;
+    final long previous;
+    final double growth;
+    
+    TermTrend(String term, long count, long previous, double growth) {
+        this.term = term;
+        this.count = count;
+        this.previous = previous;
+        this.growth = growth;
+    }
+}
@@ -0,0 +1,280 @@
+package cnn.analyzer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Term frequencies over article bodies, by publish day and by category, in
+ * memory set by the sketch width and summary size rather than by the
+ * vocabulary. ArticleTerms splits each body into terms keyed by a 64-bit
+ * hash, so counting allocates nothing per token. Day counts go into a
+ * count-min sketch keyed by (day, term), and every day and category keeps a
+ * HeavyHitters summary of its most frequent terms, which supplies the
+ * candidates for top and rising terms. Both only ever overestimate, so a
+ * term's count for a day is the smaller of the two.
+ *
+ * Instances merge by adding counters: count() gives each worker thread its
+ * own and merges them as they finish, and the result is saved as
+ * analyzer.trends with the names of the files it covers, so the next run only
+ * counts new files. As in --watch, a file is counted once by name. Summaries
+ * depend slightly on the order terms arrive in, so counts near the cut-off can
+ * differ between thread counts or between one run and several; the bounds hold
+ * either way.
+ */
+public class TermTrends {
+    public static final String FILE_NAME = "analyzer.trends";
+    private static final byte[] MAGIC = "CNNTRD01".getBytes(StandardCharsets.US_ASCII);
+    
+    // Rarer terms rise and fall by chance; also added to both sides of the growth ratio to damp small counts
+    static final int MIN_RISING_COUNT = 10;
+    
+    private final int width;
+    private final int top;
+    private final CountMinSketch byDay;
+    private final TreeMap<Long, HeavyHitters> days = new TreeMap<>();
+    private final TreeMap<String, HeavyHitters> categories = new TreeMap<>();
+    private final Set<String> files = new HashSet<>();
+    
+    public TermTrends(int width, int top) {
+        this.width = width;
+        this.top = top;
+        this.byDay = new CountMinSketch(width);
+    }
+    
+    /** The state a previous run saved to file, or an empty one if there is none or its settings differ. */
+    public static TermTrends load(Path file, ParseOptions options) {
+        TermTrends trends = new TermTrends(options.trendWidth, options.trendTerms);
+        if (!Files.exists(file)) return trends;
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a trends file");
+            if (in.readInt() != trends.width || in.readInt() != trends.top) {
+                System.err.println(file.getFileName() + " was built with other cnn.trends settings, starting over");
+                return trends;
+            }
+            trends.readFrom(in);
+            return trends;
+        } catch (EOFException e) {
+            System.err.println("Ignoring truncated " + file.getFileName() + ", starting over");
+            return new TermTrends(options.trendWidth, options.trendTerms);
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable " + file.getFileName() + ", starting over: " + e.getMessage());
+            return new TermTrends(options.trendWidth, options.trendTerms);
+        }
+    }
+    
+    /**
+     * Counts the files under dir that are not counted yet, on options.parallelism
+     * workers that each fill their own instance, merged into this one. Files
+     * that fail to parse go to onError and are tried again next time.
+     */
+    public int count(Path dir, List<Path> candidates, ParseOptions options, BiConsumer<Path, String> onError) {
+        List<Path> unseen = new ArrayList<>();
+        for (Path file : candidates) {
+            if (!files.contains(name(dir, file))) unseen.add(file);
+        }
+        if (unseen.isEmpty()) return 0;
+        
+        int before = files.size();
+        String[] errors = new String[unseen.size()];
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(options.parallelism, unseen.size());
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            List<ForkJoinTask<TermTrends>> partials = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) {
+                partials.add(pool.submit(() -> {
+                    TermTrends partial = new TermTrends(width, top);
+                    ArticleTerms terms = new ArticleTerms();
+                    for (int i = next.getAndIncrement(); i < unseen.size(); i = next.getAndIncrement()) {
+                        try {
+                            partial.add(name(dir, unseen.get(i)), CNNArticleParser.parseArticleFile(unseen.get(i)),
+                                        terms);
+                        } catch (Exception e) {
+                            errors[i] = String.valueOf(e.getMessage());
+                        }
+                    }
+                    return partial;
+                }));
+            }
+            for (ForkJoinTask<TermTrends> partial : partials) {
+                merge(partial.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error counting terms: " + e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) onError.accept(unseen.get(i), errors[i]);
+        }
+        return files.size() - before;
+    }
+    
+    // One article, counted under its file name; terms is the calling worker's scratch space
+    void add(String file, Article article, ArticleTerms terms) {
+        if (!files.add(file)) return;
+        
+        terms.split(article.getContent());
+        long day = article.getPublishDate() != null ? article.getPublishDate().toEpochDay() : ArticleCollection.NO_DATE;
+        HeavyHitters daySummary = day != ArticleCollection.NO_DATE
+            ? days.computeIfAbsent(day, d -> new HeavyHitters(top)) : null;
+        HeavyHitters categorySummary = categories.computeIfAbsent(article.getCategory(), c -> new HeavyHitters(top));
+        
+        for (int t = 0; t < terms.size(); t++) {
+            long hash = terms.hash(t);
+            int count = terms.count(t);
+            if (daySummary != null) {
+                byDay.add(dayKey(day, hash), count);
+                daySummary.add(hash, count, terms, t);
+            }
+            categorySummary.add(hash, count, terms, t);
+        }
+    }
+    
+    TermTrends merge(TermTrends other) {
+        byDay.addAll(other.byDay);
+        other.days.forEach((day, summary) -> days.merge(day, summary, HeavyHitters::addAll));
+        other.categories.forEach((category, summary) -> categories.merge(category, summary, HeavyHitters::addAll));
+        files.addAll(other.files);
+        return this;
+    }
+    
+    public int getTotalArticles() {
+        return files.size();
+    }
+    
+    public LocalDate getLastDay() {
+        return days.isEmpty() ? null : LocalDate.ofEpochDay(days.lastKey());
+    }
+    
+    public Set<String> getCategories() {
+        return Collections.unmodifiableSet(categories.keySet());
+    }
+    
+    /** Estimated count of the term on every publish day, earliest first; never below the true count. */
+    public SortedMap<LocalDate, Long> frequencyByDay(String term) {
+        long hash = ArticleTerms.hashOf(term);
+        SortedMap<LocalDate, Long> counts = new TreeMap<>();
+        days.forEach((day, summary) -> counts.put(LocalDate.ofEpochDay(day), estimate(day, summary, hash)));
+        return counts;
+    }
+    
+    /**
+     * The n terms whose counts in the window of days ending at end grew most
+     * over the window before it, after scaling for the amount of text in each.
+     * Candidates are the terms kept in the window's day summaries; with no
+     * articles in the window before, there is nothing to compare and none rise.
+     */
+    public List<TermTrend> risingTerms(LocalDate end, int window, int n) {
+        long last = end.toEpochDay();
+        SortedMap<Long, HeavyHitters> recent = days.subMap(last - window + 1, last + 1);
+        SortedMap<Long, HeavyHitters> before = days.subMap(last - 2 * window + 1, last - window + 1);
+        long recentTerms = 0, beforeTerms = 0;
+        HeavyHitters candidates = new HeavyHitters(top);
+        for (HeavyHitters summary : recent.values()) {
+            recentTerms += summary.getTotal();
+            candidates.addAll(summary);
+        }
+        for (HeavyHitters summary : before.values()) {
+            beforeTerms += summary.getTotal();
+        }
+        if (beforeTerms == 0) return List.of();
+        
+        List<TermTrend> rising = new ArrayList<>();
+        for (TermCount candidate : candidates.top(Integer.MAX_VALUE)) {
+            long count = sum(recent, candidate.hash);
+            if (count < MIN_RISING_COUNT) continue;
+            long previous = sum(before, candidate.hash);
+            double expected = (double) previous * recentTerms / beforeTerms;
+            rising.add(new TermTrend(candidate.term, count, previous,
+                                     (count + MIN_RISING_COUNT) / (expected + MIN_RISING_COUNT)));
+        }
+        rising.sort(Comparator.comparingDouble((TermTrend t) -> -t.growth)
+                              .thenComparing(t -> -t.count)
+                              .thenComparing(t -> t.term));
+        return rising.subList(0, Math.min(n, rising.size()));
+    }
+    
+    /** The category's n most frequent terms, with counts that are at most the summary's error low. */
+    public List<TermCount> topTerms(String category, int n) {
+        HeavyHitters summary = categories.get(category);
+        return summary != null ? summary.top(n) : List.of();
+    }
+    
+    /** How far a day count can exceed the true count, with the sketch's 98% confidence. */
+    public long dayErrorBound() {
+        return byDay.errorBound();
+    }
+    
+    private long sum(SortedMap<Long, HeavyHitters> window, long hash) {
+        long sum = 0;
+        for (Map.Entry<Long, HeavyHitters> e : window.entrySet()) {
+            sum += estimate(e.getKey(), e.getValue(), hash);
+        }
+        return sum;
+    }
+    
+    private long estimate(long day, HeavyHitters summary, long hash) {
+        return Math.min(byDay.estimate(dayKey(day, hash)), summary.upperBound(hash));
+    }
+    
+    private static long dayKey(long day, long hash) {
+        return hash ^ day * 0x9E3779B97F4A7C15L;
+    }
+    
+    private static String name(Path dir, Path file) {
+        return dir.relativize(file).toString();
+    }
+    
+    /** Atomically replaces file with this state. */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.write(MAGIC);
+            out.writeInt(width);
+            out.writeInt(top);
+            byDay.writeTo(out);
+            
+            out.writeInt(days.size());
+            for (Map.Entry<Long, HeavyHitters> e : days.entrySet()) {
+                out.writeLong(e.getKey());
+                e.getValue().writeTo(out);
+            }
+            out.writeInt(categories.size());
+            for (Map.Entry<String, HeavyHitters> e : categories.entrySet()) {
+                RunningAggregates.writeString(out, e.getKey());
+                e.getValue().writeTo(out);
+            }
+            out.writeInt(files.size());
+            for (String name : files) {
+                RunningAggregates.writeString(out, name);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private void readFrom(DataInputStream in) throws IOException {
+        byDay.readFrom(in);
+        for (int i = in.readInt(); i > 0; i--) {
+            days.put(in.readLong(), HeavyHitters.readFrom(in, top));
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            categories.put(RunningAggregates.readString(in), HeavyHitters.readFrom(in, top));
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            files.add(RunningAggregates.readString(in));
+        }
+    }
+}
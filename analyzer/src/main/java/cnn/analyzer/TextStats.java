@@ -0,0 +1,85 @@
+package cnn.analyzer;
+
+/**
+ * Word, sentence, character and paragraph counts from one scan of the text,
+ * without allocating. The counts are the ones the regex splits gave before:
+ * words are text.split("\\s+").length, and sentences and characters are
+ * split("[.!?]+").length and length() of the trimmed text (bodies are read
+ * back trimmed, so for them that is the body itself). Paragraphs are blocks
+ * separated by blank lines. The server counts the same way and writes
+ * the results into each file's header (Word Count, Sentences, Characters,
+ * Paragraphs), so files it wrote never need counting here.
+ */
+public class TextStats {
+    static final TextStats EMPTY = new TextStats(0, 0, 0, 0);
+    
+    final int words;
+    final int sentences;
+    final int characters;
+    final int paragraphs;
+    
+    public TextStats(int words, int sentences, int characters, int paragraphs) {
+        this.words = words;
+        this.sentences = sentences;
+        this.characters = characters;
+        this.paragraphs = paragraphs;
+    }
+    
+    static TextStats of(CharSequence text) {
+        // The body as the analyzer reads it back: trimmed as by String.trim()
+        int start = 0, end = text.length();
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        
+        int runs = 0, paragraphs = 0, newlines = 0;
+        boolean inWord = false;
+        boolean leadingSpace = text.length() > 0 && isSplitSpace(text.charAt(0));
+        boolean anySpace = false;
+        
+        // Pieces of text.split("[.!?]+"): terminator runs separate them, trailing empty ones are dropped
+        int pieces = 0, counted = 0;
+        boolean inBreak = false, pieceEmpty = true;
+        
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isSplitSpace(c)) {
+                anySpace = true;
+                inWord = false;
+            } else {
+                if (!inWord) runs++;
+                inWord = true;
+            }
+            if (i < start || i >= end) continue;
+            
+            if (c == '.' || c == '!' || c == '?') {
+                if (!inBreak) {
+                    pieces++;
+                    if (!pieceEmpty) counted = pieces;
+                    pieceEmpty = true;
+                    inBreak = true;
+                }
+            } else {
+                inBreak = false;
+                pieceEmpty = false;
+            }
+            
+            if (Character.isWhitespace(c)) {
+                if (c == '\n') newlines++;
+            } else {
+                if (paragraphs == 0 || newlines >= 2) paragraphs++;
+                newlines = 0;
+            }
+        }
+        
+        // text.split("\\s+").length: with no separator it is the whole text, even if empty;
+        // leading whitespace adds an empty first piece
+        int words = !anySpace ? 1 : runs == 0 ? 0 : runs + (leadingSpace ? 1 : 0);
+        int sentences = pieces == 0 ? 1 : pieceEmpty ? counted : pieces + 1;
+        return new TextStats(words, sentences, end - start, paragraphs);
+    }
+    
+    // Regex \s: space, tab, newline, vertical tab, form feed, carriage return
+    private static boolean isSplitSpace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+}
@@ -0,0 +1,86 @@
+package cnn.analyzer;
+
+import java.util.*;
+
+/**
+ * Bounded min-heap of row indexes keeping the n longest articles. The root is
+ * the weakest kept row (fewest words, then the later row), so each offer is
+ * one comparison unless the row makes the cut. Ties go to the earlier row,
+ * matching the stable sort this replaced.
+ */
+class TopN {
+    private final int[] rows;
+    private final int[] words;
+    private int size;
+    
+    TopN(int n) {
+        rows = new int[n];
+        words = new int[n];
+    }
+    
+    void offer(int row, int wordCount) {
+        if (size < rows.length) {
+            rows[size] = row;
+            words[size] = wordCount;
+            siftUp(size++);
+        } else if (weaker(0, row, wordCount)) {
+            rows[0] = row;
+            words[0] = wordCount;
+            siftDown(0);
+        }
+    }
+    
+    void addAll(TopN other) {
+        for (int i = 0; i < other.size; i++) offer(other.rows[i], other.words[i]);
+    }
+    
+    int capacity() {
+        return rows.length;
+    }
+    
+    // Kept rows, longest first
+    int[] rowsDescending() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> words[a] != words[b] ? Integer.compare(words[b], words[a])
+                                                          : Integer.compare(rows[a], rows[b]));
+        int[] sorted = new int[size];
+        for (int i = 0; i < size; i++) sorted[i] = rows[order[i]];
+        return sorted;
+    }
+    
+    // Whether heap slot i ranks below (row, wordCount)
+    private boolean weaker(int i, int row, int wordCount) {
+        return words[i] < wordCount || (words[i] == wordCount && rows[i] > row);
+    }
+    
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!weaker(i, rows[parent], words[parent])) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+    
+    private void siftDown(int i) {
+        while (true) {
+            int weakest = i;
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                if (weaker(child, rows[weakest], words[weakest])) weakest = child;
+            }
+            if (weakest == i) return;
+            swap(i, weakest);
+            i = weakest;
+        }
+    }
+    
+    private void swap(int a, int b) {
+        int row = rows[a];
+        rows[a] = rows[b];
+        rows[b] = row;
+        int w = words[a];
+        words[a] = words[b];
+        words[b] = w;
+    }
+}
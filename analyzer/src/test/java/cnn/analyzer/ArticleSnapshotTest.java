@@ -0,0 +1,187 @@
+package cnn.analyzer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ArticleSnapshot.parseDirectory must give exactly the rows of a cold
+ * CNNArticleParser.parseDirectory, whatever changed since the snapshot.
+ */
+class ArticleSnapshotTest {
+    static final String BANNER = "=".repeat(80);
+    static final String[] SECTIONS = {"politics", "Business", "tech", "World"};
+
+    @TempDir
+    Path dir;
+
+    ParseOptions options;
+    int aged;
+
+    @BeforeEach
+    void setUp() {
+        options = new ParseOptions();
+        options.parallelism = 2;
+        options.chunkSize = 7;
+    }
+
+    @Test
+    void warmParseOfUnchangedDirectoryReusesEveryRow() throws IOException {
+        for (int n = 0; n < 40; n++) write(n, n);
+        age();
+
+        assertSameAsCold(ArticleSnapshot.parseDirectory(dir, options));
+        ParseResult warm = ArticleSnapshot.parseDirectory(dir, options);
+        assertSameAsCold(warm);
+        assertEquals(40, warm.getReused());
+    }
+
+    @Test
+    void warmParseSeesAddedModifiedAndDeletedFiles() throws IOException {
+        for (int n = 0; n < 40; n++) write(n, n);
+        age();
+        ArticleSnapshot.parseDirectory(dir, options);
+
+        // Rewritten with another article, deleted, and added between existing names
+        for (int n = 0; n < 40; n += 8) write(n, 100 + n);
+        for (int n = 3; n < 40; n += 10) Files.delete(file(n));
+        for (int n = 0; n < 3; n++) Files.writeString(dir.resolve(String.format("%04d_late.txt", 10 * n + 5)),
+                                                      article(200 + n), StandardCharsets.UTF_8);
+        age();
+
+        ParseResult warm = ArticleSnapshot.parseDirectory(dir, options);
+        assertSameAsCold(warm);
+        assertEquals(40 - 5 - 4, warm.getReused());
+
+        // The snapshot it rewrote is as good as the first
+        assertSameAsCold(ArticleSnapshot.parseDirectory(dir, options));
+    }
+
+    @Test
+    void sameSizeRewriteIsNoticed() throws IOException {
+        write(0, 0);
+        age();
+        ArticleSnapshot.parseDirectory(dir, options);
+
+        // Same length, different title; only the mtime tells them apart
+        String text = Files.readString(file(0)).replace("Story number 0", "Story NUMBER 0");
+        Files.writeString(file(0), text, StandardCharsets.UTF_8);
+
+        ParseResult warm = ArticleSnapshot.parseDirectory(dir, options);
+        assertSameAsCold(warm);
+        assertEquals("Story NUMBER 0", warm.getCollection().get(0).getTitle());
+    }
+
+    @Test
+    void recentlyWrittenFilesAreParsedAgain() throws IOException {
+        write(0, 0);
+        ArticleSnapshot.parseDirectory(dir, options);
+
+        // Rewritten within the same mtime tick: the snapshot must not have kept the first version
+        String text = Files.readString(file(0)).replace("Story number 0", "Story NUMBER 0");
+        FileTime modified = Files.getLastModifiedTime(file(0));
+        Files.writeString(file(0), text, StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file(0), modified);
+
+        ParseResult warm = ArticleSnapshot.parseDirectory(dir, options);
+        assertSameAsCold(warm);
+        assertEquals(0, warm.getReused());
+    }
+
+    @Test
+    void unreadableSnapshotFallsBackToColdParse() throws IOException {
+        for (int n = 0; n < 10; n++) write(n, n);
+        age();
+        ArticleSnapshot.parseDirectory(dir, options);
+
+        Path snapshot = dir.resolve(ArticleSnapshot.FILE_NAME);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length / 2));
+
+        ParseResult warm = ArticleSnapshot.parseDirectory(dir, options);
+        assertSameAsCold(warm);
+        assertEquals(0, warm.getReused());
+    }
+
+    void assertSameAsCold(ParseResult warm) {
+        ArticleCollection cold = CNNArticleParser.parseDirectory(dir.toString(), options).getCollection();
+        ArticleCollection actual = warm.getCollection();
+        assertEquals(cold.getTotalArticles(), actual.getTotalArticles(), "articles");
+        for (int i = 0; i < cold.getTotalArticles(); i++) {
+            Article x = cold.get(i);
+            Article y = actual.get(i);
+            String row = "row " + i + " (" + x.getUrl() + ")";
+            assertEquals(x.getUrl(), y.getUrl(), row);
+            assertEquals(x.getTitle(), y.getTitle(), row);
+            assertEquals(x.getAuthor(), y.getAuthor(), row);
+            assertEquals(x.getCategory(), y.getCategory(), row);
+            assertEquals(x.getPublishDate(), y.getPublishDate(), row);
+            assertEquals(x.getReceivedDate(), y.getReceivedDate(), row);
+            assertEquals(x.getWordCount(), y.getWordCount(), row);
+            assertEquals(x.getSentenceCount(), y.getSentenceCount(), row);
+            assertEquals(x.getParagraphCount(), y.getParagraphCount(), row);
+            assertEquals(x.getContentLength(), y.getContentLength(), row);
+            assertEquals(x.getContent(), y.getContent(), row);
+        }
+    }
+
+    Path file(int n) {
+        return dir.resolve(String.format("%04d_story.txt", n));
+    }
+
+    void write(int n, int article) throws IOException {
+        Files.writeString(file(n), article(article), StandardCharsets.UTF_8);
+    }
+
+    // Moves freshly written files outside RACY_NANOS, so the snapshot keeps them;
+    // each gets its own time, so a rewrite never shares an mtime with what it replaced
+    void age() throws IOException {
+        Instant recent = Instant.now().minus(Duration.ofMinutes(1));
+        try (var paths = Files.list(dir)) {
+            for (Path path : paths.sorted().toList()) {
+                if (Files.getLastModifiedTime(path).toInstant().isAfter(recent)) {
+                    Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(Duration.ofHours(1))
+                                                                  .plusSeconds(aged++)));
+                }
+            }
+        }
+    }
+
+    // The server's .txt layout; every third article predates the count header lines
+    static String article(int n) {
+        StringBuilder content = new StringBuilder();
+        Random random = new Random(n);
+        for (int p = 0, paragraphs = 1 + random.nextInt(4); p < paragraphs; p++) {
+            if (p > 0) content.append("\n\n");
+            for (int s = 0, sentences = 1 + random.nextInt(4); s < sentences; s++) {
+                content.append(s > 0 ? " " : "").append("Word").append(random.nextInt(1000))
+                       .append(" and “quoted” text ").append(n).append(random.nextBoolean() ? "." : "!");
+            }
+        }
+        TextStats stats = TextStats.of(content.toString());
+        String section = SECTIONS[n % SECTIONS.length];
+        return BANNER + "\nCNN ARTICLE\n" + BANNER + "\n\n"
+             + "URL: https://www.cnn.com/2025/03/" + String.format("%02d", 1 + n % 28) + "/" + section
+             + "/story-" + n + "/index.html\n"
+             + "Title: Story number " + n + "\n"
+             + "Author: Author " + (n % 5) + "\n"
+             + "Date: 2025-03-" + String.format("%02d", 1 + n % 28) + "T14:32:10.000Z\n"
+             + "Received: 2025-03-" + String.format("%02d", 1 + n % 28) + "T14:35:02.481\n"
+             + "Word Count: " + stats.words + "\n"
+             + (n % 3 == 0 ? "" : "Sentences: " + stats.sentences + "\n"
+                                + "Characters: " + stats.characters + "\n"
+                                + "Paragraphs: " + stats.paragraphs + "\n")
+             + "\n" + BANNER + "\nCONTENT\n" + BANNER + "\n\n"
+             + content
+             + "\n\n" + BANNER + "\nEND OF ARTICLE\n" + BANNER + "\n";
+    }
+}
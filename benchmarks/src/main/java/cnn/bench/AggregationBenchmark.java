@@ -0,0 +1,59 @@
+package cnn.bench;
+
+import cnn.analyzer.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The analyzer summary over an in-memory ArticleCollection: one getter per
+ * statistic (a pass each) vs a single fused AggregationEngine pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AggregationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int articles;
+
+    ArticleCollection collection;
+    AggregationEngine engine;
+
+    @Setup
+    public void setup() {
+        collection = new ArticleCollection();
+        for (int n = 0; n < articles; n++) {
+            // Header fields only: aggregations never read the body
+            int words = 300 + new Random(n).nextInt(400);
+            collection.addArticle(new Article(SyntheticCorpus.url(n), "Story " + n, SyntheticCorpus.author(n),
+                                              LocalDate.parse(SyntheticCorpus.date(n)), null, words,
+                                              SyntheticCorpus.category(n),
+                                              new TextStats(words, words / 20, words * 6, 6), "", null));
+        }
+        engine = new AggregationEngine(ParseOptions.fromSystemProperties().parallelism);
+    }
+
+    @Benchmark
+    public int separatePasses() {
+        return collection.getArticlesByAuthor().size()
+             + collection.getArticlesByCategory().size()
+             + collection.getArticlesByDate().size()
+             + collection.getAvgWordCountByCategory().size()
+             + collection.getTopArticlesByWordCount(5).size();
+    }
+
+    @Benchmark
+    public AggregateResult fusedPass() {
+        return engine.run(collection, EnumSet.allOf(Aggregate.class), 5);
+    }
+
+    @Benchmark
+    public List<Article> topArticles() {
+        return collection.getTopArticlesByWordCount(5);
+    }
+}
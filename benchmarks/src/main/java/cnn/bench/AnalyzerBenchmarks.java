@@ -0,0 +1,561 @@
+package cnn.bench;
+
+import cnn.analyzer.*;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.*;
+import java.time.format.*;
+import java.util.*;
+import java.util.regex.*;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * Benchmarks for the CNN Article Analyzer
+ * Built into benchmarks/target/benchmarks.jar by mvn package
+ *
+ * Usage: java -cp benchmarks.jar cnn.bench.AnalyzerBenchmarks parse [files]
+ *        java -cp benchmarks.jar cnn.bench.AnalyzerBenchmarks aggregate [articles]
+ *        java -cp benchmarks.jar cnn.bench.AnalyzerBenchmarks export [files]
+ *        java -cp benchmarks.jar cnn.bench.AnalyzerBenchmarks snapshot [files]
+ *        java -cp benchmarks.jar cnn.bench.AnalyzerBenchmarks trends [files]
+ */
+public class AnalyzerBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "parse";
+
+        switch (mode) {
+            case "parse":
+                parseThroughput(args.length > 1 ? Integer.parseInt(args[1]) : 5000);
+                break;
+            case "aggregate":
+                aggregateThroughput(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+                break;
+            case "export":
+                exportThroughput(args.length > 1 ? Integer.parseInt(args[1]) : 100_000);
+                break;
+            case "snapshot":
+                snapshotWarmStart(args.length > 1 ? Integer.parseInt(args[1]) : 100_000);
+                break;
+            case "trends":
+                trendsThroughput(args.length > 1 ? Integer.parseInt(args[1]) : 100_000);
+                break;
+            default:
+                System.err.println("Unknown benchmark: " + mode);
+                System.exit(1);
+        }
+    }
+
+    // ========================================================================
+    // FILE PARSING: regex extractField vs single-pass parser
+    // ========================================================================
+    static void parseThroughput(int files) throws Exception {
+        List<Path> paths = CNNArticleParser.listArticleFiles(SyntheticCorpus.textDirectory(files));
+        Path dir = Files.createTempDirectory("cnn-analyzer-bench");
+        try {
+            List<Path> compressed = writeCompressedCorpus(dir, paths);
+
+            System.out.println("--- Article file parsing (" + files + " files, one thread) ---");
+            System.out.println("Parser        Seconds    Files/sec");
+
+            for (int pass = 0; pass < 3; pass++) {
+                boolean report = pass == 2;
+
+                long start = System.nanoTime();
+                for (Path path : paths) {
+                    sink += legacyParse(path).getContentLength();
+                }
+                long legacyNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (Path path : paths) {
+                    sink += CNNArticleParser.parseArticleFile(path).getContentLength();
+                }
+                long singlePassNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (Path path : compressed) {
+                    sink += CNNArticleParser.parseArticleFile(path).getContentLength();
+                }
+                long compressedNanos = System.nanoTime() - start;
+
+                if (report) {
+                    printParseRow("regex", legacyNanos, files);
+                    printParseRow("single-pass", singlePassNanos, files);
+                    printParseRow(".txt.dfl", compressedNanos, files);
+                }
+            }
+            System.out.printf("%nCompressed files are %.1f%% of the text%n",
+                              100.0 * totalSize(compressed) / totalSize(paths));
+
+            // Timestamps in Date: and escaped quotes in the body, which the regex parser mishandles
+            int quoted = 0;
+            while (SyntheticCorpus.content(quoted).indexOf('“') < 0) quoted++;
+            Path escaped = Files.writeString(dir.resolve("escaped.txt"), SyntheticCorpus.escapedTextFile(quoted),
+                                             StandardCharsets.UTF_8);
+            Article legacy = legacyParse(escaped);
+            Article singlePass = CNNArticleParser.parseArticleFile(escaped);
+            int quote = singlePass.getContent().indexOf('“');
+            System.out.println("\nDate " + SyntheticCorpus.date(quoted) + "T14:32:10.000Z, regex:       "
+                               + legacy.getPublishDate());
+            System.out.println("Date " + SyntheticCorpus.date(quoted) + "T14:32:10.000Z, single-pass: "
+                               + singlePass.getPublishDate());
+            System.out.println("Quote, regex:       " + legacy.getContent().substring(quote, quote + 40));
+            System.out.println("Quote, single-pass: " + singlePass.getContent().substring(quote, quote + 40));
+        } finally {
+            SyntheticCorpus.deleteRecursively(dir);
+        }
+    }
+
+    static long sink;
+
+    // ========================================================================
+    // AGGREGATION: one pass per statistic vs the fused AggregationEngine
+    // ========================================================================
+    static void aggregateThroughput(int articles) {
+        ArticleCollection collection = syntheticCollection(articles);
+        int[] wordCounts = new int[articles];
+        for (int i = 0; i < articles; i++) wordCounts[i] = collection.get(i).getWordCount();
+        int cores = Integer.getInteger("cnn.parallelism", Runtime.getRuntime().availableProcessors());
+
+        System.out.println("--- Summary aggregates (" + articles + " articles, " + cores + " threads) ---");
+        System.out.println("Method                 Millis   Articles/sec");
+
+        AggregateResult fused = null;
+        for (int pass = 0; pass < 5; pass++) {
+            boolean report = pass == 4;
+
+            // The summary as it was computed before: a pass per statistic, top-N by a full sort
+            long start = System.nanoTime();
+            sink += collection.getArticlesByAuthor().size();
+            sink += collection.getArticlesByCategory().size();
+            sink += collection.getArticlesByDate().size();
+            sink += collection.getAvgWordCountByCategory().size();
+            sink += java.util.stream.IntStream.range(0, articles).boxed()
+                        .sorted(Comparator.<Integer>comparingInt(i -> wordCounts[i]).reversed())
+                        .limit(5).mapToInt(i -> i).sum();
+            long separateNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            fused = new AggregationEngine(1).run(collection, EnumSet.allOf(Aggregate.class), 5);
+            long fusedNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            AggregateResult parallel = new AggregationEngine(cores).run(collection, EnumSet.allOf(Aggregate.class), 5);
+            long parallelNanos = System.nanoTime() - start;
+            sink += parallel.getTotalArticles();
+
+            if (report) {
+                printAggregateRow("separate passes", separateNanos, articles);
+                printAggregateRow("fused, 1 thread", fusedNanos, articles);
+                printAggregateRow("fused, " + cores + " threads", parallelNanos, articles);
+            }
+        }
+
+        boolean same = fused.getArticlesByAuthor().equals(collection.getArticlesByAuthor())
+                    && fused.getArticlesByCategory().equals(collection.getArticlesByCategory())
+                    && fused.getArticlesByDate().equals(collection.getArticlesByDate())
+                    && fused.getAvgWordCountByCategory().equals(collection.getAvgWordCountByCategory())
+                    && titles(fused.getTopArticlesByWordCount(5)).equals(
+                           titles(new AggregationEngine(cores).run(collection, Set.of(), 5).getTopArticlesByWordCount(5)));
+        System.out.println("\nResults identical: " + same);
+    }
+
+    // ========================================================================
+    // EXPORT: parse into an ArticleCollection then write CSV vs StreamingExporter
+    // ========================================================================
+    static void exportThroughput(int files) throws Exception {
+        Path dir = SyntheticCorpus.textDirectory(files);
+        Path out = Files.createTempDirectory("cnn-export-bench");
+        ParseOptions options = ParseOptions.fromSystemProperties();
+        try {
+            System.out.println("--- CSV export (" + files + " files, " + options.parallelism + " threads) ---");
+            System.out.println("Method                   Seconds   Files/sec   Peak heap MB");
+
+            for (int pass = 0; pass < 2; pass++) {
+                boolean report = pass == 1;
+
+                resetPeakHeap();
+                long start = System.nanoTime();
+                ArticleCollection collection = CNNArticleParser.parseDirectory(dir.toString(), options).getCollection();
+                CNNArticleAnalyzer.exportToCSV(collection, out.resolve("collection.csv").toString());
+                long collectionNanos = System.nanoTime() - start;
+                long collectionPeak = peakHeap();
+                collection = null;
+
+                resetPeakHeap();
+                start = System.nanoTime();
+                List<Path> paths = CNNArticleParser.listArticleFiles(dir);
+                try (ExportSink csv = new CsvExportSink(out.resolve("streaming.csv"))) {
+                    sink += StreamingExporter.export(paths, options, List.of(csv)).getRows();
+                }
+                long streamingNanos = System.nanoTime() - start;
+                long streamingPeak = peakHeap();
+
+                resetPeakHeap();
+                start = System.nanoTime();
+                try (ExportSink csv = new CsvExportSink(out.resolve("both.csv"));
+                     ExportSink columnar = new ColumnarExportSink(out.resolve("both.cnncol"))) {
+                    sink += StreamingExporter.export(paths, options, List.of(csv, columnar)).getRows();
+                }
+                long bothNanos = System.nanoTime() - start;
+                long bothPeak = peakHeap();
+
+                if (report) {
+                    printExportRow("collection + CSV", collectionNanos, files, collectionPeak);
+                    printExportRow("streaming CSV", streamingNanos, files, streamingPeak);
+                    printExportRow("streaming CSV+columnar", bothNanos, files, bothPeak);
+                }
+            }
+
+            System.out.printf("%nCSV identical: %b, columnar file %.1f MB vs CSV %.1f MB%n",
+                              Arrays.equals(Files.readAllBytes(out.resolve("collection.csv")),
+                                            Files.readAllBytes(out.resolve("streaming.csv"))),
+                              Files.size(out.resolve("both.cnncol")) / 1e6,
+                              Files.size(out.resolve("both.csv")) / 1e6);
+        } finally {
+            SyntheticCorpus.deleteRecursively(out);
+        }
+    }
+
+    // ========================================================================
+    // WARM START: cold parseDirectory vs loading from analyzer.snapshot
+    // ========================================================================
+    static void snapshotWarmStart(int files) throws Exception {
+        // A private corpus: the snapshot is written into it and some files are rewritten
+        Path dir = Files.createTempDirectory("cnn-snapshot-bench");
+        ParseOptions options = ParseOptions.fromSystemProperties();
+        try {
+            List<Path> paths = SyntheticCorpus.write(dir, files);
+            FileTime old = FileTime.from(Instant.now().minus(Duration.ofHours(1)));
+            for (Path path : paths) {
+                Files.setLastModifiedTime(path, old);
+            }
+
+            System.out.println("--- Directory load (" + files + " files, " + options.parallelism + " threads) ---");
+            System.out.println("Method                   Seconds   Files/sec");
+
+            boolean same = true;
+            for (int pass = 0; pass < 2; pass++) {
+                boolean report = pass == 1;
+                Files.deleteIfExists(dir.resolve(ArticleSnapshot.FILE_NAME));
+
+                long start = System.nanoTime();
+                ArticleCollection cold = CNNArticleParser.parseDirectory(dir.toString(), options).getCollection();
+                long coldNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                ArticleCollection first = ArticleSnapshot.parseDirectory(dir, options).getCollection();
+                long firstNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                ParseResult warm = ArticleSnapshot.parseDirectory(dir, options);
+                long warmNanos = System.nanoTime() - start;
+
+                same &= sameRows(cold, first) && sameRows(cold, warm.getCollection()) && warm.getReused() == files;
+                if (report) {
+                    printExportRow("cold parse", coldNanos, files);
+                    printExportRow("first run (+ write)", firstNanos, files);
+                    printExportRow("warm, unchanged", warmNanos, files);
+                }
+            }
+
+            // Rewrite 1% of the files and add 0.1% new ones
+            int changed = Math.max(1, files / 100);
+            List<Path> touched = new ArrayList<>(SyntheticCorpus.write(dir.resolve("new"), Math.max(1, files / 1000)));
+            for (int i = 0; i < changed; i++) {
+                Path path = paths.get(i * (files / changed));
+                Files.writeString(path, SyntheticCorpus.textFile(files + i), StandardCharsets.UTF_8);
+                touched.add(path);
+            }
+            // Older than the racy window, so the next snapshot can keep them
+            FileTime recent = FileTime.from(Instant.now().minus(Duration.ofMinutes(1)));
+            for (Path path : touched) {
+                Files.setLastModifiedTime(path, recent);
+            }
+
+            long start = System.nanoTime();
+            ParseResult warm = ArticleSnapshot.parseDirectory(dir, options);
+            long warmNanos = System.nanoTime() - start;
+            ArticleCollection cold = CNNArticleParser.parseDirectory(dir.toString(), options).getCollection();
+            printExportRow("warm, 1% changed", warmNanos, cold.getTotalArticles());
+            same &= sameRows(cold, warm.getCollection());
+
+            System.out.printf("%nSnapshot %.1f MB, results identical to a cold parse: %b%n",
+                              Files.size(dir.resolve(ArticleSnapshot.FILE_NAME)) / 1e6, same);
+        } finally {
+            SyntheticCorpus.deleteRecursively(dir);
+        }
+    }
+
+    // ========================================================================
+    // TERM TRENDS: counting cost, incremental runs, query latency and estimate error
+    // ========================================================================
+    static void trendsThroughput(int files) throws Exception {
+        Path dir = SyntheticCorpus.textDirectory(files);
+        Path out = Files.createTempDirectory("cnn-trends-bench");
+        Path state = out.resolve(TermTrends.FILE_NAME);
+        ParseOptions options = ParseOptions.fromSystemProperties();
+        ParseOptions oneThread = ParseOptions.fromSystemProperties();
+        oneThread.parallelism = 1;
+        try {
+            List<Path> paths = CNNArticleParser.listArticleFiles(dir);
+            System.out.println("--- Term trends (" + files + " files, " + options.parallelism + " threads) ---");
+            System.out.println("Method                   Seconds   Files/sec");
+
+            TermTrends trends = null;
+            for (int pass = 0; pass < 2; pass++) {
+                boolean report = pass == 1;
+
+                long start = System.nanoTime();
+                CNNArticleParser.parseFiles(paths, options, (path, article) -> sink++, (path, error) -> { });
+                long parseNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                new TermTrends(options.trendWidth, options.trendTerms).count(dir, paths, oneThread, (path, error) -> { });
+                long oneThreadNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                trends = new TermTrends(options.trendWidth, options.trendTerms);
+                trends.count(dir, paths, options, (path, error) -> { });
+                long countNanos = System.nanoTime() - start;
+
+                // A run after 1% more files arrived: load the saved state, count the rest, save
+                TermTrends earlier = new TermTrends(options.trendWidth, options.trendTerms);
+                earlier.count(dir, paths.subList(0, files - files / 100), options, (path, error) -> { });
+                earlier.save(state);
+                start = System.nanoTime();
+                TermTrends later = TermTrends.load(state, options);
+                later.count(dir, paths, options, (path, error) -> { });
+                later.save(state);
+                long incrementalNanos = System.nanoTime() - start;
+
+                if (report) {
+                    printExportRow("parse only", parseNanos, files);
+                    printExportRow("count, 1 thread", oneThreadNanos, files);
+                    printExportRow("count, " + options.parallelism + " threads", countNanos, files);
+                    printExportRow("load + 1% new + save", incrementalNanos, files / 100);
+                }
+            }
+
+            // Every term's estimate on every day against an exact count
+            Map<String, Map<LocalDate, Long>> exact = new HashMap<>();
+            ArticleTerms terms = new ArticleTerms();
+            for (Path path : paths) {
+                Article article = CNNArticleParser.parseArticleFile(path);
+                terms.split(article.getContent());
+                for (int t = 0; t < terms.size(); t++) {
+                    exact.computeIfAbsent(terms.term(t), k -> new HashMap<>())
+                         .merge(article.getPublishDate(), (long) terms.count(t), Long::sum);
+                }
+            }
+            long pairs = 0, exactPairs = 0, under = 0, over = 0, maxOver = 0;
+            for (Map.Entry<String, Map<LocalDate, Long>> term : exact.entrySet()) {
+                for (Map.Entry<LocalDate, Long> day : trends.frequencyByDay(term.getKey()).entrySet()) {
+                    long error = day.getValue() - term.getValue().getOrDefault(day.getKey(), 0L);
+                    pairs++;
+                    if (error == 0) exactPairs++;
+                    if (error < 0) under++;
+                    over += Math.max(0, error);
+                    maxOver = Math.max(maxOver, error);
+                }
+            }
+            System.out.printf("%nDay counts for %d terms x days: %.1f%% exact, mean error %.2f, max %d (bound %d), "
+                              + "%d below the true count%n", pairs, 100.0 * exactPairs / pairs, (double) over / pairs,
+                              maxOver, trends.dayErrorBound(), under);
+
+            List<String> vocabulary = new ArrayList<>(exact.keySet());
+            LocalDate end = trends.getLastDay();
+            int queries = 200;
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                sink += trends.risingTerms(end.minusDays(i % 100), 7, 10).size();
+            }
+            long risingNanos = (System.nanoTime() - start) / queries;
+            start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                sink += trends.frequencyByDay(vocabulary.get(i % vocabulary.size())).size();
+            }
+            long frequencyNanos = (System.nanoTime() - start) / queries;
+            System.out.printf("Rising terms, week vs week: %.2f ms; one term on each of %d days: %.2f ms%n",
+                              risingNanos / 1e6, trends.frequencyByDay("election").size(), frequencyNanos / 1e6);
+            System.out.printf("State file %.1f MB%n", Files.size(state) / 1e6);
+        } finally {
+            SyntheticCorpus.deleteRecursively(out);
+        }
+    }
+
+    // Every column of every row, via the CSV row the analyzer exports
+    static boolean sameRows(ArticleCollection a, ArticleCollection b) {
+        if (a.getTotalArticles() != b.getTotalArticles()) return false;
+        for (int i = 0; i < a.getTotalArticles(); i++) {
+            ExportRow x = new ExportRow(a.get(i));
+            ExportRow y = new ExportRow(b.get(i));
+            if (!x.url.equals(y.url) || !x.title.equals(y.title) || !x.author.equals(y.author)
+                    || !x.category.equals(y.category) || !Objects.equals(x.publishDate, y.publishDate)
+                    || !Objects.equals(x.receivedDate, y.receivedDate) || x.wordCount != y.wordCount
+                    || x.sentenceCount != y.sentenceCount || x.paragraphCount != y.paragraphCount
+                    || x.contentLength != y.contentLength) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    // Upper bound: the sum of each heap pool's own peak
+    static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    static void printExportRow(String name, long nanos, int files, long peakBytes) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-22s %9.2f %11.0f %14.0f%n", name, seconds, files / seconds, peakBytes / 1e6);
+    }
+
+    static void printExportRow(String name, long nanos, int files) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-22s %9.2f %11.0f%n", name, seconds, files / seconds);
+    }
+
+    static void printAggregateRow(String name, long nanos, int articles) {
+        System.out.printf("%-18s %10.1f %14.0f%n", name, nanos / 1e6, articles / (nanos / 1e9));
+    }
+
+    static List<String> titles(List<Article> articles) {
+        return articles.stream().map(Article::getTitle).toList();
+    }
+
+    // Header fields only; word counts repeat so top-N has ties to break
+    static ArticleCollection syntheticCollection(int articles) {
+        ArticleCollection collection = new ArticleCollection();
+        Random random = new Random(42);
+        LocalDate firstDay = LocalDate.of(2024, 1, 1);
+        for (int n = 0; n < articles; n++) {
+            String category = SyntheticCorpus.category(n);
+            LocalDate day = firstDay.plusDays(random.nextInt(730));
+            String author = "Author " + random.nextInt(500);
+            int words = 100 + random.nextInt(900);
+            collection.addArticle(new Article("https://www.cnn.com/" + day.toString().replace('-', '/') + "/"
+                                                  + category + "/story-" + n + "/index.html",
+                                              "Synthetic story number " + n, author, day, null, words, category,
+                                              new TextStats(words, 20, words * 6, 5), "", null));
+        }
+        return collection;
+    }
+
+    static void printParseRow(String name, long nanos, int files) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-12s %8.2f %12.0f%n", name, seconds, files / seconds);
+    }
+
+    // The pre-rewrite parseArticleFile: a fresh regex per header field, then a DOTALL scan for the body
+    static Article legacyParse(Path filePath) throws IOException {
+        String content = Files.readString(filePath);
+        return new Article(legacyField(content, "URL:"), legacyField(content, "Title:"),
+                           legacyField(content, "Author:"),
+                           legacyDate(legacyField(content, "Date:")),
+                           legacyDateTime(legacyField(content, "Received:")),
+                           legacyInt(legacyField(content, "Word Count:")),
+                           legacyContent(content));
+    }
+
+    static String legacyField(String content, String fieldName) {
+        Pattern p = Pattern.compile(fieldName + "\\s*(.+?)(?=\\n|$)", Pattern.MULTILINE);
+        Matcher m = p.matcher(content);
+        return m.find() ? m.group(1).trim() : "";
+    }
+
+    static LocalDate legacyDate(String dateStr) {
+        try {
+            return LocalDate.parse(dateStr, DateTimeFormatter.ISO_LOCAL_DATE);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static LocalDateTime legacyDateTime(String dateTimeStr) {
+        try {
+            return LocalDateTime.parse(dateTimeStr, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static int legacyInt(String str) {
+        try {
+            return Integer.parseInt(str.trim());
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    static String legacyContent(String fileContent) {
+        Pattern p = Pattern.compile("CONTENT\\s*=+\\s*(.+?)\\s*=+\\s*END OF ARTICLE", Pattern.DOTALL);
+        Matcher m = p.matcher(fileContent);
+        if (m.find()) {
+            return m.group(1).trim()
+                    .replaceAll("\\\\u2019", "'")
+                    .replaceAll("\\\\u201c", "\"")
+                    .replaceAll("\\\\u201d", "\"");
+        }
+        return "";
+    }
+
+    // ========================================================================
+    // COMPRESSED FILES (the server's cnn.compress layout)
+    // ========================================================================
+    // What the server writes with cnn.compress: zlib against a dictionary stored beside the files
+    static List<Path> writeCompressedCorpus(Path dir, List<Path> textFiles) throws IOException {
+        String banner = "=".repeat(80);
+        byte[] dictionary = (banner + "\nCNN ARTICLE\n" + banner + "\n\nURL: https://www.cnn.com/\nTitle: "
+                             + "\nAuthor: \nDate: \nReceived: \nWord Count: \n\n" + banner + "\nCONTENT\n"
+                             + banner + "\n\n\n\n" + banner + "\nEND OF ARTICLE\n" + banner + "\n")
+                                .getBytes(StandardCharsets.UTF_8);
+        Adler32 adler = new Adler32();
+        adler.update(dictionary);
+        Files.write(dir.resolve(String.format("dict-%08x.zdict", adler.getValue())), dictionary);
+
+        List<Path> paths = new ArrayList<>(textFiles.size());
+        for (Path text : textFiles) {
+            Deflater deflater = new Deflater();
+            deflater.setDictionary(dictionary);
+            deflater.setInput(Files.readAllBytes(text));
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            deflater.end();
+
+            Path path = dir.resolve(text.getFileName() + ".dfl");
+            Files.write(path, out.toByteArray());
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    static long totalSize(List<Path> paths) throws IOException {
+        long bytes = 0;
+        for (Path path : paths) bytes += Files.size(path);
+        return bytes;
+    }
+}
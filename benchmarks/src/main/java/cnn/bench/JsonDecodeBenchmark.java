@@ -0,0 +1,40 @@
+package cnn.bench;
+
+import cnn.server.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Decoding one POST body: the original per-field extractValue scans vs JsonArticleDecoder. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonDecodeBenchmark {
+
+    String json;
+    byte[] body;
+
+    @Setup
+    public void setup() {
+        json = SyntheticCorpus.json(42);
+        body = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int extractValue() {
+        return ArticleHandler.extractValue(json, "url").length()
+             + ArticleHandler.extractValue(json, "title").length()
+             + ArticleHandler.extractValue(json, "author").length()
+             + ArticleHandler.extractValue(json, "date").length()
+             + ArticleHandler.extractValue(json, "content").length();
+    }
+
+    @Benchmark
+    public Article streamingDecoder() throws IOException {
+        return new JsonArticleDecoder(new ByteArrayInputStream(body), body.length).next();
+    }
+}
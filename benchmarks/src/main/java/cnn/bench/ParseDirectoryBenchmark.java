@@ -0,0 +1,37 @@
+package cnn.bench;
+
+import cnn.analyzer.*;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A whole analyzer run's parse: CNNArticleParser.parseDirectory over a
+ * synthetic corpus. Each size is generated once under cnn.bench.corpus and
+ * reused; the 1M corpus is about 3.5 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParseDirectoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int articles;
+
+    String dir;
+    ParseOptions options;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = SyntheticCorpus.textDirectory(articles).toString();
+        options = ParseOptions.fromSystemProperties();
+    }
+
+    @Benchmark
+    public int parseDirectory() {
+        return CNNArticleParser.parseDirectory(dir, options).getCollection().getTotalArticles();
+    }
+}
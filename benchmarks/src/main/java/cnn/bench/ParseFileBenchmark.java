@@ -0,0 +1,31 @@
+package cnn.bench;
+
+import cnn.analyzer.*;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** CNNArticleParser.parseArticleFile on one file at a time, cycling through a 1k corpus. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseFileBenchmark {
+
+    List<Path> files;
+    int next;
+
+    @Setup
+    public void setup() throws IOException {
+        files = CNNArticleParser.listArticleFiles(SyntheticCorpus.textDirectory(1000));
+    }
+
+    @Benchmark
+    public Article parseArticleFile() throws IOException {
+        return CNNArticleParser.parseArticleFile(files.get(next++ % files.size()));
+    }
+}
@@ -0,0 +1,71 @@
+package cnn.bench;
+
+import cnn.server.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * ArticleStorage.save for a new article: duplicate check, write, and the
+ * URL, metadata and search index updates. Every call saves a fresh URL, so
+ * the store grows through the run the way it does under a scraper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveBenchmark {
+
+    // Distinct bodies cycled through; URLs never repeat
+    static final int BODIES = 1024;
+
+    @Param({"text", "segment"})
+    public String storage;
+
+    @Param({"false", "true"})
+    public boolean compress;
+
+    Path dir;
+    ArticleStorage articles;
+    String[] contents;
+    int next;
+    PrintStream out;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        contents = new String[BODIES];
+        for (int n = 0; n < BODIES; n++) {
+            contents[n] = SyntheticCorpus.content(n);
+        }
+
+        // save() logs every article
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        dir = Files.createTempDirectory("cnn-jmh-save");
+        ServerConfig config = ServerConfig.withBaseDir(dir.toString());
+        config.storage = storage;
+        config.compress = compress;
+        articles = new ArticleStorage(config);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        int n = next++;
+        articles.save(new Article(SyntheticCorpus.url(n), SyntheticCorpus.title(n), SyntheticCorpus.author(n),
+                                  SyntheticCorpus.date(n), contents[n % BODIES]));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        articles.close();
+        System.setOut(out);
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package cnn.bench;
+
+import cnn.server.*;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.URI;
+import java.net.http.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks for the CNN Article Storage Server
+ * Built into benchmarks/target/benchmarks.jar by mvn package
+ *
+ * Storage and executor follow the server's system properties (cnn.storage, cnn.executor).
+ *
+ * Usage: java -Dcnn.executor=virtual -cp benchmarks.jar cnn.bench.ServerBenchmarks ingest [articlesPerClient]
+ *        java -cp benchmarks.jar cnn.bench.ServerBenchmarks batch [articles]
+ *        java -cp benchmarks.jar cnn.bench.ServerBenchmarks json
+ *        java -cp benchmarks.jar cnn.bench.ServerBenchmarks search [articles]
+ *        java -cp benchmarks.jar cnn.bench.ServerBenchmarks storage [articles]
+ */
+public class ServerBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "ingest";
+        CNNArticleServer.defaultToNoDelay();
+
+        switch (mode) {
+            case "ingest":
+                int perClient = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+                ingestLoadTest(new int[] {1, 2, 4, 8, 16}, perClient);
+                break;
+            case "batch":
+                batchVsSingle(args.length > 1 ? Integer.parseInt(args[1]) : 5000);
+                break;
+            case "json":
+                jsonDecoding(new int[] {4 << 10, 16 << 10, 64 << 10});
+                break;
+            case "search":
+                searchLatency(args.length > 1 ? Integer.parseInt(args[1]) : 20000);
+                break;
+            case "storage":
+                storageFootprint(args.length > 1 ? Integer.parseInt(args[1]) : 10000);
+                break;
+            default:
+                System.err.println("Unknown benchmark: " + mode);
+                System.exit(1);
+        }
+    }
+
+    // ========================================================================
+    // INGEST LOAD TEST (concurrent single-article POSTs)
+    // ========================================================================
+    static void ingestLoadTest(int[] clientCounts, int perClient) throws Exception {
+        ServerConfig config = ServerConfig.fromSystemProperties();
+        config.port = 0;
+
+        System.out.println("--- Ingest load test (executor: " + config.executor
+                           + (config.writeBehind ? ", write-behind, ack after " + config.durability : "")
+                           + ") ---");
+        System.out.println("Clients  Articles  Seconds  Articles/sec  p50 ms  p99 ms");
+
+        for (int clients : clientCounts) {
+            Path dir = Files.createTempDirectory("cnn-bench");
+            PrintStream out = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+            config.baseDir = dir.toString();
+            ArticleStorage storage = new ArticleStorage(config);
+            HttpServer server = CNNArticleServer.createServer(config, storage);
+            server.start();
+
+            String endpoint = "http://localhost:" + server.getAddress().getPort() + "/api/articles";
+            HttpClient client = HttpClient.newBuilder()
+                                          .version(HttpClient.Version.HTTP_1_1)
+                                          .executor(Executors.newCachedThreadPool())
+                                          .build();
+
+            AtomicInteger failures = new AtomicInteger();
+            long[] latencies = new long[clients * perClient];
+            ExecutorService pool = Executors.newFixedThreadPool(clients);
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+
+            for (int c = 0; c < clients; c++) {
+                int clientId = c;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perClient; i++) {
+                        String body = SyntheticCorpus.json(clientId * perClient + i);
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(body))
+                                .build();
+                        long sent = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request,
+                                HttpResponse.BodyHandlers.discarding());
+                        latencies[clientId * perClient + i] = System.nanoTime() - sent;
+                        if (response.statusCode() != 201) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            pool.shutdown();
+            server.stop(0);
+            storage.close();
+            System.setOut(out);
+
+            int total = clients * perClient;
+            Arrays.sort(latencies);
+            System.out.printf("%7d  %8d  %7.2f  %12.0f  %6.2f  %6.2f%s%n", clients, total, seconds,
+                              total / seconds, latencies[total / 2] / 1e6,
+                              latencies[Math.min(total - 1, total * 99 / 100)] / 1e6,
+                              failures.get() > 0 ? "  (" + failures.get() + " failed)" : "");
+            SyntheticCorpus.deleteRecursively(dir);
+        }
+    }
+
+    // ========================================================================
+    // BACKFILL: single POSTs vs one NDJSON batch
+    // ========================================================================
+    static void batchVsSingle(int articles) throws Exception {
+        ServerConfig config = ServerConfig.fromSystemProperties();
+        config.port = 0;
+        HttpClient client = HttpClient.newBuilder()
+                                      .version(HttpClient.Version.HTTP_1_1)
+                                      .build();
+
+        System.out.println("--- Backfill of " + articles + " articles ---");
+
+        double singleSeconds = withServer(config, endpoint -> {
+            for (int i = 0; i < articles; i++) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint))
+                        .POST(HttpRequest.BodyPublishers.ofString(SyntheticCorpus.json(i)))
+                        .build();
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            }
+        });
+        System.out.printf("Single POSTs: %7.2fs  %8.0f articles/sec%n",
+                          singleSeconds, articles / singleSeconds);
+
+        double batchSeconds = withServer(config, endpoint -> {
+            // Stream the NDJSON body lazily, one record per line
+            Iterator<String> lines = new Iterator<>() {
+                int next = 0;
+                public boolean hasNext() { return next < articles; }
+                public String next() { return SyntheticCorpus.json(next++) + "\n"; }
+            };
+            HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint + "/batch"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.fromPublisher(
+                        subscriber -> HttpRequest.BodyPublishers.ofByteArrays(() -> new Iterator<>() {
+                            public boolean hasNext() { return lines.hasNext(); }
+                            public byte[] next() { return lines.next().getBytes(); }
+                        }).subscribe(subscriber)))
+                    .build();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        });
+        System.out.printf("NDJSON batch: %7.2fs  %8.0f articles/sec  (%.1fx)%n",
+                          batchSeconds, articles / batchSeconds, singleSeconds / batchSeconds);
+    }
+
+    interface Workload {
+        void run(String endpoint) throws Exception;
+    }
+
+    static double withServer(ServerConfig config, Workload workload) throws Exception {
+        Path dir = Files.createTempDirectory("cnn-bench");
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            config.baseDir = dir.toString();
+            ArticleStorage storage = new ArticleStorage(config);
+            HttpServer server = CNNArticleServer.createServer(config, storage);
+            server.start();
+
+            long start = System.nanoTime();
+            workload.run("http://localhost:" + server.getAddress().getPort() + "/api/articles");
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            server.stop(0);
+            storage.close();
+            return seconds;
+        } finally {
+            System.setOut(out);
+            SyntheticCorpus.deleteRecursively(dir);
+        }
+    }
+
+    // ========================================================================
+    // JSON DECODING: extractValue vs JsonArticleDecoder
+    // ========================================================================
+    static void jsonDecoding(int[] bodySizes) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        System.out.println("--- JSON decoding (escaped multi-KB bodies) ---");
+        System.out.println("Body      Decoder        us/op     MB/s   bytes alloc/op");
+
+        for (int size : bodySizes) {
+            byte[] body = escapedJson(size).getBytes(StandardCharsets.UTF_8);
+            int iterations = Math.max(200, (64 << 20) / body.length);
+
+            for (int pass = 0; pass < 2; pass++) {
+                boolean report = pass == 1;
+
+                long alloc = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    sink += legacyDecode(body).content.length();
+                }
+                long legacyNanos = System.nanoTime() - start;
+                long legacyAlloc = threads.getThreadAllocatedBytes(thread) - alloc;
+
+                alloc = threads.getThreadAllocatedBytes(thread);
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    sink += new JsonArticleDecoder(new ByteArrayInputStream(body), body.length)
+                                .next().content.length();
+                }
+                long streamNanos = System.nanoTime() - start;
+                long streamAlloc = threads.getThreadAllocatedBytes(thread) - alloc;
+
+                if (report) {
+                    printJsonRow(size, "extractValue", legacyNanos, legacyAlloc, iterations, body.length);
+                    printJsonRow(size, "streaming", streamNanos, streamAlloc, iterations, body.length);
+                }
+            }
+        }
+
+        // Escapes the old scanner gets wrong: unicode escapes and a value ending in an escaped backslash
+        String tricky = "{\"url\":\"https://www.cnn.com/x\",\"title\":\"It\\u2019s C:\\\\\","
+                      + "\"content\":\"caf\\u00e9\"}";
+        System.out.println("\nTricky title, extractValue: "
+                           + ArticleHandler.extractValue(tricky, "title"));
+        System.out.println("Tricky title, streaming:    "
+                           + new JsonArticleDecoder(new ByteArrayInputStream(
+                                 tricky.getBytes(StandardCharsets.UTF_8))).next().title);
+    }
+
+    static long sink;
+
+    // ========================================================================
+    // SEARCH: query latency over the inverted index
+    // ========================================================================
+    static void searchLatency(int articles) throws Exception {
+        ServerConfig config = ServerConfig.fromSystemProperties();
+        Path dir = Files.createTempDirectory("cnn-bench");
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            config.baseDir = dir.toString();
+            config.nearDuplicates = "off";
+            ArticleStorage storage = new ArticleStorage(config);
+
+            long start = System.nanoTime();
+            List<Article> chunk = new ArrayList<>();
+            for (int n = 0; n < articles; n++) {
+                chunk.add(article(n));
+                if (chunk.size() == 1000) {
+                    storage.saveBatch(chunk);
+                    chunk.clear();
+                }
+            }
+            storage.saveBatch(chunk);
+            double ingestSeconds = (System.nanoTime() - start) / 1e9;
+            InvertedIndex index = storage.getSearchIndex();
+
+            String[] queries = {
+                "privacy", "senator ruling", "\"traffic lights\"", "storm OR hospital",
+                "\"federal court ruling\" election", "inflation rates bank growth"
+            };
+            System.setOut(out);
+            System.out.printf("--- Search (%d articles, ingested in %.1f s) ---%n", articles, ingestSeconds);
+            System.out.println("Query                               Matches    ms/query");
+
+            for (String query : queries) {
+                int iterations = 50;
+                for (int i = 0; i < iterations; i++) index.search(query, 10);
+
+                long queryStart = System.nanoTime();
+                SearchResults results = null;
+                for (int i = 0; i < iterations; i++) results = index.search(query, 10);
+                double millis = (System.nanoTime() - queryStart) / 1e6 / iterations;
+                System.out.printf("%-35s %8d %11.2f%n", query, results.total, millis);
+            }
+
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            storage.close();
+        } finally {
+            System.setOut(out);
+            SyntheticCorpus.deleteRecursively(dir);
+        }
+    }
+
+    // The pre-decoder handlePost path: readLine into a StringBuilder, then five scans
+    static Article legacyDecode(byte[] body) throws IOException {
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new ByteArrayInputStream(body)));
+        StringBuilder json = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            json.append(line);
+        }
+        String jsonStr = json.toString();
+        return new Article(ArticleHandler.extractValue(jsonStr, "url"),
+                           ArticleHandler.extractValue(jsonStr, "title"),
+                           ArticleHandler.extractValue(jsonStr, "author"),
+                           ArticleHandler.extractValue(jsonStr, "date"),
+                           ArticleHandler.extractValue(jsonStr, "content"));
+    }
+
+    static void printJsonRow(int size, String name, long nanos, long alloc, int iterations,
+                             int bodyLength) {
+        double perOp = nanos / 1e3 / iterations;
+        System.out.printf("%3dKB     %-12s %8.1f %8.1f %16d%n", size >> 10, name, perOp,
+                          bodyLength / perOp, alloc / iterations);
+    }
+
+    static final String PARAGRAPH =
+        "Officials in the experimental city of Aurora Heights unveiled a new artificial "
+        + "intelligence traffic system Friday, claiming early results show significant "
+        + "reductions in congestion and commute times. The system uses real-time camera "
+        + "feeds and sensor data to adjust traffic lights dynamically throughout the city.";
+
+    // A Python-style body (ensure_ascii) with quotes, newlines and unicode escapes
+    static String escapedJson(int targetSize) {
+        String paragraph = PARAGRAPH.replace("Officials", "\\u201cOfficials\\u201d")
+                                    .replace("city.", "city \\u2014 \\\"for now\\\".");
+        StringBuilder content = new StringBuilder();
+        while (content.length() < targetSize) {
+            if (content.length() > 0) content.append("\\n\\n");
+            content.append(paragraph);
+        }
+        return "{\"url\": \"https://www.cnn.com/2025/12/19/technology/aurora\", "
+             + "\"title\": \"Researchers test AI traffic system\", "
+             + "\"author\": \"Alex Moreno\", \"date\": \"2025-12-19T14:32:10.000Z\", "
+             + "\"content\": \"" + content + "\"}";
+    }
+
+    // ========================================================================
+    // STORAGE: bytes on disk and throughput, plain vs compressed
+    // ========================================================================
+    static void storageFootprint(int articles) throws Exception {
+        System.out.println("--- Storage footprint (" + articles + " articles after "
+                           + TRAINING_ARTICLES + " for dictionary training) ---");
+        System.out.println("Backend              Bytes/article  On 4KB blocks  Write/sec   Read/sec");
+
+        for (String storage : new String[] {"text", "segment"}) {
+            for (boolean compress : new boolean[] {false, true}) {
+                storageRow(storage, compress, articles);
+            }
+        }
+    }
+
+    static final int TRAINING_ARTICLES = 1000;
+
+    static void storageRow(String storage, boolean compress, int articles) throws Exception {
+        ServerConfig config = ServerConfig.fromSystemProperties();
+        Path dir = Files.createTempDirectory("cnn-bench");
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            config.baseDir = dir.toString();
+            config.storage = storage;
+            config.compress = compress;
+            config.dictionaryTrainAfter = TRAINING_ARTICLES;
+
+            try (StorageBackend backend = StorageBackend.open(config)) {
+                // Untimed: the articles the dictionary is trained from, then wait for it
+                backend.writeAll(storageArticles(0, TRAINING_ARTICLES));
+                for (int wait = 0; compress && wait < 100 && !backend.describe().contains("trained"); wait++) {
+                    Thread.sleep(100);
+                }
+                long before = diskBytes(dir, 1);
+                long blocksBefore = diskBytes(dir, 4096);
+
+                List<String> locations = new ArrayList<>(articles);
+                long start = System.nanoTime();
+                for (int from = 0; from < articles; from += 256) {
+                    List<Article> batch = storageArticles(TRAINING_ARTICLES + from,
+                                                          Math.min(256, articles - from));
+                    locations.addAll(Arrays.asList(backend.writeAll(batch)));
+                    backend.sync();
+                }
+                double writeSeconds = (System.nanoTime() - start) / 1e9;
+
+                start = System.nanoTime();
+                for (String location : locations) {
+                    sink += backend.read(location).content.length();
+                }
+                double readSeconds = (System.nanoTime() - start) / 1e9;
+
+                System.setOut(out);
+                System.out.printf("%-20s %13d %14d %10.0f %10.0f%n",
+                                  storage + (compress ? " + deflate" : ""),
+                                  (diskBytes(dir, 1) - before) / articles,
+                                  (diskBytes(dir, 4096) - blocksBefore) / articles,
+                                  articles / writeSeconds, articles / readSeconds);
+            }
+        } finally {
+            System.setOut(out);
+            SyntheticCorpus.deleteRecursively(dir);
+        }
+    }
+
+    static List<Article> storageArticles(int first, int count) {
+        List<Article> batch = new ArrayList<>(count);
+        for (int n = first; n < first + count; n++) {
+            batch.add(article(n));
+        }
+        return batch;
+    }
+
+    static Article article(int n) {
+        return new Article(SyntheticCorpus.url(n), SyntheticCorpus.title(n), SyntheticCorpus.author(n),
+                           SyntheticCorpus.date(n) + "T14:32:10.000Z", SyntheticCorpus.content(n));
+    }
+
+    // Data file sizes, each rounded up to whole blocks
+    static long diskBytes(Path dir, int block) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile)
+                        .mapToLong(p -> (p.toFile().length() + block - 1) / block * block)
+                        .sum();
+        }
+    }
+}
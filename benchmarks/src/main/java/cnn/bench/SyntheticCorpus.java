@@ -0,0 +1,222 @@
+package cnn.bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Offline stand-in for scraped articles, modeled on Example.txt: the same
+ * header fields and banner layout, and a body of several prose paragraphs
+ * (a few hundred words, with curly quotes). Article n is always the same
+ * text, so every run and every machine sees the same corpus.
+ *
+ * Usage: java -cp benchmarks.jar cnn.bench.SyntheticCorpus <dir> <articles>
+ */
+public final class SyntheticCorpus {
+
+    public static final String[] CATEGORIES = {
+        "politics", "business", "technology", "health", "world", "sport", "entertainment", "us"
+    };
+
+    static final String[] FIRST_NAMES = {
+        "Alex", "Elena", "Jordan", "Priya", "Marcus", "Sofia", "Daniel", "Aisha", "Tom", "Mei"
+    };
+
+    static final String[] LAST_NAMES = {
+        "Moreno", "Park", "Okafor", "Shah", "Lindqvist", "Romero", "Chen", "Haddad", "Novak", "Brooks"
+    };
+
+    static final String[] WORDS = (
+        "officials experimental city unveiled new artificial intelligence traffic system friday "
+        + "claiming early results show significant reductions congestion commute times developed "
+        + "partnership university researchers private engineers real-time camera feeds sensor data "
+        + "adjust lights dynamically throughout unlike traditional timed signals model responds "
+        + "instantly accidents construction surges planners three-month pilot program reduced "
+        + "average peak hours emergency response vehicles benefited reaching destinations faster "
+        + "automatically cleared intersections privacy advocates raised concerns collection video "
+        + "anonymized processed locally without storing identifiable information trial continues "
+        + "positive outcomes plans expand citywide next year municipalities monitoring project "
+        + "closely potential blueprint future government federal court ruling election campaign "
+        + "voters senator policy market shares investors economy inflation rates bank growth "
+        + "hospital patients study doctors climate storm weather season team coach players fans "
+        + "leaders summit talks agreement border security report analysis week month announced"
+    ).split(" ");
+
+    static final String[] GLUE = {"the", "a", "and", "of", "in", "to", "for", "with", "on", "as"};
+
+    static final String BANNER = "=".repeat(80);
+
+    private SyntheticCorpus() {
+    }
+
+    public static String url(int n) {
+        return "https://www.cnn.com/" + date(n).replace('-', '/') + "/" + category(n) + "/story-" + n;
+    }
+
+    public static String title(int n) {
+        Random random = new Random(n * 31L + 7);
+        StringBuilder title = new StringBuilder();
+        for (int w = 0, words = 6 + random.nextInt(6); w < words; w++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            title.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : " " + word);
+        }
+        return title.toString();
+    }
+
+    public static String author(int n) {
+        // Skewed like a real masthead: a few names write most stories
+        int id = (int) Math.min(99, Math.abs(new Random(n * 17L + 3).nextGaussian()) * 20);
+        return FIRST_NAMES[id % FIRST_NAMES.length] + " " + LAST_NAMES[id / FIRST_NAMES.length];
+    }
+
+    public static String category(int n) {
+        return CATEGORIES[n % CATEGORIES.length];
+    }
+
+    public static String date(int n) {
+        return LocalDate.of(2024, 1, 1).plusDays(n % 730).toString();
+    }
+
+    public static String content(int n) {
+        Random random = new Random(n);
+        StringBuilder content = new StringBuilder(3000);
+        for (int p = 0, paragraphs = 5 + random.nextInt(4); p < paragraphs; p++) {
+            if (p > 0) content.append("\n\n");
+            boolean quote = random.nextInt(4) == 0;
+            if (quote) content.append('“');
+            for (int s = 0, sentences = 2 + random.nextInt(3); s < sentences; s++) {
+                if (s > 0) content.append(' ');
+                for (int w = 0, words = 10 + random.nextInt(16); w < words; w++) {
+                    String word = random.nextInt(3) == 0 ? GLUE[random.nextInt(GLUE.length)]
+                                                        : WORDS[random.nextInt(WORDS.length)];
+                    content.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1)
+                                          : " " + word);
+                }
+                content.append('.');
+            }
+            if (quote) content.append("” said ").append(author(n + p)).append('.');
+        }
+        return content.toString();
+    }
+
+    public static int wordCount(String content) {
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < content.length(); i++) {
+            boolean space = Character.isWhitespace(content.charAt(i));
+            if (!space && !inWord) words++;
+            inWord = !space;
+        }
+        return words;
+    }
+
+    // Generated sentences all end in '.', and paragraphs are joined by one blank line
+    public static int sentenceCount(String content) {
+        return (int) content.chars().filter(c -> c == '.').count();
+    }
+
+    public static int paragraphCount(String content) {
+        return content.split("\n\n").length;
+    }
+
+    /** Article n in the server's .txt layout, as CNNArticleParser reads it. */
+    public static String textFile(int n) {
+        String content = content(n);
+        return BANNER + "\nCNN ARTICLE\n" + BANNER + "\n\n"
+             + "URL: " + url(n) + "\n"
+             + "Title: " + title(n) + "\n"
+             + "Author: " + author(n) + "\n"
+             + "Date: " + date(n) + "T14:32:10.000Z\n"
+             + "Received: " + date(n) + "T14:35:02.481\n"
+             + "Word Count: " + wordCount(content) + "\n"
+             + "Sentences: " + sentenceCount(content) + "\n"
+             + "Characters: " + content.length() + "\n"
+             + "Paragraphs: " + paragraphCount(content) + "\n\n"
+             + BANNER + "\nCONTENT\n" + BANNER + "\n\n"
+             + content
+             + "\n\n" + BANNER + "\nEND OF ARTICLE\n" + BANNER + "\n";
+    }
+
+    /** Article n as older files stored it: non-ASCII text left as the \\u escapes of the scraped JSON. */
+    public static String escapedTextFile(int n) {
+        String text = textFile(n);
+        StringBuilder out = new StringBuilder(text.length() + 64);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c > 0x7e) out.append(String.format("\\u%04x", (int) c));
+            else out.append(c);
+        }
+        return out.toString();
+    }
+
+    /** Article n as the JSON body py_scrape.py posts. */
+    public static String json(int n) {
+        return "{\"url\":" + jsonString(url(n)) + ",\"title\":" + jsonString(title(n))
+             + ",\"author\":" + jsonString(author(n)) + ",\"date\":\"" + date(n) + "T14:32:10.000Z\""
+             + ",\"content\":" + jsonString(content(n)) + "}";
+    }
+
+    static String jsonString(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 16).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                default:
+                    if (c < 0x20 || c > 0x7e) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    /**
+     * A directory of articles 0..articles-1 as .txt files, generated on first
+     * use and reused afterwards. Corpora live under the cnn.bench.corpus
+     * directory (default: the system temp directory).
+     */
+    public static Path textDirectory(int articles) throws IOException {
+        Path root = Paths.get(System.getProperty("cnn.bench.corpus", System.getProperty("java.io.tmpdir")));
+        Path dir = root.resolve("cnn-corpus-v2-" + articles);
+        if (!Files.exists(dir.resolve("COMPLETE"))) {
+            write(dir, articles);
+        }
+        return dir;
+    }
+
+    /** Writes articles 0..articles-1 into dir as .txt files and returns their paths, in order. */
+    public static List<Path> write(Path dir, int articles) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> paths = new ArrayList<>(articles);
+        for (int n = 0; n < articles; n++) {
+            Path path = dir.resolve(String.format("%08d_story-%d.txt", n, n));
+            Files.writeString(path, textFile(n), StandardCharsets.UTF_8);
+            paths.add(path);
+        }
+        // Written last, so an interrupted run is regenerated rather than half-used
+        Files.writeString(dir.resolve("COMPLETE"), Integer.toString(articles));
+        return paths;
+    }
+
+    /** Removes a scratch directory a benchmark created, with everything in it. */
+    public static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SyntheticCorpus <dir> <articles>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        write(Paths.get(args[0]), Integer.parseInt(args[1]));
+        System.out.printf("Wrote %s articles to %s in %.1f s%n", args[1], args[0],
+                          (System.nanoTime() - start) / 1e9);
+    }
+}
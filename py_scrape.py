@@ -3,6 +3,8 @@ CNN Article Scraper - curl_cffi Version
 NO browsers, NO drivers, TLS fingerprint evasion
 """
 
+import gzip
+import json
 import time
 import random
 import re
@@ -145,23 +147,30 @@ class CNNScraper:
             print(f"❌ Error: {e}")
             return None
 
-    def send_to_java(self, article):
+    def send_to_java(self, article, attempts=3):
+        body = gzip.compress(json.dumps(article).encode("utf-8"))
         try:
-            r = self.session.post(
-                self.java_url,
-                json=article,
-                headers={"Content-Type": "application/json"}
-            )
-
-            if r.status_code == 201:
-                print("💾 Saved to Java")
-                return True
-            elif r.status_code == 409:
-                print("⚠️ Already exists")
-                return False
-            else:
-                print(f"❌ Java error: {r.status_code}")
-                return False
+            for attempt in range(attempts):
+                r = self.session.post(
+                    self.java_url,
+                    data=body,
+                    headers={"Content-Type": "application/json", "Content-Encoding": "gzip"}
+                )
+
+                if r.status_code == 201:
+                    print("💾 Saved to Java")
+                    return True
+                elif r.status_code == 409:
+                    print("⚠️ Already exists")
+                    return False
+                elif r.status_code in (429, 503) and attempt < attempts - 1:
+                    # Server is shedding load; wait as long as it asks
+                    wait = int(r.headers.get("Retry-After", "1"))
+                    print(f"⏳ Java busy, retrying in {wait}s")
+                    time.sleep(wait)
+                else:
+                    print(f"❌ Java error: {r.status_code}")
+                    return False
 
         except Exception as e:
             print(f"❌ Java unreachable: {e}")
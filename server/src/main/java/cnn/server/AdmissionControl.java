@@ -0,0 +1,95 @@
+package cnn.server;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared state behind AdmissionFilter: the in-flight count, one token bucket
+ * per client address, and a count of every refusal by reason. Refusing early
+ * and cheaply keeps latency predictable for the requests that are admitted,
+ * instead of letting every request slow down together.
+ */
+class AdmissionControl {
+    // Past this many tracked clients, idle buckets are dropped before adding another
+    static final int MAX_CLIENTS = 10_000;
+    
+    private final ArticleStorage storage;
+    private final int maxInFlight;
+    private final int shedQueueDepth;
+    private final long shedWriteMillis;
+    private final double rateLimit;
+    private final int rateBurst;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    
+    final LongAdder rejectedInFlight = new LongAdder();
+    final LongAdder rejectedQueue = new LongAdder();
+    final LongAdder rejectedWriteLatency = new LongAdder();
+    final LongAdder rejectedRateLimit = new LongAdder();
+    final LongAdder rejectedTooLarge = new LongAdder();
+    
+    public AdmissionControl(ServerConfig config, ArticleStorage storage) {
+        this.storage = storage;
+        this.maxInFlight = config.maxInFlight;
+        this.shedQueueDepth = config.writeBehind && config.shedQueuePercent > 0
+                              ? Math.max(1, (int) ((long) config.queueCapacity * config.shedQueuePercent / 100))
+                              : 0;
+        this.shedWriteMillis = config.shedWriteMillis;
+        this.rateLimit = config.rateLimit;
+        this.rateBurst = config.rateBurst;
+    }
+    
+    /** Claims an in-flight slot; false if maxInFlight requests are already being handled. */
+    public boolean enter() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (maxInFlight > 0 && current >= maxInFlight) {
+                rejectedInFlight.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+    
+    public void exit() {
+        inFlight.decrementAndGet();
+    }
+    
+    public int inFlight() {
+        return inFlight.get();
+    }
+    
+    /** True while storage is too far behind to take more articles. */
+    public boolean overloaded() {
+        if (shedQueueDepth > 0 && storage.getQueueDepth() >= shedQueueDepth) {
+            rejectedQueue.increment();
+            return true;
+        }
+        if (shedWriteMillis > 0 && storage.getWriteLatencyMillis() > shedWriteMillis) {
+            rejectedWriteLatency.increment();
+            return true;
+        }
+        return false;
+    }
+    
+    /** Takes a token from the client's bucket: 0 if allowed, else nanoseconds until the next token. */
+    public long acquire(String client) {
+        if (rateLimit <= 0) return 0;
+        
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(client);
+        if (bucket == null) {
+            if (buckets.size() >= MAX_CLIENTS) {
+                // A bucket that has refilled completely belongs to an idle client; dropping it loses nothing
+                buckets.values().removeIf(b -> b.isFull(now));
+            }
+            bucket = buckets.computeIfAbsent(client, c -> new TokenBucket(rateLimit, rateBurst, now));
+        }
+        long wait = bucket.take(now);
+        if (wait > 0) rejectedRateLimit.increment();
+        return wait;
+    }
+}
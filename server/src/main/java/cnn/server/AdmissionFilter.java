@@ -0,0 +1,79 @@
+package cnn.server;
+
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * Admits or refuses each request before its handler runs, checking the
+ * cheapest things first and never reading the body to do it:
+ * Content-Length over the context's limit is 413, an empty token bucket is
+ * 429, a POST while storage is overloaded is 503, and a request beyond the
+ * in-flight cap is 503. 429 and 503 carry Retry-After. Admitted requests
+ * have their body wrapped so one without a Content-Length (chunked) still
+ * stops at the limit.
+ */
+class AdmissionFilter extends Filter {
+    private final AdmissionControl admission;
+    private final long maxBodyBytes;
+    
+    public AdmissionFilter(AdmissionControl admission, long maxBodyBytes) {
+        this.admission = admission;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+    
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (contentLength(exchange) > maxBodyBytes) {
+            admission.rejectedTooLarge.increment();
+            ArticleHandler.sendTooLarge(exchange, maxBodyBytes);
+            return;
+        }
+        
+        long wait = admission.acquire(exchange.getRemoteAddress().getAddress().getHostAddress());
+        if (wait > 0) {
+            refuse(exchange, 429, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L)),
+                   "Rate limit exceeded");
+            return;
+        }
+        
+        if (exchange.getRequestMethod().equals("POST") && admission.overloaded()) {
+            refuse(exchange, 503, 1, "Storage is overloaded, retry later");
+            return;
+        }
+        
+        if (!admission.enter()) {
+            refuse(exchange, 503, 1, "Server is busy, retry later");
+            return;
+        }
+        try {
+            exchange.setStreams(new BoundedInputStream(exchange.getRequestBody(), maxBodyBytes,
+                                                       admission.rejectedTooLarge), null);
+            chain.doFilter(exchange);
+        } finally {
+            admission.exit();
+        }
+    }
+    
+    // -1 when absent (chunked) or unparseable; the server itself rejects the latter
+    static long contentLength(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (header == null) return -1;
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private static void refuse(HttpExchange exchange, int status, long retryAfterSeconds, String message)
+            throws IOException {
+        exchange.getResponseHeaders().add("Retry-After", Long.toString(retryAfterSeconds));
+        ArticleHandler.sendResponse(exchange, status, "{\"error\":\"" + message + "\"}");
+    }
+    
+    @Override
+    public String description() {
+        return "Caps in-flight requests, sheds load and enforces body size and rate limits";
+    }
+}
@@ -0,0 +1,113 @@
+package cnn.server;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class Article {
+    public String url;
+    public String title;
+    public String author;
+    public String date;
+    public String content;
+    public String receivedAt;
+    
+    // Set by UrlIndex.reserve when the content is a near-duplicate of a stored article
+    String nearDuplicateOf;
+    
+    private static final Pattern CATEGORY = Pattern.compile("cnn\\.com/\\d{4}/\\d{2}/\\d{2}/([^/]+)/");
+    
+    private long fingerprint;
+    private long simHash = -1;
+    private TextStats stats;
+    
+    public Article(String url, String title, String author, String date, String content) {
+        this.url = url;
+        this.title = title;
+        this.author = author;
+        this.date = date;
+        this.content = content;
+        this.receivedAt = LocalDateTime.now().toString();
+    }
+    
+    public Article(String url, String title, String author, String date, String content,
+                   String receivedAt) {
+        this.url = url;
+        this.title = title;
+        this.author = author;
+        this.date = date;
+        this.content = content;
+        this.receivedAt = receivedAt;
+    }
+    
+    public String getId() {
+        // 64-bit fingerprint of the canonical URL: collision-free in practice
+        // even at millions of articles, unlike the old 32-bit url.hashCode()
+        return toId(getFingerprint());
+    }
+    
+    public long getFingerprint() {
+        if (fingerprint == 0) {
+            fingerprint = Fingerprint.of(canonicalUrl(url));
+        }
+        return fingerprint;
+    }
+    
+    public long getSimHash() {
+        if (simHash == -1) {
+            simHash = SimHash.of(content);
+        }
+        return simHash;
+    }
+    
+    static String toId(long fingerprint) {
+        return String.format("%016x", fingerprint);
+    }
+    
+    /**
+     * Canonical form used for IDs and dedup: scheme dropped, host lowercased,
+     * query string, fragment and trailing slashes removed, so tracking
+     * variants like ?iid=ss_rss resolve to the same article.
+     */
+    static String canonicalUrl(String url) {
+        if (url == null) return "";
+        
+        int end = url.length();
+        int query = url.indexOf('?');
+        if (query >= 0) end = query;
+        int fragment = url.indexOf('#');
+        if (fragment >= 0 && fragment < end) end = fragment;
+        while (end > 0 && url.charAt(end - 1) == '/') end--;
+        
+        int scheme = url.indexOf("://");
+        int hostStart = scheme >= 0 && scheme < end ? scheme + 3 : 0;
+        int pathStart = url.indexOf('/', hostStart);
+        if (pathStart < 0 || pathStart > end) pathStart = end;
+        
+        return url.substring(hostStart, pathStart).toLowerCase(Locale.ROOT)
+               + url.substring(pathStart, end);
+    }
+    
+    public int getWordCount() {
+        return getStats().words;
+    }
+    
+    /** Counted once, on first use, and written into the stored header. */
+    public TextStats getStats() {
+        if (stats == null) {
+            stats = TextStats.of(content);
+        }
+        return stats;
+    }
+    
+    public String getCategory() {
+        return category(url);
+    }
+    
+    // Lowercased section from a cnn.com/yyyy/mm/dd/<category>/... URL; CNNArticleAnalyzer uses the same rule
+    static String category(String url) {
+        Matcher m = url != null ? CATEGORY.matcher(url) : null;
+        return m != null && m.find() ? m.group(1).toLowerCase(Locale.ROOT) : "unknown";
+    }
+}
@@ -0,0 +1,270 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate for stored articles, against a preset dictionary. Every article
+ * is its own zlib stream, so reading one never inflates another; the
+ * dictionary supplies what articles share (banners, labels, the URL prefix,
+ * common phrases), which a lone 3KB article has no earlier text to match.
+ *
+ * Streams name their dictionary by Adler-32 in the zlib header, and each
+ * dictionary is kept beside the data as dict-XXXXXXXX.zdict, so any of them
+ * can be read back (CNNArticleAnalyzer looks .txt.dfl dictionaries up the
+ * same way). Writes start with the built-in SEED, the text file skeleton;
+ * once trainAfter articles have been compressed a dictionary is trained
+ * from them in the background and used from then on.
+ */
+class ArticleCompressor {
+    // Deflate only looks back 32KB, so a longer dictionary is wasted
+    static final int MAX_DICTIONARY = 32 << 10;
+    
+    // Consecutive words per dictionary candidate, and the share of samples it must appear in
+    static final int PHRASE_WORDS = 3;
+    static final int MIN_SAMPLE_PERCENT = 2;
+    
+    static final byte[] SEED = seed();
+    
+    private final Path dir;
+    private final boolean enabled;
+    private final int trainAfter;
+    
+    // Dictionaries by Adler-32; loaded from dir on first use
+    private final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+    private final Set<Integer> saved = ConcurrentHashMap.newKeySet();
+    
+    private volatile byte[] active = SEED;
+    private volatile int activeId = adler(SEED);
+    
+    // Uncompressed inputs kept for training; null once training has started or is not wanted
+    private List<byte[]> samples;
+    
+    public ArticleCompressor(Path dir, boolean enabled, int trainAfter) {
+        this.dir = dir;
+        this.enabled = enabled;
+        this.trainAfter = trainAfter;
+        dictionaries.put(activeId, SEED);
+        
+        // The newest trained dictionary stays active across restarts
+        File[] existing = dir.toFile().listFiles((d, name) -> name.matches("dict-[0-9a-f]{8}\\.zdict"));
+        File newest = null;
+        for (File file : existing != null ? existing : new File[0]) {
+            int id = Integer.parseUnsignedInt(file.getName().substring(5, 13), 16);
+            saved.add(id);
+            if (id != activeId && (newest == null || file.lastModified() > newest.lastModified())) {
+                newest = file;
+            }
+        }
+        if (enabled && newest != null) {
+            try {
+                int id = Integer.parseUnsignedInt(newest.getName().substring(5, 13), 16);
+                active = dictionary(id);
+                activeId = id;
+            } catch (IOException e) {
+                System.err.println("⚠️  Ignoring dictionary " + newest + ": " + e.getMessage());
+            }
+        }
+        if (enabled && trainAfter > 0 && activeId == adler(SEED)) {
+            samples = new ArrayList<>(trainAfter);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public byte[] compress(byte[] data) throws IOException {
+        byte[] dictionary = active;
+        int id = activeId;
+        save(id, dictionary);
+        sample(data);
+        
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setDictionary(dictionary);
+            deflater.setInput(data);
+            deflater.finish();
+            
+            byte[] out = new byte[data.length / 2 + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == out.length) out = Arrays.copyOf(out, out.length * 2);
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            return Arrays.copyOf(out, length);
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    public byte[] decompress(ByteBuffer compressed) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] out = new byte[Math.max(1024, compressed.remaining() * 4)];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == out.length) out = Arrays.copyOf(out, out.length * 2);
+                int inflated = inflater.inflate(out, length, out.length - length);
+                if (inflated == 0 && inflater.needsDictionary()) {
+                    inflater.setDictionary(dictionary(inflater.getAdler()));
+                } else if (inflated == 0 && inflater.needsInput()) {
+                    throw new EOFException("Truncated compressed article");
+                }
+                length += inflated;
+            }
+            return Arrays.copyOf(out, length);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed article: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    public String describe() {
+        return String.format("deflate with %s dictionary %08x",
+                             activeId == adler(SEED) ? "built-in" : "trained", activeId);
+    }
+    
+    private byte[] dictionary(int id) throws IOException {
+        byte[] dictionary = dictionaries.get(id);
+        if (dictionary == null) {
+            Path file = dictionaryPath(id);
+            if (!Files.exists(file)) throw new IOException("Missing compression dictionary " + file);
+            dictionary = Files.readAllBytes(file);
+            if (adler(dictionary) != id) throw new IOException("Corrupt compression dictionary " + file);
+            dictionaries.put(id, dictionary);
+        }
+        return dictionary;
+    }
+    
+    // Writes a dictionary out (durably) before the first article that needs it
+    private void save(int id, byte[] dictionary) throws IOException {
+        if (saved.contains(id)) return;
+        synchronized (saved) {
+            if (saved.contains(id)) return;
+            
+            Path tmp = dictionaryPath(id).resolveSibling(dictionaryPath(id).getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer bytes = ByteBuffer.wrap(dictionary);
+                while (bytes.hasRemaining()) channel.write(bytes);
+                channel.force(true);
+            }
+            Files.move(tmp, dictionaryPath(id), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            saved.add(id);
+        }
+    }
+    
+    private synchronized void sample(byte[] data) {
+        if (samples == null) return;
+        samples.add(data);
+        if (samples.size() < trainAfter) return;
+        
+        List<byte[]> trainingSet = samples;
+        samples = null;
+        Thread trainer = new Thread(() -> {
+            long start = System.nanoTime();
+            byte[] dictionary = train(trainingSet);
+            int id = adler(dictionary);
+            if (id == activeId) {
+                System.out.println("🗜️  No phrases shared across " + trainingSet.size()
+                                   + " articles; keeping the built-in dictionary");
+                return;
+            }
+            try {
+                save(id, dictionary);
+            } catch (IOException e) {
+                System.err.println("⚠️  Could not save compression dictionary: " + e.getMessage());
+                return;
+            }
+            dictionaries.put(id, dictionary);
+            active = dictionary;
+            activeId = id;
+            System.out.printf("🗜️  Trained compression dictionary %08x from %d articles (%d bytes) in %d ms%n",
+                              id, trainingSet.size(), dictionary.length, (System.nanoTime() - start) / 1_000_000);
+        }, "dictionary-trainer");
+        trainer.setDaemon(true);
+        trainer.start();
+    }
+    
+    /**
+     * Picks the runs of PHRASE_WORDS words (with their whitespace) found in
+     * the most samples, weighted by length, up to MAX_DICTIONARY. Deflate
+     * prefers near matches, so the best phrases go last, followed by SEED.
+     */
+    static byte[] train(List<byte[]> samples) {
+        Map<String, Integer> sampleCounts = new HashMap<>();
+        for (byte[] sample : samples) {
+            // ISO-8859-1 maps bytes to chars one to one, so phrases encode back to the same bytes
+            String text = new String(sample, StandardCharsets.ISO_8859_1);
+            IntList starts = new IntList();
+            for (int i = 0; i < text.length(); i++) {
+                if (!Character.isWhitespace(text.charAt(i))
+                        && (i == 0 || Character.isWhitespace(text.charAt(i - 1)))) {
+                    starts.add(i);
+                }
+            }
+            starts.add(text.length());
+            
+            Set<String> seen = new HashSet<>();
+            for (int w = 0; w + PHRASE_WORDS < starts.size(); w++) {
+                String phrase = text.substring(starts.get(w), starts.get(w + PHRASE_WORDS));
+                if (phrase.length() >= 8 && seen.add(phrase)) sampleCounts.merge(phrase, 1, Integer::sum);
+            }
+        }
+        
+        int minCount = Math.max(2, samples.size() * MIN_SAMPLE_PERCENT / 100);
+        List<Map.Entry<String, Integer>> phrases = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : sampleCounts.entrySet()) {
+            if (e.getValue() >= minCount) phrases.add(e);
+        }
+        phrases.sort(Comparator.comparingLong((Map.Entry<String, Integer> e) ->
+            (long) e.getValue() * e.getKey().length()).reversed().thenComparing(Map.Entry::getKey));
+        
+        List<String> chosen = new ArrayList<>();
+        int budget = MAX_DICTIONARY - SEED.length;
+        for (Map.Entry<String, Integer> e : phrases) {
+            if (e.getKey().length() > budget) continue;
+            chosen.add(e.getKey());
+            budget -= e.getKey().length();
+        }
+        Collections.reverse(chosen);
+        
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream(MAX_DICTIONARY);
+        for (String phrase : chosen) {
+            dictionary.writeBytes(phrase.getBytes(StandardCharsets.ISO_8859_1));
+        }
+        dictionary.writeBytes(SEED);
+        return dictionary.toByteArray();
+    }
+    
+    // The text file layout with empty fields
+    private static byte[] seed() {
+        String banner = "=".repeat(80);
+        return (banner + "\nCNN ARTICLE\n" + banner + "\n\n"
+                + "URL: https://www.cnn.com/\nTitle: \nAuthor: \nDate: \nReceived: \nWord Count: \n\n"
+                + banner + "\nCONTENT\n" + banner + "\n\n"
+                + "\n\n" + banner + "\nEND OF ARTICLE\n" + banner + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+    
+    static int adler(byte[] bytes) {
+        Adler32 adler = new Adler32();
+        adler.update(bytes);
+        return (int) adler.getValue();
+    }
+    
+    private Path dictionaryPath(int id) {
+        return dir.resolve(String.format("dict-%08x.zdict", id));
+    }
+}
@@ -0,0 +1,331 @@
+package cnn.server;
+
+import com.sun.net.httpserver.*;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+public class ArticleHandler implements HttpHandler {
+    private ArticleStorage storage;
+    
+    public ArticleHandler(ArticleStorage storage) {
+        this.storage = storage;
+    }
+    
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        
+        if (method.equals("POST")) {
+            handlePost(exchange);
+        } else if (method.equals("GET")) {
+            handleGet(exchange);
+        } else {
+            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+        }
+    }
+    
+    private void handlePost(HttpExchange exchange) throws IOException {
+        String encoding = requestEncoding(exchange);
+        if (encoding == null) {
+            sendUnsupportedEncoding(exchange);
+            return;
+        }
+        
+        Article article = null;
+        try {
+            // Decode JSON from Python straight off the (possibly gzipped) request stream
+            String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            long sizeHint = contentLength != null ? Long.parseLong(contentLength) : 256;
+            JsonArticleDecoder decoder = new JsonArticleDecoder(requestBody(exchange),
+                encoding.equals("gzip") ? sizeHint * 4 : sizeHint);
+            article = decoder.next();
+            if (article == null) {
+                throw new IllegalArgumentException("Empty request body");
+            }
+            if (!isComplete(article)) {
+                throw new IllegalArgumentException("Missing url or content");
+            }
+            
+            // Save to file
+            storage.save(article);
+            
+            // Send success response
+            String response = "{\"message\":\"Article saved\",\"id\":\"" + article.getId() + "\""
+                + (article.nearDuplicateOf != null
+                   ? ",\"nearDuplicateOf\":\"" + article.nearDuplicateOf + "\"" : "")
+                + "}";
+            sendResponse(exchange, 201, response);
+            
+        } catch (RequestTooLargeException e) {
+            sendTooLarge(exchange, e.limit);
+        } catch (ZipException | EOFException e) {
+            // Corrupt or truncated gzip body
+            sendResponse(exchange, 400, "{\"error\":\"Invalid request\"}");
+        } catch (DuplicateArticleException e) {
+            sendResponse(exchange, 409, "{\"error\":\"Article already exists\""
+                + (article.nearDuplicateOf != null
+                   ? ",\"nearDuplicateOf\":\"" + article.nearDuplicateOf + "\"" : "")
+                + "}");
+        } catch (IOException e) {
+            System.err.println("❌ Failed to save " + (article != null ? article.url : "article")
+                               + ": " + e.getMessage());
+            sendResponse(exchange, 500, "{\"error\":\"Failed to save\"}");
+        } catch (Exception e) {
+            if (storage.logsSaves()) {
+                System.err.println("⚠️  Invalid request: " + e);
+            }
+            sendResponse(exchange, 400, "{\"error\":\"Invalid request\"}");
+        }
+    }
+    
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+    
+    private void handleGet(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestURI().getRawQuery() == null) {
+            // Return simple stats
+            String response = "{\"totalArticles\":" + storage.getCount() + "}";
+            sendResponse(exchange, 200, response);
+            return;
+        }
+        
+        // Metadata query: ?author=&category=&from=&to=&limit=&cursor=&content=true
+        Map<String, String> params = queryParams(exchange.getRequestURI());
+        MetadataPage page;
+        boolean withContent = Boolean.parseBoolean(params.get("content"));
+        try {
+            LocalDate from = params.containsKey("from") ? LocalDate.parse(params.get("from")) : null;
+            LocalDate to = params.containsKey("to") ? LocalDate.parse(params.get("to")) : null;
+            int limit = Math.min(MAX_LIMIT, Integer.parseInt(params.getOrDefault("limit", "" + DEFAULT_LIMIT)));
+            if (limit < 0) throw new IllegalArgumentException("negative limit");
+            
+            String cursor = params.get("cursor");
+            if (cursor != null) Long.parseUnsignedLong(cursor, 16);
+            
+            page = storage.getMetadata().query(params.get("author"), params.get("category"),
+                                               from, to, limit, cursor);
+        } catch (DateTimeException | IllegalArgumentException e) {
+            sendResponse(exchange, 400, "{\"error\":\"Expected author, category, from/to (yyyy-MM-dd), "
+                         + "limit (0-" + MAX_LIMIT + "), cursor and content=true|false\"}");
+            return;
+        }
+        
+        // Written out article by article, so a page with content=true is never held as one string
+        try (Writer json = responseWriter(exchange, 200)) {
+            json.append("{\"total\":").append(Integer.toString(page.total)).append(",\"articles\":[");
+            for (int i = 0; i < page.articles.size(); i++) {
+                ArticleMeta meta = page.articles.get(i);
+                if (i > 0) json.append(',');
+                json.append("{\"id\":\"").append(Article.toId(meta.fingerprint))
+                    .append("\",\"url\":").append(jsonString(meta.url))
+                    .append(",\"title\":").append(jsonString(meta.title))
+                    .append(",\"author\":").append(jsonString(meta.author))
+                    .append(",\"date\":").append(jsonString(meta.date))
+                    .append(",\"category\":").append(jsonString(meta.category()))
+                    .append(",\"receivedAt\":").append(jsonString(meta.receivedAt));
+                if (withContent) {
+                    // Only now is the article itself read from storage
+                    json.append(",\"content\":").append(jsonString(storage.getBackend().read(meta.location).content));
+                }
+                json.append('}');
+            }
+            json.append("],\"nextCursor\":").append(jsonString(page.nextCursor)).append('}');
+        }
+    }
+    
+    // Original per-field scanner, retained as the baseline for ServerBenchmarks json
+    public static String extractValue(String json, String key) {
+        // Simple JSON value extraction
+        String searchKey = "\"" + key + "\":\"";
+        int start = json.indexOf(searchKey);
+        
+        if (start == -1) return "";
+        
+        start += searchKey.length();
+        int end = start;
+        
+        // Find closing quote (handle escaped quotes)
+        while (end < json.length()) {
+            if (json.charAt(end) == '"' && (end == 0 || json.charAt(end - 1) != '\\')) {
+                break;
+            }
+            end++;
+        }
+        
+        String value = json.substring(start, end);
+        
+        // Unescape
+        value = value.replace("\\n", "\n");
+        value = value.replace("\\r", "\r");
+        value = value.replace("\\t", "\t");
+        value = value.replace("\\\"", "\"");
+        value = value.replace("\\\\", "\\");
+        
+        return value;
+    }
+    
+    // Decoded ?key=value&... parameters; the first value wins for repeated keys
+    static Map<String, String> queryParams(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null) return params;
+        
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            params.putIfAbsent(key, value);
+        }
+        return params;
+    }
+    
+    // JSON string literal; non-ASCII is escaped so the body is plain ASCII
+    static String jsonString(String value) {
+        if (value == null) return "null";
+        
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':  out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7E) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"').toString();
+    }
+    
+    // Smaller responses are sent as-is; gzip would save little and cost a deflater
+    static final int GZIP_MIN_BYTES = 1024;
+    
+    static void sendResponse(HttpExchange exchange, int statusCode, String response) 
+            throws IOException {
+        // Set headers
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+        
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= GZIP_MIN_BYTES) {
+            exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+            if (acceptsGzip(exchange)) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(bytes);
+                }
+                bytes = compressed.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+        }
+        
+        // Send response
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        
+        OutputStream os = exchange.getResponseBody();
+        os.write(bytes);
+        os.close();
+    }
+    
+    /**
+     * Starts a chunked response of unknown length and returns its body, gzipped
+     * if the client accepts it. flush() pushes what has been written so far to
+     * the client; close() ends the response.
+     */
+    static OutputStream streamResponse(HttpExchange exchange, int statusCode, String contentType)
+            throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        boolean gzip = acceptsGzip(exchange);
+        if (gzip) exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        
+        exchange.sendResponseHeaders(statusCode, 0);
+        OutputStream body = exchange.getResponseBody();
+        return gzip ? new GZIPOutputStream(body, 8192, true) : body;
+    }
+    
+    static Writer responseWriter(HttpExchange exchange, int statusCode) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+            streamResponse(exchange, statusCode, "application/json"), StandardCharsets.UTF_8), 16 << 10);
+    }
+    
+    // gzip (or *) listed in Accept-Encoding with a non-zero q value
+    static boolean acceptsGzip(HttpExchange exchange) {
+        double star = 0;
+        for (String header : exchange.getRequestHeaders().getOrDefault("Accept-Encoding", List.of())) {
+            for (String coding : header.split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim();
+                double q = 1;
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            q = Double.parseDouble(param.substring(2));
+                        } catch (NumberFormatException e) {
+                            q = 0;
+                        }
+                    }
+                }
+                if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) return q > 0;
+                if (name.equals("*")) star = q;
+            }
+        }
+        return star > 0;
+    }
+    
+    /** Whether a decoded article can be saved; single and batch POSTs both reject the rest. */
+    static boolean isComplete(Article article) {
+        return !article.url.isEmpty() && !article.content.isEmpty();
+    }
+    
+    /** The request's Content-Encoding: "identity", "gzip", or null if it is one we cannot decode. */
+    static String requestEncoding(HttpExchange exchange) {
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        if (encoding == null || encoding.isBlank() || encoding.trim().equalsIgnoreCase("identity")) {
+            return "identity";
+        }
+        if (encoding.trim().equalsIgnoreCase("gzip") || encoding.trim().equalsIgnoreCase("x-gzip")) {
+            return "gzip";
+        }
+        return null;
+    }
+    
+    /**
+     * The request body, inflated as it is read when gzipped. Reads the gzip
+     * header, so a body that is not gzip fails here with a ZipException.
+     */
+    static InputStream requestBody(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        if (!"gzip".equals(requestEncoding(exchange))) return body;
+        
+        // The size limit applies to the inflated body as well, so a few kilobytes
+        // of gzip cannot expand into gigabytes
+        InputStream inflated = new GZIPInputStream(body, 16 << 10);
+        return body instanceof BoundedInputStream ? ((BoundedInputStream) body).bound(inflated) : inflated;
+    }
+    
+    static void sendUnsupportedEncoding(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Accept-Encoding", "gzip, identity");
+        sendResponse(exchange, 415, "{\"error\":\"Unsupported Content-Encoding (use gzip or identity)\"}");
+    }
+    
+    static void sendTooLarge(HttpExchange exchange, long limit) throws IOException {
+        sendResponse(exchange, 413, "{\"error\":\"Request body exceeds " + limit + " bytes\"}");
+    }
+}
@@ -0,0 +1,84 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+// One meta.log record
+class ArticleMeta {
+    long fingerprint;
+    String url;
+    String title;
+    String author;
+    String date;
+    String receivedAt;
+    String location;
+    
+    static ArticleMeta of(Article article, String location) {
+        ArticleMeta meta = new ArticleMeta();
+        meta.fingerprint = article.getFingerprint();
+        meta.url = article.url;
+        meta.title = article.title;
+        meta.author = article.author;
+        meta.date = article.date;
+        meta.receivedAt = article.receivedAt;
+        meta.location = location;
+        return meta;
+    }
+    
+    String category() {
+        return Article.category(url);
+    }
+    
+    // Publish day from the leading yyyy-MM-dd of date, which may be a full ISO timestamp
+    int day() {
+        if (date == null || date.length() < 10) return MetadataIndex.NO_DATE;
+        try {
+            return (int) LocalDate.parse(date.substring(0, 10)).toEpochDay();
+        } catch (DateTimeException e) {
+            return MetadataIndex.NO_DATE;
+        }
+    }
+    
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeLong(fingerprint);
+            for (String value : new String[] {url, title, author, date, receivedAt, location}) {
+                if (value == null) {
+                    out.writeInt(-1);
+                } else {
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(utf8.length);
+                    out.write(utf8);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    static ArticleMeta decode(ByteBuffer in) {
+        ArticleMeta meta = new ArticleMeta();
+        meta.fingerprint = in.getLong();
+        String[] values = new String[6];
+        for (int i = 0; i < values.length; i++) {
+            int length = in.getInt();
+            if (length >= 0) {
+                values[i] = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            }
+        }
+        meta.url = values[0];
+        meta.title = values[1];
+        meta.author = values[2];
+        meta.date = values[3];
+        meta.receivedAt = values[4];
+        meta.location = values[5];
+        return meta;
+    }
+}
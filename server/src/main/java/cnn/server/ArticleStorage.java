@@ -0,0 +1,287 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ArticleStorage {
+    private String baseDir;
+    private UrlIndex savedUrls;
+    private StorageBackend backend;
+    private MetadataIndex metadata;
+    private InvertedIndex searchIndex;
+    
+    // Non-null in write-behind mode: saves are queued for the group-commit writer
+    private WriteBehindQueue writeBehind;
+    private boolean ackAfterFsync;
+    
+    private boolean logSaves;
+    private final IngestCounters ingest = new IngestCounters();
+    private final RecentAverage writeMillis = new RecentAverage(TimeUnit.SECONDS.toNanos(1));
+    
+    public ArticleStorage(String baseDir) throws IOException {
+        this(ServerConfig.withBaseDir(baseDir));
+    }
+    
+    public ArticleStorage(ServerConfig config) throws IOException {
+        this.baseDir = config.baseDir;
+        this.logSaves = config.logSaves;
+        
+        // Create directory
+        new File(baseDir).mkdirs();
+        
+        this.backend = StorageBackend.open(config);
+        
+        // Load existing URLs from url.index (rebuilt from the backend if stale)
+        this.savedUrls = UrlIndex.open(Paths.get(baseDir, "url.index"), backend, config);
+        
+        this.metadata = MetadataIndex.open(Paths.get(baseDir, "meta.log"), backend);
+        if (config.search) {
+            this.searchIndex = InvertedIndex.open(Paths.get(baseDir, "index"), backend, config.searchFlushDocs);
+        }
+        
+        if (config.writeBehind) {
+            this.ackAfterFsync = config.durability.equals("fsync");
+            this.writeBehind = new WriteBehindQueue(config.queueCapacity, config.flushRecords,
+                                                    config.flushMillis, config.logSaves,
+                                                    batch -> persist(batch, ackAfterFsync));
+        }
+        
+        System.out.println("📁 Storage: " + new File(baseDir).getAbsolutePath()
+                           + " (" + backend.describe() + ")");
+        if (writeBehind != null) {
+            System.out.println("⏩ Write-behind: ack after " + config.durability
+                               + ", flush every " + config.flushRecords + " articles or "
+                               + config.flushMillis + " ms");
+        }
+        System.out.println("📚 Loaded " + savedUrls.size() + " existing articles\n");
+    }
+    
+    public boolean exists(String url) {
+        return savedUrls.contains(url);
+    }
+    
+    public void save(Article article) throws IOException {
+        // Reserve the URL atomically so concurrent POSTs of the same article
+        // cannot both pass the duplicate check. In write-behind mode the
+        // reservation also covers articles still waiting in the queue.
+        if (!savedUrls.reserve(article)) {
+            if (article.nearDuplicateOf != null) {
+                ingest.nearDuplicate.increment();
+                throw new DuplicateArticleException("Article already exists (near-duplicate of "
+                                                    + article.nearDuplicateOf + ")");
+            }
+            ingest.duplicate.increment();
+            throw new DuplicateArticleException("Article already exists");
+        }
+        
+        if (writeBehind != null) {
+            CompletableFuture<String> written;
+            try {
+                written = writeBehind.submit(article);
+            } catch (IOException e) {
+                // Never queued: release the reservation so the scraper can retry
+                savedUrls.release(article);
+                ingest.failed.increment();
+                throw e;
+            }
+            if (ackAfterFsync) await(written);
+            return;
+        }
+        
+        String location;
+        long start = System.nanoTime();
+        try {
+            location = backend.write(article);
+            writeMillis.record((System.nanoTime() - start) / 1e6);
+        } catch (IOException | RuntimeException e) {
+            // Release the reservation so the scraper can retry
+            savedUrls.release(article);
+            ingest.failed.increment();
+            throw e;
+        }
+        savedUrls.commit(List.of(article));
+        index(List.of(article), List.of(location));
+        ingest.created.increment();
+        
+        if (!logSaves) return;
+        // Single println so lines from concurrent saves don't interleave
+        System.out.println("✅ Saved: " + article.title + "\n"
+                           + "   File: " + location + "\n"
+                           + "   Words: " + article.getWordCount() + "\n"
+                           + (article.nearDuplicateOf != null
+                              ? "   ⚠️  Near-duplicate of " + article.nearDuplicateOf + "\n" : ""));
+    }
+    
+    public enum SaveStatus { CREATED, DUPLICATE, NEAR_DUPLICATE, FAILED }
+    
+    /**
+     * Saves a chunk of articles, returning one status per article in order.
+     * Duplicates (including repeats within the chunk) are reported rather than
+     * thrown, and the chunk is logged as a single summary line.
+     */
+    public List<SaveStatus> saveBatch(List<Article> articles) {
+        SaveStatus[] statuses = new SaveStatus[articles.size()];
+        List<Article> reserved = new ArrayList<>(articles.size());
+        
+        // Reserve in order so the first copy of a repeated URL wins
+        for (int i = 0; i < statuses.length; i++) {
+            Article article = articles.get(i);
+            if (savedUrls.reserve(article)) {
+                reserved.add(article);
+            } else if (article.nearDuplicateOf != null) {
+                statuses[i] = SaveStatus.NEAR_DUPLICATE;
+                ingest.nearDuplicate.increment();
+            } else {
+                statuses[i] = SaveStatus.DUPLICATE;
+                ingest.duplicate.increment();
+            }
+        }
+        
+        String[] locations;
+        if (writeBehind != null) {
+            locations = new String[reserved.size()];
+            List<CompletableFuture<String>> pending = new ArrayList<>(reserved.size());
+            for (int r = 0; r < reserved.size(); r++) {
+                try {
+                    pending.add(writeBehind.submit(reserved.get(r)));
+                } catch (IOException e) {
+                    savedUrls.release(reserved.get(r));
+                    ingest.failed.increment();
+                    pending.add(CompletableFuture.failedFuture(e));
+                }
+            }
+            for (int r = 0; r < reserved.size(); r++) {
+                try {
+                    locations[r] = ackAfterFsync ? await(pending.get(r)) : "queued";
+                } catch (IOException e) {
+                    locations[r] = null;
+                }
+            }
+        } else {
+            locations = persist(reserved, false);
+        }
+        
+        int created = 0;
+        for (int i = 0, r = 0; i < statuses.length; i++) {
+            if (statuses[i] != null) continue;
+            
+            if (locations[r++] != null) {
+                statuses[i] = SaveStatus.CREATED;
+                created++;
+            } else {
+                statuses[i] = SaveStatus.FAILED;
+            }
+        }
+        
+        if (writeBehind == null && logSaves) {
+            System.out.println("✅ Batch saved: " + created + "/" + articles.size() + " articles");
+        }
+        return Arrays.asList(statuses);
+    }
+    
+    /**
+     * Writes reserved articles as one group, optionally fsyncing it, then
+     * commits the successes to the URL index and releases the failures.
+     * Returns each article's location, or null where it failed.
+     */
+    private String[] persist(List<Article> reserved, boolean fsync) {
+        String[] locations;
+        long start = System.nanoTime();
+        try {
+            locations = backend.writeAll(reserved);
+            if (fsync) backend.sync();
+            writeMillis.record((System.nanoTime() - start) / 1e6);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Failed to save batch: " + e.getMessage());
+            locations = new String[reserved.size()];
+        }
+        
+        List<Article> created = new ArrayList<>(reserved.size());
+        List<String> createdLocations = new ArrayList<>(reserved.size());
+        for (int r = 0; r < reserved.size(); r++) {
+            if (locations[r] != null) {
+                created.add(reserved.get(r));
+                createdLocations.add(locations[r]);
+            } else {
+                savedUrls.release(reserved.get(r));
+            }
+        }
+        savedUrls.commit(created);
+        index(created, createdLocations);
+        ingest.created.add(created.size());
+        ingest.failed.add(reserved.size() - created.size());
+        return locations;
+    }
+    
+    // The articles are already stored; a failure here only costs a rebuild on the next start
+    private void index(List<Article> created, List<String> locations) {
+        if (created.isEmpty()) return;
+        try {
+            metadata.add(created, locations);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️  Failed to update metadata index: " + e.getMessage());
+        }
+        if (searchIndex == null) return;
+        try {
+            searchIndex.add(created);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️  Failed to update search index: " + e.getMessage());
+        }
+    }
+    
+    private static String await(CompletableFuture<String> written) throws IOException {
+        try {
+            return written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for write", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+    
+    public StorageBackend getBackend() {
+        return backend;
+    }
+    
+    public MetadataIndex getMetadata() {
+        return metadata;
+    }
+    
+    public InvertedIndex getSearchIndex() {
+        return searchIndex;
+    }
+    
+    public int getCount() {
+        return savedUrls.size();
+    }
+    
+    public int getQueueDepth() {
+        return writeBehind != null ? writeBehind.depth() : 0;
+    }
+    
+    /** Recent backend write time (a group's, including its fsync), or 0 when storage is idle. */
+    public double getWriteLatencyMillis() {
+        return writeMillis.get();
+    }
+    
+    public IngestCounters getIngest() {
+        return ingest;
+    }
+    
+    public boolean logsSaves() {
+        return logSaves;
+    }
+    
+    public void close() throws IOException {
+        // Drain queued articles before the backend goes away
+        if (writeBehind != null) writeBehind.close();
+        if (searchIndex != null) searchIndex.close();
+        metadata.close();
+        savedUrls.close();
+        backend.close();
+    }
+}
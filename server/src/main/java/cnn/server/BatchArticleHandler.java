@@ -0,0 +1,182 @@
+package cnn.server;
+
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.ZipException;
+
+class BatchArticleHandler implements HttpHandler {
+    // Records are saved in chunks so storage overhead is amortized while the
+    // request body is still being streamed in
+    static final int CHUNK_SIZE = 256;
+    
+    // Results held in memory before they spill to a temp file
+    static final int SPOOL_MEMORY = 1 << 20;
+    
+    private ArticleStorage storage;
+    
+    public BatchArticleHandler(ArticleStorage storage) {
+        this.storage = storage;
+    }
+    
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            ArticleHandler.sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+        if (ArticleHandler.requestEncoding(exchange) == null) {
+            ArticleHandler.sendUnsupportedEncoding(exchange);
+            return;
+        }
+        
+        InputStream body;
+        try {
+            body = ArticleHandler.requestBody(exchange);
+        } catch (ZipException | EOFException e) {
+            ArticleHandler.sendResponse(exchange, 400, "{\"error\":\"Body is not valid gzip\"}");
+            return;
+        }
+        
+        // Results are only sent once the body has been read: a client that uploads
+        // everything before reading (python-requests, urllib) would otherwise
+        // deadlock once the unread results filled the socket buffers
+        int[] totals = new int[4];
+        try (ResultSpool spool = new ResultSpool()) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(spool, StandardCharsets.UTF_8));
+            
+            JsonArticleDecoder decoder = JsonArticleDecoder.lines(body);
+            List<Article> chunk = new ArrayList<>(CHUNK_SIZE);
+            List<Integer> chunkLines = new ArrayList<>(CHUNK_SIZE);
+            
+            while (true) {
+                Article article;
+                try {
+                    article = decoder.next();
+                } catch (ZipException | EOFException e) {
+                    // The rest of a corrupt or truncated gzip body cannot be read; keep what came before it
+                    flushChunk(chunk, chunkLines, out, totals);
+                    out.write("{\"line\":" + decoder.recordLine() + ",\"error\":\"Corrupt or truncated gzip body\"}\n");
+                    break;
+                } catch (RequestTooLargeException e) {
+                    // Chunked bodies have no Content-Length to refuse up front; stop at the limit
+                    flushChunk(chunk, chunkLines, out, totals);
+                    out.write("{\"line\":" + decoder.recordLine() + ",\"error\":\"Body exceeds "
+                              + e.limit + " bytes\"}\n");
+                    break;
+                } catch (IllegalArgumentException e) {
+                    // Malformed record: report it and resume at the next line
+                    writeResult(out, decoder.recordLine(), "invalid", null);
+                    totals[2]++;
+                    decoder.skipLine();
+                    continue;
+                }
+                if (article == null) break;
+                
+                if (!ArticleHandler.isComplete(article)) {
+                    writeResult(out, decoder.recordLine(), "invalid", null);
+                    totals[2]++;
+                    continue;
+                }
+                
+                chunk.add(article);
+                chunkLines.add(decoder.recordLine());
+                if (chunk.size() == CHUNK_SIZE) {
+                    flushChunk(chunk, chunkLines, out, totals);
+                }
+            }
+            flushChunk(chunk, chunkLines, out, totals);
+            
+            out.write("{\"created\":" + totals[0] + ",\"duplicate\":" + totals[1]
+                      + ",\"invalid\":" + totals[2] + ",\"failed\":" + totals[3] + "}\n");
+            out.flush();
+            
+            try (OutputStream response = ArticleHandler.streamResponse(exchange, 200, "application/x-ndjson")) {
+                spool.writeTo(response);
+            }
+        }
+    }
+    
+    private void flushChunk(List<Article> chunk, List<Integer> lines, Writer out, int[] totals)
+            throws IOException {
+        if (chunk.isEmpty()) return;
+        
+        List<ArticleStorage.SaveStatus> statuses = storage.saveBatch(chunk);
+        for (int i = 0; i < statuses.size(); i++) {
+            switch (statuses.get(i)) {
+                case CREATED:
+                    writeResult(out, lines.get(i), "created", chunk.get(i));
+                    totals[0]++;
+                    break;
+                case DUPLICATE:
+                    writeResult(out, lines.get(i), "duplicate", chunk.get(i));
+                    totals[1]++;
+                    break;
+                case NEAR_DUPLICATE:
+                    writeResult(out, lines.get(i), "near-duplicate", chunk.get(i));
+                    totals[1]++;
+                    break;
+                default:
+                    writeResult(out, lines.get(i), "failed", null);
+                    totals[3]++;
+            }
+        }
+        
+        chunk.clear();
+        lines.clear();
+    }
+    
+    private void writeResult(Writer out, int line, String status, Article article)
+            throws IOException {
+        out.write("{\"line\":" + line + ",\"status\":\"" + status + "\"");
+        if (article != null) {
+            out.write(",\"id\":\"" + article.getId() + "\"");
+            if (article.nearDuplicateOf != null) {
+                out.write(",\"nearDuplicateOf\":\"" + article.nearDuplicateOf + "\"");
+            }
+        }
+        out.write("}\n");
+    }
+    
+    // Buffers the response in memory, then in a temp file once it outgrows SPOOL_MEMORY
+    static final class ResultSpool extends OutputStream {
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream(8192);
+        private Path file;
+        private OutputStream disk;
+        
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (disk == null && memory.size() + len > SPOOL_MEMORY) {
+                file = Files.createTempFile("cnn-batch-", ".ndjson");
+                disk = new BufferedOutputStream(Files.newOutputStream(file));
+                memory.writeTo(disk);
+                memory = null;
+            }
+            if (disk != null) disk.write(b, off, len);
+            else memory.write(b, off, len);
+        }
+        
+        void writeTo(OutputStream out) throws IOException {
+            if (disk == null) {
+                memory.writeTo(out);
+                return;
+            }
+            disk.close();
+            Files.copy(file, out);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (disk == null) return;
+            disk.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package cnn.server;
+
+import java.io.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts bytes read and throws RequestTooLargeException once more than `limit` have been
+class BoundedInputStream extends FilterInputStream {
+    private final long limit;
+    private final LongAdder exceeded;
+    private long count;
+    
+    public BoundedInputStream(InputStream in, long limit, LongAdder exceeded) {
+        super(in);
+        this.limit = limit;
+        this.exceeded = exceeded;
+    }
+    
+    /** The same limit over a stream decoded from this one, e.g. the inflated body. */
+    public BoundedInputStream bound(InputStream decoded) {
+        return new BoundedInputStream(decoded, limit, exceeded);
+    }
+    
+    @Override
+    public int read() throws IOException {
+        checkLimit();
+        int b = in.read();
+        if (b != -1) counted(1);
+        return b;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkLimit();
+        // Read at most one byte past the limit: enough to know it was exceeded
+        int n = in.read(b, off, (int) Math.min(len, limit - count + 1));
+        if (n > 0) counted(n);
+        return n;
+    }
+    
+    @Override
+    public long skip(long n) throws IOException {
+        checkLimit();
+        long skipped = in.skip(Math.min(n, limit - count + 1));
+        counted(skipped);
+        return skipped;
+    }
+    
+    private void checkLimit() throws RequestTooLargeException {
+        if (count > limit) throw new RequestTooLargeException(limit);
+    }
+    
+    private void counted(long n) throws RequestTooLargeException {
+        count += n;
+        if (count > limit) {
+            exceeded.increment();
+            throw new RequestTooLargeException(limit);
+        }
+    }
+}
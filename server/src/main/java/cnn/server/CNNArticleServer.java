@@ -0,0 +1,112 @@
+package cnn.server;
+
+import com.sun.net.httpserver.*;
+import java.net.InetSocketAddress;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CNN Article Storage Server
+ * Receives articles from Python and saves to text files
+ */
+public class CNNArticleServer {
+    public static void main(String[] args) throws Exception {
+        ServerConfig config = ServerConfig.fromSystemProperties();
+        
+        if (args.length == 2 && args[0].equals("export-text")) {
+            // Convert the segment log back to .txt files for CNNArticleParser
+            // Read-only, so it is safe while the server is still appending
+            try (SegmentLogBackend log = SegmentLogBackend.openReadOnly(
+                     Paths.get(config.baseDir, "segments"), config.segmentBytes)) {
+                int exported = log.exportToText(args[1]);
+                System.out.println("✅ Exported " + exported + " articles to " + args[1]);
+            }
+            return;
+        }
+        
+        defaultToNoDelay();
+        ArticleStorage storage = new ArticleStorage(config);
+        HttpServer server = createServer(config, storage);
+        server.start();
+        
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            try {
+                storage.close();
+            } catch (IOException e) {
+                System.err.println("❌ Failed to close storage: " + e.getMessage());
+            }
+        }));
+        
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║   CNN Article Storage Server          ║");
+        System.out.println("╠════════════════════════════════════════╣");
+        System.out.println("║ Port: " + config.port + "                          ║");
+        System.out.println("║ Storage: " + config.storage + "                          ║");
+        System.out.println("║ Directory: " + config.baseDir + "/              ║");
+        System.out.println("║ Executor: " + config.executor + "                      ║");
+        System.out.println("╚════════════════════════════════════════╝");
+        System.out.println("✅ Server ready!\n");
+    }
+    
+    /**
+     * Turns on TCP_NODELAY for every JDK HttpServer in this JVM unless
+     * -Dsun.net.httpserver.nodelay says otherwise. Without it the header and
+     * body writes of each response hit the Nagle + delayed-ACK stall (~40ms
+     * per request on Linux). The JDK reads the property once, so call this
+     * before the first server is created.
+     */
+    public static void defaultToNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+    
+    public static HttpServer createServer(ServerConfig config, ArticleStorage storage) 
+            throws IOException {
+        ArticleHandler handler = new ArticleHandler(storage);
+        
+        HttpServer server = HttpServer.create(new InetSocketAddress(config.port), config.backlog);
+        AdmissionControl admission = new AdmissionControl(config, storage);
+        Metrics metrics = new Metrics(storage, admission);
+        HttpContext articles = server.createContext("/api/articles", handler);
+        HttpContext batch = server.createContext("/api/articles/batch", new BatchArticleHandler(storage));
+        HttpContext search = server.createContext("/api/articles/search", new SearchHandler(storage));
+        HttpContext metricsContext = server.createContext("/api/metrics", new MetricsHandler(metrics));
+        for (HttpContext context : List.of(articles, batch, search, metricsContext)) {
+            context.getFilters().add(new MetricsFilter(metrics));
+        }
+        // After MetricsFilter, so refused requests are counted too. /api/metrics is
+        // never refused: it is how an overload gets noticed.
+        articles.getFilters().add(new AdmissionFilter(admission, config.maxBodyBytes));
+        batch.getFilters().add(new AdmissionFilter(admission, config.maxBatchBytes));
+        search.getFilters().add(new AdmissionFilter(admission, config.maxBodyBytes));
+        server.setExecutor(createExecutor(config));
+        return server;
+    }
+    
+    static ExecutorService createExecutor(ServerConfig config) {
+        if (config.executor.equals("virtual")) {
+            // Virtual threads need Java 21+; look the factory up reflectively so
+            // the server still runs on the older JVMs shipped with Raspberry Pi OS
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("⚠️  Virtual threads unavailable, using "
+                                   + config.threads + " platform threads");
+            }
+        }
+        
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(config.threads, r -> {
+            Thread t = new Thread(r, "http-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
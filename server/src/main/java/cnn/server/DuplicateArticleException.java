@@ -0,0 +1,12 @@
+package cnn.server;
+
+import java.io.*;
+
+// Thrown by ArticleStorage.save when the URL (or, under cnn.neardup=reject, the content) is already stored
+class DuplicateArticleException extends IOException {
+    private static final long serialVersionUID = 1L;
+    
+    DuplicateArticleException(String message) {
+        super(message);
+    }
+}
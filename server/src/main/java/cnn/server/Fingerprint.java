@@ -0,0 +1,80 @@
+package cnn.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/** MurmurHash3 x64-128 over UTF-8, used for URL fingerprints. */
+final class Fingerprint {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    
+    private Fingerprint() {
+    }
+    
+    /** 64-bit fingerprint (the first half of the 128-bit hash). */
+    public static long of(String s) {
+        return murmur3(s.getBytes(StandardCharsets.UTF_8))[0];
+    }
+    
+    public static long[] murmur3(byte[] data) {
+        long h1 = 0;
+        long h2 = 0;
+        int blocks = data.length / 16;
+        ByteBuffer in = ByteBuffer.wrap(data).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        
+        for (int i = 0; i < blocks; i++) {
+            long k1 = in.getLong(i * 16);
+            long k2 = in.getLong(i * 16 + 8);
+            
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        
+        long k1 = 0;
+        long k2 = 0;
+        int tail = blocks * 16;
+        for (int i = data.length - 1; i >= tail; i--) {
+            long b = data[i] & 0xFFL;
+            if (i - tail >= 8) k2 |= b << ((i - tail - 8) * 8);
+            else k1 |= b << ((i - tail) * 8);
+        }
+        h2 ^= mixK2(k2);
+        h1 ^= mixK1(k1);
+        
+        h1 ^= data.length;
+        h2 ^= data.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[] {h1, h2};
+    }
+    
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+    
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+    
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb93fe53a87cbL;
+        k ^= k >>> 33;
+        return k;
+    }
+}
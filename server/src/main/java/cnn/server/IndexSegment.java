@@ -0,0 +1,95 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// A flushed, memory-mapped segment of postings
+class IndexSegment implements Closeable {
+    static final byte[] MAGIC = "CNNIDX01".getBytes(StandardCharsets.US_ASCII);
+    static final int HEADER = MAGIC.length + 20;
+    
+    final int docBase;
+    final int docCount;
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    
+    // term -> {docFreq, offset, length}
+    private final Map<String, long[]> dictionary;
+    
+    private IndexSegment(int docBase, int docCount, FileChannel channel, MappedByteBuffer data,
+                         Map<String, long[]> dictionary) {
+        this.docBase = docBase;
+        this.docCount = docCount;
+        this.channel = channel;
+        this.data = data;
+        this.dictionary = dictionary;
+    }
+    
+    static IndexSegment open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] magic = new byte[MAGIC.length];
+            data.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not an index segment: " + file);
+            
+            int docBase = data.getInt(MAGIC.length);
+            int docCount = data.getInt(MAGIC.length + 4);
+            int termCount = data.getInt(MAGIC.length + 8);
+            long dictionaryOffset = data.getLong(MAGIC.length + 12);
+            
+            Map<String, long[]> dictionary = new HashMap<>(termCount * 2);
+            ByteBuffer in = data.duplicate().position((int) dictionaryOffset);
+            for (int t = 0; t < termCount; t++) {
+                byte[] term = new byte[in.getShort()];
+                in.get(term);
+                dictionary.put(new String(term, StandardCharsets.UTF_8),
+                               new long[] {in.getInt(), in.getLong(), in.getInt()});
+            }
+            return new IndexSegment(docBase, docCount, channel, data, dictionary);
+        } catch (RuntimeException e) {
+            channel.close();
+            throw new IOException("Corrupt index segment: " + file, e);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    int docFreq(String term) {
+        long[] entry = dictionary.get(term);
+        return entry != null ? (int) entry[0] : 0;
+    }
+    
+    Set<String> terms() {
+        return dictionary.keySet();
+    }
+    
+    // The term's postings as PostingsBuffer encoded them; the term must be in this segment
+    ByteBuffer encoded(String term) {
+        long[] entry = dictionary.get(term);
+        return data.slice((int) entry[1], (int) entry[2]);
+    }
+    
+    Map<String, Postings> postings(Set<String> wanted, Set<String> withPositions) {
+        Map<String, Postings> decoded = new HashMap<>();
+        for (String term : wanted) {
+            long[] entry = dictionary.get(term);
+            if (entry != null) {
+                ByteBuffer slice = data.slice((int) entry[1], (int) entry[2]);
+                decoded.put(term, Postings.decode(slice, (int) entry[0], docBase, withPositions.contains(term)));
+            }
+        }
+        return decoded;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,11 @@
+package cnn.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Outcome of every article offered to ArticleStorage, single or batched
+class IngestCounters {
+    final LongAdder created = new LongAdder();
+    final LongAdder duplicate = new LongAdder();
+    final LongAdder nearDuplicate = new LongAdder();
+    final LongAdder failed = new LongAdder();
+}
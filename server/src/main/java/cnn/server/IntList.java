@@ -0,0 +1,22 @@
+package cnn.server;
+
+import java.util.*;
+
+// Growable list of primitive ints
+class IntList {
+    private int[] values = new int[4];
+    private int size;
+    
+    void add(int value) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+    
+    int get(int i) {
+        return values[i];
+    }
+    
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,357 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Full-text index over each article's title and content, updated as articles
+ * are committed. New postings accumulate in an in-memory PostingsBuffer that
+ * is written out as an immutable segment every flushDocs articles and on close.
+ * The segment smaller than flushDocs that closing leaves behind is merged
+ * into the next one flushed, so restarts do not pile them up.
+ *
+ * Layout under <baseDir>/index:
+ *   docs.dat            one record per document: tokens, fingerprint, title, url
+ *   segment-NNNNNN.idx  postings for a contiguous range of document IDs
+ *
+ * Like url.index this is derived data: if the documents it covers disagree
+ * with the backend's record count (say after a crash lost the buffer) it is
+ * rebuilt from the backend on startup.
+ */
+public class InvertedIndex implements Closeable {
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    
+    private final Path dir;
+    private final int flushDocs;
+    private FileChannel docsFile;
+    
+    // Immutable once published; replaced wholesale when a segment is flushed
+    private volatile List<IndexSegment> segments = new ArrayList<>();
+    
+    // Guarded by this
+    private PostingsBuffer buffer;
+    private List<String[]> bufferDocs = new ArrayList<>();
+    private ByteArrayOutputStream bufferRecords = new ByteArrayOutputStream();
+    private int[] docLengths = new int[1024];
+    private long[] docOffsets = new long[1024];
+    private int docCount;
+    private long totalLength;
+    
+    private InvertedIndex(Path dir, int flushDocs) {
+        this.dir = dir;
+        this.flushDocs = flushDocs;
+    }
+    
+    public static InvertedIndex open(Path dir, StorageBackend backend, int flushDocs) throws IOException {
+        long records = backend.recordCount();
+        Files.createDirectories(dir);
+        
+        InvertedIndex index = new InvertedIndex(dir, flushDocs);
+        if (!index.load(records)) {
+            long start = System.nanoTime();
+            index.clear();
+            index.rebuild(backend);
+            if (records > 0) System.out.printf("🔧 Rebuilt search index from %d articles in %d ms%n",
+                              records, (System.nanoTime() - start) / 1_000_000);
+        }
+        return index;
+    }
+    
+    // Returns false if the segments or docs.dat are missing, inconsistent or stale
+    private boolean load(long expected) throws IOException {
+        List<Path> files;
+        try (var paths = Files.list(dir)) {
+            files = paths.filter(p -> p.getFileName().toString().matches("segment-\\d{6}\\.idx"))
+                         .sorted()
+                         .toList();
+        }
+        
+        int covered = 0;
+        for (Path file : files) {
+            IndexSegment segment;
+            try {
+                segment = IndexSegment.open(file);
+            } catch (IOException e) {
+                return false;
+            }
+            if (segment.docBase < covered && segment.docBase + segment.docCount <= covered) {
+                // Left over from a merge interrupted before it removed its inputs
+                segment.close();
+                Files.delete(file);
+                continue;
+            }
+            if (segment.docBase != covered) return false;
+            segments.add(segment);
+            covered += segment.docCount;
+        }
+        if (covered != expected) return false;
+        
+        docsFile = FileChannel.open(dir.resolve("docs.dat"), StandardOpenOption.CREATE,
+                                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(docsFile), 1 << 16));
+        long offset = 0;
+        try {
+            while (docCount < covered) {
+                int length = in.readInt();
+                in.readLong();
+                int titleBytes = in.readInt();
+                in.skipNBytes(titleBytes);
+                int urlBytes = in.readInt();
+                in.skipNBytes(urlBytes);
+                
+                addDoc(length, offset);
+                offset += 20 + titleBytes + urlBytes;
+            }
+        } catch (EOFException e) {
+            return false;
+        }
+        
+        // Records past the last segment belong to a buffer that was never flushed
+        docsFile.truncate(offset);
+        docsFile.position(offset);
+        buffer = new PostingsBuffer(docCount);
+        return true;
+    }
+    
+    private void clear() throws IOException {
+        for (IndexSegment segment : segments) segment.close();
+        if (docsFile != null) docsFile.close();
+        
+        try (var paths = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) paths::iterator) Files.delete(file);
+        }
+        segments = new ArrayList<>();
+        docsFile = FileChannel.open(dir.resolve("docs.dat"), StandardOpenOption.CREATE,
+                                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        docCount = 0;
+        totalLength = 0;
+        buffer = new PostingsBuffer(0);
+    }
+    
+    private void rebuild(StorageBackend backend) throws IOException {
+        // Tokenize in parallel, index one document at a time
+        IOException[] failure = new IOException[1];
+        backend.forEachArticle(article -> {
+            TokenizedDoc doc = TokenizedDoc.of(article);
+            synchronized (this) {
+                try {
+                    add(doc);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+    }
+    
+    /** Indexes newly committed articles; they are searchable when this returns. */
+    public void add(List<Article> articles) throws IOException {
+        List<TokenizedDoc> docs = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            docs.add(TokenizedDoc.of(article));
+        }
+        synchronized (this) {
+            for (TokenizedDoc doc : docs) add(doc);
+        }
+    }
+    
+    private void add(TokenizedDoc doc) throws IOException {
+        int docId = docCount;
+        buffer.add(docId, doc.positions);
+        bufferDocs.add(new String[] {Article.toId(doc.fingerprint), doc.title, doc.url});
+        
+        byte[] title = doc.title.getBytes(StandardCharsets.UTF_8);
+        byte[] url = doc.url.getBytes(StandardCharsets.UTF_8);
+        DataOutputStream record = new DataOutputStream(bufferRecords);
+        record.writeInt(doc.length);
+        record.writeLong(doc.fingerprint);
+        record.writeInt(title.length);
+        record.write(title);
+        record.writeInt(url.length);
+        record.write(url);
+        
+        addDoc(doc.length, -1);
+        if (buffer.docCount() >= flushDocs) flush();
+    }
+    
+    private void addDoc(int length, long offset) {
+        if (docCount == docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, docCount * 2);
+            docOffsets = Arrays.copyOf(docOffsets, docCount * 2);
+        }
+        docLengths[docCount] = length;
+        docOffsets[docCount] = offset;
+        docCount++;
+        totalLength += length;
+    }
+    
+    // Appends the buffered doc records, then publishes the buffer as a segment
+    private void flush() throws IOException {
+        if (buffer.docCount() == 0) return;
+        
+        long offset = docsFile.size();
+        ByteBuffer records = ByteBuffer.wrap(bufferRecords.toByteArray());
+        while (records.hasRemaining()) docsFile.write(records, offset + records.position());
+        docsFile.force(false);
+        
+        for (int docId = buffer.docBase; docId < docCount; docId++) {
+            docOffsets[docId] = offset;
+            String[] meta = bufferDocs.get(docId - buffer.docBase);
+            offset += 20 + meta[1].getBytes(StandardCharsets.UTF_8).length
+                      + meta[2].getBytes(StandardCharsets.UTF_8).length;
+        }
+        
+        Path file = dir.resolve(String.format("segment-%06d.idx", segments.size()));
+        buffer.writeTo(file);
+        
+        List<IndexSegment> published = new ArrayList<>(segments);
+        published.add(IndexSegment.open(file));
+        segments = published;
+        
+        buffer = new PostingsBuffer(docCount);
+        bufferDocs = new ArrayList<>();
+        bufferRecords = new ByteArrayOutputStream();
+        mergeSmallSegments();
+    }
+    
+    // Folds the segments under flushDocs just before the newest into it, so at most the
+    // last segment is ever small; doc IDs do not change
+    private void mergeSmallSegments() throws IOException {
+        int first = segments.size() - 1;
+        while (first > 0 && segments.get(first - 1).docCount < flushDocs) first--;
+        if (first < 0 || first == segments.size() - 1) return;
+        
+        List<IndexSegment> small = segments.subList(first, segments.size());
+        PostingsBuffer merged = new PostingsBuffer(small.get(0).docBase);
+        for (IndexSegment segment : small) merged.append(segment);
+        
+        // Replacing the first input publishes the merge; a crash before the rest are deleted leaves
+        // segments that load() recognizes as covered and removes
+        merged.writeTo(dir.resolve(String.format("segment-%06d.idx", first)));
+        List<IndexSegment> published = new ArrayList<>(segments.subList(0, first));
+        published.add(IndexSegment.open(dir.resolve(String.format("segment-%06d.idx", first))));
+        for (int i = first + 1; i < segments.size(); i++) {
+            Files.delete(dir.resolve(String.format("segment-%06d.idx", i)));
+        }
+        
+        // Searches still holding the old list keep their mappings, which outlive the channels
+        for (IndexSegment segment : small) segment.close();
+        segments = published;
+    }
+    
+    public synchronized int docCount() {
+        return docCount;
+    }
+    
+    public SearchResults search(String queryText, int limit) throws IOException {
+        long start = System.nanoTime();
+        SearchQuery query = SearchQuery.parse(queryText);
+        Set<String> terms = query.terms();
+        Set<String> phraseTerms = query.phraseTerms();
+        
+        // Snapshot: published segments plus the decoded postings of the live buffer
+        List<IndexSegment> published;
+        Map<String, Postings> buffered;
+        int[] lengths;
+        int n;
+        double avgLength;
+        synchronized (this) {
+            published = segments;
+            buffered = buffer.postings(terms, phraseTerms);
+            lengths = docLengths;
+            n = docCount;
+            avgLength = n > 0 ? (double) totalLength / n : 1;
+        }
+        
+        Map<String, Integer> docFreqs = new HashMap<>();
+        for (String term : terms) {
+            int df = buffered.containsKey(term) ? buffered.get(term).size() : 0;
+            for (IndexSegment segment : published) df += segment.docFreq(term);
+            docFreqs.put(term, df);
+        }
+        
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(Comparator.comparingDouble(h -> h.score));
+        int matches = 0;
+        List<Map<String, Postings>> parts = new ArrayList<>();
+        for (IndexSegment segment : published) parts.add(segment.postings(terms, phraseTerms));
+        parts.add(buffered);
+        
+        for (Map<String, Postings> postings : parts) {
+            for (int docId : query.matches(postings)) {
+                matches++;
+                double score = 0;
+                for (String term : terms) {
+                    Postings p = postings.get(term);
+                    int tf = p != null ? p.freq(docId) : 0;
+                    if (tf == 0) continue;
+                    
+                    double df = docFreqs.get(term);
+                    double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+                    score += idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[docId] / avgLength));
+                }
+                
+                if (top.size() < limit) {
+                    top.add(new SearchHit(docId, score));
+                } else if (limit > 0 && score > top.peek().score) {
+                    top.poll();
+                    top.add(new SearchHit(docId, score));
+                }
+            }
+        }
+        
+        List<SearchHit> hits = new ArrayList<>(top);
+        hits.sort(Comparator.comparingDouble((SearchHit h) -> h.score).reversed()
+                            .thenComparingInt(h -> h.docId));
+        for (SearchHit hit : hits) describe(hit);
+        return new SearchResults(matches, hits, (System.nanoTime() - start) / 1e6);
+    }
+    
+    // Fills in id/title/url from the live buffer or docs.dat
+    private void describe(SearchHit hit) throws IOException {
+        long offset;
+        synchronized (this) {
+            if (hit.docId >= buffer.docBase) {
+                String[] meta = bufferDocs.get(hit.docId - buffer.docBase);
+                hit.id = meta[0];
+                hit.title = meta[1];
+                hit.url = meta[2];
+                return;
+            }
+            offset = docOffsets[hit.docId];
+        }
+        
+        ByteBuffer header = ByteBuffer.allocate(16);
+        readFully(header, offset);
+        header.getInt();
+        hit.id = Article.toId(header.getLong());
+        ByteBuffer title = ByteBuffer.allocate(header.getInt());
+        readFully(title, offset + 16);
+        hit.title = new String(title.array(), StandardCharsets.UTF_8);
+        
+        ByteBuffer urlLength = ByteBuffer.allocate(4);
+        readFully(urlLength, offset + 16 + title.capacity());
+        ByteBuffer url = ByteBuffer.allocate(urlLength.getInt(0));
+        readFully(url, offset + 20 + title.capacity());
+        hit.url = new String(url.array(), StandardCharsets.UTF_8);
+    }
+    
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (docsFile.read(target, position + target.position()) < 0) throw new EOFException();
+        }
+        target.flip();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        for (IndexSegment segment : segments) segment.close();
+        docsFile.close();
+    }
+}
@@ -0,0 +1,315 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class JsonArticleDecoder {
+    private static final byte[][] FIELDS = {
+        "url".getBytes(StandardCharsets.US_ASCII),
+        "title".getBytes(StandardCharsets.US_ASCII),
+        "author".getBytes(StandardCharsets.US_ASCII),
+        "date".getBytes(StandardCharsets.US_ASCII),
+        "content".getBytes(StandardCharsets.US_ASCII)
+    };
+    
+    private final InputStream in;
+    private final boolean lineDelimited;
+    private final byte[] buf = new byte[8192];
+    private int pos;
+    private int limit;
+    private int line = 1;
+    private int recordLine;
+    
+    // Unescaped UTF-8 of the current key or value, reused across fields and
+    // records; only wanted values are turned into Strings
+    private byte[] value;
+    private int length;
+    
+    /**
+     * A decoder for NDJSON: a raw newline ends the record, so a malformed
+     * line is reported without consuming any of the line after it.
+     */
+    public static JsonArticleDecoder lines(InputStream in) {
+        return new JsonArticleDecoder(in, 256, true);
+    }
+    
+    public JsonArticleDecoder(InputStream in) {
+        this(in, 256);
+    }
+    
+    /** sizeHint (e.g. Content-Length) pre-sizes the value buffer to avoid regrowth. */
+    public JsonArticleDecoder(InputStream in, long sizeHint) {
+        this(in, sizeHint, false);
+    }
+    
+    private JsonArticleDecoder(InputStream in, long sizeHint, boolean lineDelimited) {
+        this.in = in;
+        this.lineDelimited = lineDelimited;
+        this.value = new byte[(int) Math.max(256, Math.min(sizeHint, 1 << 20))];
+    }
+    
+    /** Line on which the most recently started record began (1-based). */
+    public int recordLine() {
+        return recordLine;
+    }
+    
+    /**
+     * Decodes the next top-level JSON object into an Article.
+     * Missing or non-string fields become "", unknown keys are skipped.
+     * Returns null at end of stream.
+     */
+    public Article next() throws IOException {
+        int c = skipWhitespace();
+        if (c == -1) return null;
+        
+        recordLine = line;
+        if (c != '{') throw malformed("expected '{'");
+        pos++;
+        
+        String[] values = {"", "", "", "", ""};
+        
+        c = skipSpace();
+        if (c == '}') {
+            pos++;
+        } else {
+            while (true) {
+                if (c != '"') throw malformed("expected field name");
+                pos++;
+                readString();
+                int field = matchField();
+                
+                if (skipSpace() != ':') throw malformed("expected ':'");
+                pos++;
+                
+                c = skipSpace();
+                if (c == '"') {
+                    pos++;
+                    readString();
+                    if (field >= 0) values[field] = new String(value, 0, length, StandardCharsets.UTF_8);
+                } else {
+                    skipValue();
+                }
+                
+                c = skipSpace();
+                if (c == -1) throw malformed("unexpected end of input");
+                pos++;
+                if (c == '}') break;
+                if (c != ',') throw malformed("expected ',' or '}'");
+                c = skipSpace();
+            }
+        }
+        
+        return new Article(values[0], values[1], values[2], values[3], values[4]);
+    }
+    
+    /**
+     * Discards input up to and including the next newline (NDJSON resync).
+     * A line-delimited decoder stops a bad record before its newline, so this
+     * never reaches into the following record.
+     */
+    public void skipLine() throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '\n') {
+                line++;
+                break;
+            }
+        }
+    }
+    
+    private int matchField() {
+        for (int f = 0; f < FIELDS.length; f++) {
+            if (Arrays.equals(FIELDS[f], 0, FIELDS[f].length, value, 0, length)) return f;
+        }
+        return -1;
+    }
+    
+    // Reads string contents after the opening quote into value[0..length).
+    // Runs of plain bytes are bulk-copied; only escapes are handled one by one.
+    private void readString() throws IOException {
+        length = 0;
+        while (true) {
+            if (pos == limit && !fill()) throw malformed("unterminated string");
+            
+            int i = pos;
+            byte b = 0;
+            while (i < limit) {
+                b = buf[i];
+                if (b == '"' || b == '\\') break;
+                if (b == '\n') {
+                    if (lineDelimited) break;
+                    line++;
+                }
+                i++;
+            }
+            append(buf, pos, i - pos);
+            pos = i;
+            if (i == limit) continue;
+            if (b == '\n') throw malformed("unterminated string");
+            
+            pos++;
+            if (b == '"') return;
+            
+            int e = readInRecord();
+            switch (e) {
+                case '"':  appendByte('"'); break;
+                case '\\': appendByte('\\'); break;
+                case '/':  appendByte('/'); break;
+                case 'b':  appendByte('\b'); break;
+                case 'f':  appendByte('\f'); break;
+                case 'n':  appendByte('\n'); break;
+                case 'r':  appendByte('\r'); break;
+                case 't':  appendByte('\t'); break;
+                case 'u':  appendCodePoint(readUnicodeEscape()); break;
+                default:   throw malformed("invalid escape");
+            }
+        }
+    }
+    
+    // Reads the hex digits of a unicode escape, pairing a high surrogate with the
+    // low surrogate escape that must follow it
+    private int readUnicodeEscape() throws IOException {
+        int unit = readHex4();
+        if (!Character.isHighSurrogate((char) unit)) {
+            return Character.isLowSurrogate((char) unit) ? 0xFFFD : unit;
+        }
+        
+        if (peek() != '\\') return 0xFFFD;
+        pos++;
+        if (readInRecord() != 'u') throw malformed("invalid escape");
+        
+        int low = readHex4();
+        if (!Character.isLowSurrogate((char) low)) return 0xFFFD;
+        return Character.toCodePoint((char) unit, (char) low);
+    }
+    
+    private int readHex4() throws IOException {
+        int unit = 0;
+        for (int i = 0; i < 4; i++) {
+            int h = Character.digit(readInRecord(), 16);
+            if (h < 0) throw malformed("invalid \\u escape");
+            unit = (unit << 4) | h;
+        }
+        return unit;
+    }
+    
+    private void appendCodePoint(int cp) {
+        if (cp < 0x80) {
+            appendByte(cp);
+        } else if (cp < 0x800) {
+            appendByte(0xC0 | (cp >> 6));
+            appendByte(0x80 | (cp & 0x3F));
+        } else if (cp < 0x10000) {
+            appendByte(0xE0 | (cp >> 12));
+            appendByte(0x80 | ((cp >> 6) & 0x3F));
+            appendByte(0x80 | (cp & 0x3F));
+        } else {
+            appendByte(0xF0 | (cp >> 18));
+            appendByte(0x80 | ((cp >> 12) & 0x3F));
+            appendByte(0x80 | ((cp >> 6) & 0x3F));
+            appendByte(0x80 | (cp & 0x3F));
+        }
+    }
+    
+    private void appendByte(int b) {
+        if (length == value.length) {
+            value = Arrays.copyOf(value, value.length * 2);
+        }
+        value[length++] = (byte) b;
+    }
+    
+    private void append(byte[] src, int offset, int count) {
+        if (length + count > value.length) {
+            value = Arrays.copyOf(value, Math.max(value.length * 2, length + count));
+        }
+        System.arraycopy(src, offset, value, length, count);
+        length += count;
+    }
+    
+    // Skips a non-string value: number, literal, nested object or array
+    private void skipValue() throws IOException {
+        int c = skipSpace();
+        if (c == '{' || c == '[') {
+            pos++;
+            int depth = 1;
+            while (depth > 0) {
+                c = readInRecord();
+                if (c == -1) throw malformed("unexpected end of input");
+                if (c == '"') readString();
+                else if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+                else if (c == '\n') line++;
+            }
+            return;
+        }
+        
+        boolean consumed = false;
+        while (c != -1 && c != ',' && c != '}' && c != ']'
+               && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+            pos++;
+            consumed = true;
+            c = peek();
+        }
+        if (!consumed) throw malformed("expected value");
+    }
+    
+    // Whitespace between the tokens of a record; a line-delimited record may not span lines
+    private int skipSpace() throws IOException {
+        int c = lineDelimited ? skipBlanks() : skipWhitespace();
+        if (c == '\n') throw malformed("unexpected end of line");
+        return c;
+    }
+    
+    private int skipBlanks() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c != ' ' && c != '\t' && c != '\r') return c;
+            pos++;
+        }
+    }
+    
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == ' ' || c == '\t' || c == '\r') {
+                pos++;
+            } else if (c == '\n') {
+                line++;
+                pos++;
+            } else {
+                return c;
+            }
+        }
+    }
+    
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos] & 0xFF;
+    }
+    
+    private int read() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos++] & 0xFF;
+    }
+    
+    // read() within a record; a line-delimited record may not run onto the next line
+    private int readInRecord() throws IOException {
+        int c = peek();
+        if (c == '\n' && lineDelimited) throw malformed("unexpected end of line");
+        if (c != -1) pos++;
+        return c;
+    }
+    
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+    
+    private IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException("Malformed JSON on line " + line + ": " + reason);
+    }
+}
@@ -0,0 +1,98 @@
+package cnn.server;
+
+/**
+ * Open-addressing set of longs with linear probing and backward-shift
+ * deletion. 0 marks an empty slot, so a 0 key is stored as a separate flag.
+ */
+class LongHashSet {
+    private long[] slots;
+    private int size;
+    private boolean hasZero;
+    
+    public LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        slots = new long[capacity];
+    }
+    
+    public synchronized boolean add(long key) {
+        if (key == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        
+        int mask = slots.length - 1;
+        int i = mix(key) & mask;
+        while (slots[i] != 0) {
+            if (slots[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        slots[i] = key;
+        
+        if (++size * 2 > slots.length) grow();
+        return true;
+    }
+    
+    public synchronized boolean contains(long key) {
+        if (key == 0) return hasZero;
+        
+        int mask = slots.length - 1;
+        int i = mix(key) & mask;
+        while (slots[i] != 0) {
+            if (slots[i] == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+    
+    public synchronized boolean remove(long key) {
+        if (key == 0) {
+            if (!hasZero) return false;
+            hasZero = false;
+            size--;
+            return true;
+        }
+        
+        int mask = slots.length - 1;
+        int i = mix(key) & mask;
+        while (slots[i] != key) {
+            if (slots[i] == 0) return false;
+            i = (i + 1) & mask;
+        }
+        
+        // Shift later entries of the probe run back into the hole
+        int hole = i;
+        for (int j = (hole + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+            int home = mix(slots[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                slots[hole] = slots[j];
+                hole = j;
+            }
+        }
+        slots[hole] = 0;
+        size--;
+        return true;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    private void grow() {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        int mask = slots.length - 1;
+        for (long key : old) {
+            if (key == 0) continue;
+            int i = mix(key) & mask;
+            while (slots[i] != 0) i = (i + 1) & mask;
+            slots[i] = key;
+        }
+    }
+    
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
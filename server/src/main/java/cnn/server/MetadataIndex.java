@@ -0,0 +1,308 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Secondary indexes over article metadata, maintained as articles are
+ * committed. Records (id, url, title, author, date, received time and the
+ * backend location) are appended to meta.log; memory holds only each
+ * record's offset, its publish day and dictionary IDs for author and category,
+ * plus a day-sorted TreeMap and per-author / per-category lists of record
+ * numbers. A query touches the index in memory and then reads just the page
+ * of records it returns.
+ *
+ * Derived data like url.index: rebuilt from the backend when the record count
+ * disagrees with backend.recordCount().
+ */
+class MetadataIndex implements Closeable {
+    static final byte[] MAGIC = "CNNMETA1".getBytes(StandardCharsets.US_ASCII);
+    static final int NO_DATE = Integer.MIN_VALUE;
+    
+    private final Path file;
+    private FileChannel channel;
+    
+    // Guarded by this; indexed by record number (ingest order)
+    private long[] offsets = new long[1024];
+    private int[] days = new int[1024];
+    private int[] authorIds = new int[1024];
+    private int[] categoryIds = new int[1024];
+    private int count;
+    private long size;
+    
+    private final Map<String, Integer> authorDictionary = new HashMap<>();
+    private final List<IntList> byAuthor = new ArrayList<>();
+    private final Map<String, Integer> categoryDictionary = new HashMap<>();
+    private final List<IntList> byCategory = new ArrayList<>();
+    private final TreeMap<Integer, IntList> byDay = new TreeMap<>();
+    
+    private MetadataIndex(Path file) {
+        this.file = file;
+    }
+    
+    public static MetadataIndex open(Path file, StorageBackend backend) throws IOException {
+        long records = backend.recordCount();
+        MetadataIndex index = new MetadataIndex(file);
+        
+        if (!index.load(records)) {
+            long start = System.nanoTime();
+            index = new MetadataIndex(file);
+            index.rebuild(backend);
+            if (records > 0) System.out.printf("🔧 Rebuilt metadata index from %d articles in %d ms%n",
+                              records, (System.nanoTime() - start) / 1_000_000);
+        }
+        return index;
+    }
+    
+    // Returns false if meta.log is missing, corrupt or stale
+    private boolean load(long expected) throws IOException {
+        if (!Files.exists(file)) return false;
+        
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) return closeAndFail();
+            
+            long offset = MAGIC.length;
+            long fileSize = channel.size();
+            while (offset < fileSize) {
+                int length = in.readInt();
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                
+                ArticleMeta meta = ArticleMeta.decode(ByteBuffer.wrap(payload));
+                addToIndexes(meta, offset);
+                offset += 4 + length;
+            }
+            if (count != expected) return closeAndFail();
+            
+            size = offset;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return closeAndFail();
+        }
+    }
+    
+    private boolean closeAndFail() throws IOException {
+        channel.close();
+        channel = null;
+        return false;
+    }
+    
+    private void rebuild(StorageBackend backend) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.write(ByteBuffer.wrap(MAGIC));
+        size = MAGIC.length;
+        
+        IOException[] failure = new IOException[1];
+        List<ArticleMeta> pending = new ArrayList<>(1024);
+        backend.scan((article, location) -> {
+            pending.add(ArticleMeta.of(article, location));
+            if (pending.size() == 1024 && failure[0] == null) {
+                try {
+                    append(pending);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+                pending.clear();
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        append(pending);
+        
+        channel.force(true);
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    
+    /** Records newly committed articles and the backend locations they were written to. */
+    public void add(List<Article> articles, List<String> locations) throws IOException {
+        List<ArticleMeta> metas = new ArrayList<>(articles.size());
+        for (int i = 0; i < articles.size(); i++) {
+            metas.add(ArticleMeta.of(articles.get(i), locations.get(i)));
+        }
+        append(metas);
+    }
+    
+    private synchronized void append(List<ArticleMeta> metas) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(metas.size() * 256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        long[] recordOffsets = new long[metas.size()];
+        for (int i = 0; i < metas.size(); i++) {
+            byte[] payload = metas.get(i).encode();
+            recordOffsets[i] = size + bytes.size();
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+        
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) channel.write(buffer, size + buffer.position());
+        size += buffer.capacity();
+        
+        for (int i = 0; i < metas.size(); i++) {
+            addToIndexes(metas.get(i), recordOffsets[i]);
+        }
+    }
+    
+    private void addToIndexes(ArticleMeta meta, long offset) {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            days = Arrays.copyOf(days, count * 2);
+            authorIds = Arrays.copyOf(authorIds, count * 2);
+            categoryIds = Arrays.copyOf(categoryIds, count * 2);
+        }
+        
+        int record = count++;
+        offsets[record] = offset;
+        days[record] = meta.day();
+        authorIds[record] = idOf(authorDictionary, byAuthor, authorKey(meta.author));
+        categoryIds[record] = idOf(categoryDictionary, byCategory, meta.category());
+        
+        byAuthor.get(authorIds[record]).add(record);
+        byCategory.get(categoryIds[record]).add(record);
+        byDay.computeIfAbsent(days[record], d -> new IntList()).add(record);
+    }
+    
+    private static int idOf(Map<String, Integer> dictionary, List<IntList> lists, String key) {
+        Integer id = dictionary.get(key);
+        if (id == null) {
+            id = lists.size();
+            dictionary.put(key, id);
+            lists.add(new IntList());
+        }
+        return id;
+    }
+    
+    static String authorKey(String author) {
+        return author == null ? "" : author.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Finds records matching every given filter (null = any), newest publish
+     * date first, then newest ingested. The cursor is the sort key of the last
+     * record of the previous page.
+     */
+    public MetadataPage query(String author, String category, LocalDate from, LocalDate to,
+                              int limit, String cursor) throws IOException {
+        int lo = from != null ? (int) from.toEpochDay() : NO_DATE;
+        int hi = to != null ? (int) to.toEpochDay() : Integer.MAX_VALUE;
+        boolean dated = from != null || to != null;
+        long after = cursor != null ? Long.parseUnsignedLong(cursor, 16) : Long.MAX_VALUE;
+        
+        int[] page;
+        int total;
+        long[] pageOffsets;
+        synchronized (this) {
+            Integer authorId = null;
+            Integer categoryId = null;
+            if (author != null) {
+                authorId = authorDictionary.get(authorKey(author));
+                if (authorId == null) return new MetadataPage(0, List.of(), null);
+            }
+            if (category != null) {
+                categoryId = categoryDictionary.get(category.toLowerCase(Locale.ROOT));
+                if (categoryId == null) return new MetadataPage(0, List.of(), null);
+            }
+            
+            // Drive from the shorter of the author and category lists, checking the rest per record
+            IntList driver = null;
+            if (authorId != null) driver = byAuthor.get(authorId);
+            if (categoryId != null && (driver == null || byCategory.get(categoryId).size() < driver.size())) {
+                driver = byCategory.get(categoryId);
+            }
+            
+            // Keep the limit + 1 largest keys below the cursor; one extra tells us if there is a next page
+            PriorityQueue<Long> best = new PriorityQueue<>();
+            total = 0;
+            if (driver != null) {
+                for (int i = 0; i < driver.size(); i++) {
+                    int record = driver.get(i);
+                    if (authorId != null && authorIds[record] != authorId) continue;
+                    if (categoryId != null && categoryIds[record] != categoryId) continue;
+                    if (days[record] < lo || days[record] > hi || (dated && days[record] == NO_DATE)) continue;
+                    
+                    total++;
+                    offer(best, sortKey(record), after, limit + 1);
+                }
+            } else {
+                // Walk the date index newest first, starting at the cursor's day
+                int first = dated ? Math.max(lo, NO_DATE + 1) : NO_DATE;
+                for (IntList list : byDay.subMap(first, true, hi, true).values()) total += list.size();
+                
+                int last = Math.min(hi, (int) (after >> 32));
+                NavigableMap<Integer, IntList> remaining = first <= last
+                    ? byDay.subMap(first, true, last, true) : Collections.emptyNavigableMap();
+                for (IntList list : remaining.descendingMap().values()) {
+                    for (int i = list.size() - 1; i >= 0 && best.size() <= limit; i--) {
+                        offer(best, sortKey(list.get(i)), after, limit + 1);
+                    }
+                    if (best.size() > limit) break;
+                }
+            }
+            
+            List<Long> keys = new ArrayList<>(best);
+            keys.sort(Comparator.reverseOrder());
+            page = new int[Math.min(limit, keys.size())];
+            pageOffsets = new long[page.length];
+            for (int i = 0; i < page.length; i++) {
+                page[i] = (int) (long) keys.get(i);
+                pageOffsets[i] = offsets[page[i]];
+            }
+            cursor = limit > 0 && keys.size() > limit ? Long.toHexString(keys.get(limit - 1)) : null;
+        }
+        
+        List<ArticleMeta> results = new ArrayList<>(page.length);
+        for (long offset : pageOffsets) results.add(read(offset));
+        return new MetadataPage(total, results, cursor);
+    }
+    
+    // Sorts by publish day, then record number; both fit in one long
+    private long sortKey(int record) {
+        return ((long) days[record] << 32) | record;
+    }
+    
+    private static void offer(PriorityQueue<Long> best, long key, long after, int keep) {
+        if (key >= after) return;
+        if (best.size() < keep) {
+            best.add(key);
+        } else if (key > best.peek()) {
+            best.poll();
+            best.add(key);
+        }
+    }
+    
+    private ArticleMeta read(long offset) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(length, offset);
+        ByteBuffer payload = ByteBuffer.allocate(length.getInt(0));
+        readFully(payload, offset + 4);
+        return ArticleMeta.decode(payload.flip());
+    }
+    
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) throw new EOFException();
+        }
+    }
+    
+    public synchronized int size() {
+        return count;
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+}
@@ -0,0 +1,15 @@
+package cnn.server;
+
+import java.util.*;
+
+class MetadataPage {
+    final int total;
+    final List<ArticleMeta> articles;
+    final String nextCursor;
+    
+    MetadataPage(int total, List<ArticleMeta> articles, String nextCursor) {
+        this.total = total;
+        this.articles = articles;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,185 @@
+package cnn.server;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+class Metrics {
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS");
+    
+    private final ArticleStorage storage;
+    private final AdmissionControl admission;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final RateWindow requests = new RateWindow();
+    
+    public Metrics(ArticleStorage storage, AdmissionControl admission) {
+        this.storage = storage;
+        this.admission = admission;
+    }
+    
+    public void record(String method, String path, int status, long nanos) {
+        // Keyed by context path, not request path, so the label set stays bounded
+        String key = (METHODS.contains(method) ? method : "OTHER") + " " + path;
+        EndpointMetrics endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            endpoint = endpoints.computeIfAbsent(key, k -> new EndpointMetrics());
+        }
+        endpoint.latency.record(nanos / 1000);
+        endpoint.status(status).increment();
+        requests.increment();
+    }
+    
+    public String toJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"uptimeSeconds\":").append((System.nanoTime() - startNanos) / 1_000_000_000L)
+            .append(",\"requestsPerSecond\":{\"1s\":").append(fmt(requests.perSecond(1)))
+            .append(",\"10s\":").append(fmt(requests.perSecond(10)))
+            .append(",\"60s\":").append(fmt(requests.perSecond(60)))
+            .append("},\"endpoints\":{");
+        boolean first = true;
+        for (Map.Entry<String, EndpointMetrics> entry : new TreeMap<>(endpoints).entrySet()) {
+            EndpointMetrics endpoint = entry.getValue();
+            LatencyHistogram.Snapshot latency = endpoint.latency.snapshot();
+            if (!first) json.append(',');
+            first = false;
+            json.append(ArticleHandler.jsonString(entry.getKey()))
+                .append(":{\"count\":").append(latency.count).append(",\"status\":{");
+            boolean firstStatus = true;
+            for (Map.Entry<Integer, LongAdder> status : new TreeMap<>(endpoint.statuses).entrySet()) {
+                if (!firstStatus) json.append(',');
+                firstStatus = false;
+                json.append('"').append(status.getKey()).append("\":").append(status.getValue().sum());
+            }
+            json.append("},\"latencyMs\":{\"p50\":").append(fmt(latency.percentile(0.5) / 1e3))
+                .append(",\"p99\":").append(fmt(latency.percentile(0.99) / 1e3))
+                .append(",\"p999\":").append(fmt(latency.percentile(0.999) / 1e3))
+                .append(",\"max\":").append(fmt(latency.max / 1e3))
+                .append(",\"mean\":").append(fmt(latency.mean() / 1e3))
+                .append("}}");
+        }
+        IngestCounters ingest = storage.getIngest();
+        json.append("},\"ingest\":{\"created\":").append(ingest.created.sum())
+            .append(",\"duplicate\":").append(ingest.duplicate.sum())
+            .append(",\"nearDuplicate\":").append(ingest.nearDuplicate.sum())
+            .append(",\"failed\":").append(ingest.failed.sum())
+            .append("},\"storage\":{\"bytesWritten\":").append(storage.getBackend().bytesWritten())
+            .append(",\"queueDepth\":").append(storage.getQueueDepth())
+            .append(",\"writeLatencyMs\":").append(fmt(storage.getWriteLatencyMillis()))
+            .append(",\"dedupUrls\":").append(storage.getCount())
+            .append("},\"admission\":{\"inFlight\":").append(admission.inFlight())
+            .append(",\"rejected\":{\"inFlight\":").append(admission.rejectedInFlight.sum())
+            .append(",\"queue\":").append(admission.rejectedQueue.sum())
+            .append(",\"writeLatency\":").append(admission.rejectedWriteLatency.sum())
+            .append(",\"rateLimit\":").append(admission.rejectedRateLimit.sum())
+            .append(",\"bodyTooLarge\":").append(admission.rejectedTooLarge.sum())
+            .append("}}}");
+        return json.toString();
+    }
+    
+    /**
+     * Prometheus text exposition format (version 0.0.4). Lines are built per
+     * endpoint and handed to the writer as they are done, so the buffer does
+     * not grow with the number of endpoints.
+     */
+    public void writePrometheus(Writer writer) throws IOException {
+        StringBuilder out = new StringBuilder(2048);
+        Map<String, EndpointMetrics> sorted = new TreeMap<>(endpoints);
+        
+        out.append("# HELP cnn_http_requests_total HTTP requests by endpoint and status code.\n")
+           .append("# TYPE cnn_http_requests_total counter\n");
+        for (Map.Entry<String, EndpointMetrics> entry : sorted.entrySet()) {
+            for (Map.Entry<Integer, LongAdder> status : new TreeMap<>(entry.getValue().statuses).entrySet()) {
+                out.append("cnn_http_requests_total{").append(labels(entry.getKey()))
+                   .append(",status=\"").append(status.getKey()).append("\"} ")
+                   .append(status.getValue().sum()).append('\n');
+            }
+            drain(out, writer);
+        }
+        
+        out.append("# HELP cnn_http_request_duration_seconds HTTP request latency.\n")
+           .append("# TYPE cnn_http_request_duration_seconds summary\n");
+        for (Map.Entry<String, EndpointMetrics> entry : sorted.entrySet()) {
+            String labels = labels(entry.getKey());
+            LatencyHistogram.Snapshot latency = entry.getValue().latency.snapshot();
+            for (String quantile : new String[] {"0.5", "0.99", "0.999"}) {
+                out.append("cnn_http_request_duration_seconds{").append(labels)
+                   .append(",quantile=\"").append(quantile).append("\"} ")
+                   .append(fmt(latency.percentile(Double.parseDouble(quantile)) / 1e6)).append('\n');
+            }
+            out.append("cnn_http_request_duration_seconds_sum{").append(labels).append("} ")
+               .append(fmt(latency.sum / 1e6)).append('\n')
+               .append("cnn_http_request_duration_seconds_count{").append(labels).append("} ")
+               .append(latency.count).append('\n');
+            drain(out, writer);
+        }
+        
+        gauge(out, "cnn_http_requests_per_second", "Requests per second over the last 10 seconds.",
+              fmt(requests.perSecond(10)));
+        
+        IngestCounters ingest = storage.getIngest();
+        out.append("# HELP cnn_articles_ingested_total Articles received, by outcome.\n")
+           .append("# TYPE cnn_articles_ingested_total counter\n")
+           .append("cnn_articles_ingested_total{result=\"created\"} ").append(ingest.created.sum()).append('\n')
+           .append("cnn_articles_ingested_total{result=\"duplicate\"} ").append(ingest.duplicate.sum()).append('\n')
+           .append("cnn_articles_ingested_total{result=\"near_duplicate\"} ")
+           .append(ingest.nearDuplicate.sum()).append('\n')
+           .append("cnn_articles_ingested_total{result=\"failed\"} ").append(ingest.failed.sum()).append('\n');
+        
+        out.append("# HELP cnn_storage_bytes_written_total Article bytes written by the storage backend.\n")
+           .append("# TYPE cnn_storage_bytes_written_total counter\n")
+           .append("cnn_storage_bytes_written_total ").append(storage.getBackend().bytesWritten()).append('\n');
+        gauge(out, "cnn_write_queue_depth", "Articles waiting in the write-behind queue.",
+              Integer.toString(storage.getQueueDepth()));
+        gauge(out, "cnn_storage_write_latency_seconds", "Recent backend write time, 0 when idle.",
+              fmt(storage.getWriteLatencyMillis() / 1e3));
+        gauge(out, "cnn_dedup_urls", "URLs in the dedup set.", Integer.toString(storage.getCount()));
+        
+        gauge(out, "cnn_http_requests_in_flight", "Requests being handled, excluding /api/metrics.",
+              Integer.toString(admission.inFlight()));
+        out.append("# HELP cnn_admission_rejected_total Requests refused by admission control, by reason.\n")
+           .append("# TYPE cnn_admission_rejected_total counter\n")
+           .append("cnn_admission_rejected_total{reason=\"in_flight\"} ")
+           .append(admission.rejectedInFlight.sum()).append('\n')
+           .append("cnn_admission_rejected_total{reason=\"queue\"} ")
+           .append(admission.rejectedQueue.sum()).append('\n')
+           .append("cnn_admission_rejected_total{reason=\"write_latency\"} ")
+           .append(admission.rejectedWriteLatency.sum()).append('\n')
+           .append("cnn_admission_rejected_total{reason=\"rate_limit\"} ")
+           .append(admission.rejectedRateLimit.sum()).append('\n')
+           .append("cnn_admission_rejected_total{reason=\"body_too_large\"} ")
+           .append(admission.rejectedTooLarge.sum()).append('\n');
+        drain(out, writer);
+    }
+    
+    private static void drain(StringBuilder out, Writer writer) throws IOException {
+        writer.append(out);
+        out.setLength(0);
+    }
+    
+    private static void gauge(StringBuilder out, String name, String help, String value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n')
+           .append("# TYPE ").append(name).append(" gauge\n")
+           .append(name).append(' ').append(value).append('\n');
+    }
+    
+    private static String labels(String key) {
+        int space = key.indexOf(' ');
+        return "method=\"" + key.substring(0, space) + "\",path=\"" + key.substring(space + 1) + "\"";
+    }
+    
+    private static String fmt(double value) {
+        return String.format(Locale.ROOT, "%.6f", value).replaceAll("\\.?0+$", "");
+    }
+    
+    private static class EndpointMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        
+        LongAdder status(int code) {
+            LongAdder counter = statuses.get(code);
+            return counter != null ? counter : statuses.computeIfAbsent(code, c -> new LongAdder());
+        }
+    }
+}
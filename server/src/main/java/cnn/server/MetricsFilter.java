@@ -0,0 +1,31 @@
+package cnn.server;
+
+import com.sun.net.httpserver.*;
+import java.io.*;
+
+// Times every exchange on the context it is added to
+class MetricsFilter extends Filter {
+    private final Metrics metrics;
+    
+    public MetricsFilter(Metrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            // -1 means the handler threw before sending headers; the client sees a reset
+            int status = exchange.getResponseCode();
+            metrics.record(exchange.getRequestMethod(), exchange.getHttpContext().getPath(),
+                           status < 0 ? 500 : status, System.nanoTime() - start);
+        }
+    }
+    
+    @Override
+    public String description() {
+        return "Records request latency and status for /api/metrics";
+    }
+}
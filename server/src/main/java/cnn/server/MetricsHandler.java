@@ -0,0 +1,37 @@
+package cnn.server;
+
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+class MetricsHandler implements HttpHandler {
+    private final Metrics metrics;
+    
+    public MetricsHandler(Metrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            ArticleHandler.sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+        
+        // Prometheus scrapers ask for text/plain or OpenMetrics; everything else gets JSON
+        String format = ArticleHandler.queryParams(exchange.getRequestURI()).get("format");
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        boolean prometheus = "prometheus".equals(format)
+            || (format == null && accept != null
+                && (accept.contains("text/plain") || accept.contains("openmetrics")));
+        if (!prometheus) {
+            ArticleHandler.sendResponse(exchange, 200, metrics.toJson());
+            return;
+        }
+        
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(ArticleHandler.streamResponse(
+                 exchange, 200, "text/plain; version=0.0.4; charset=utf-8"), StandardCharsets.UTF_8))) {
+            metrics.writePrometheus(out);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package cnn.server;
+
+import java.util.*;
+
+/**
+ * LSH over SimHashes: each hash is split into 4 bands of 16 bits and every
+ * band value indexes a bucket. By pigeonhole, two hashes within 3 bits
+ * share at least one band exactly, so a lookup only compares against the
+ * articles in 4 buckets instead of the whole corpus. Buckets are intrusive
+ * linked lists in primitive arrays (heads per band value, next per entry).
+ */
+class NearDuplicateIndex {
+    static final int BANDS = 4;
+    static final int MAX_BITS = BANDS - 1;
+    
+    private final int maxDistance;
+    private final int[][] heads = new int[BANDS][1 << 16];
+    private int[][] next;
+    private long[] hashes;
+    private long[] fingerprints;
+    private int size;
+    
+    public NearDuplicateIndex(int maxDistance, int expected) {
+        this.maxDistance = maxDistance;
+        int capacity = Math.max(16, expected);
+        this.next = new int[BANDS][capacity];
+        this.hashes = new long[capacity];
+        this.fingerprints = new long[capacity];
+        for (int[] band : heads) Arrays.fill(band, -1);
+    }
+    
+    /**
+     * Returns the fingerprint of a stored article within maxDistance bits of
+     * simHash, or 0. Unless a match is found and skipOnMatch is set, the
+     * new article is added under fingerprint.
+     */
+    public synchronized long findOrAdd(long simHash, long fingerprint, boolean skipOnMatch) {
+        long match = find(simHash);
+        if (match == 0 || !skipOnMatch) add(simHash, fingerprint);
+        return match;
+    }
+    
+    public synchronized long find(long simHash) {
+        for (int b = 0; b < BANDS; b++) {
+            for (int e = heads[b][band(simHash, b)]; e != -1; e = next[b][e]) {
+                if (fingerprints[e] != 0 && Long.bitCount(hashes[e] ^ simHash) <= maxDistance) {
+                    return fingerprints[e];
+                }
+            }
+        }
+        return 0;
+    }
+    
+    public synchronized void add(long simHash, long fingerprint) {
+        if (size == hashes.length) {
+            int capacity = size * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            fingerprints = Arrays.copyOf(fingerprints, capacity);
+            for (int b = 0; b < BANDS; b++) next[b] = Arrays.copyOf(next[b], capacity);
+        }
+        
+        int e = size++;
+        hashes[e] = simHash;
+        fingerprints[e] = fingerprint;
+        for (int b = 0; b < BANDS; b++) {
+            int bucket = band(simHash, b);
+            next[b][e] = heads[b][bucket];
+            heads[b][bucket] = e;
+        }
+    }
+    
+    /** Tombstones an entry (fingerprint 0) so a failed write frees its content. */
+    public synchronized void remove(long simHash, long fingerprint) {
+        for (int e = heads[0][band(simHash, 0)]; e != -1; e = next[0][e]) {
+            if (fingerprints[e] == fingerprint && hashes[e] == simHash) {
+                fingerprints[e] = 0;
+                return;
+            }
+        }
+    }
+    
+    private static int band(long simHash, int b) {
+        return (int) (simHash >>> (b * 16)) & 0xFFFF;
+    }
+}
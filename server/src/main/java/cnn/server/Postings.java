@@ -0,0 +1,68 @@
+package cnn.server;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+// One term's decoded postings within a segment, doc IDs ascending
+class Postings {
+    int[] docs;
+    int[] freqs;
+    
+    // Positions of docs[i] are positions[positionStart[i] .. positionStart[i + 1]); null if not decoded
+    int[] positionStart;
+    int[] positions;
+    
+    static Postings decode(ByteBuffer in, int docFreq, int docBase, boolean withPositions) {
+        Postings p = new Postings();
+        p.docs = new int[docFreq];
+        p.freqs = new int[docFreq];
+        if (withPositions) p.positionStart = new int[docFreq + 1];
+        int[] positions = withPositions ? new int[docFreq * 2] : null;
+        int positionCount = 0;
+        
+        int doc = -1;
+        for (int i = 0; i < docFreq; i++) {
+            doc += VarInt.read(in);
+            p.docs[i] = docBase + doc;
+            int freq = VarInt.read(in);
+            p.freqs[i] = freq;
+            
+            if (withPositions) {
+                p.positionStart[i] = positionCount;
+                if (positionCount + freq > positions.length) {
+                    positions = Arrays.copyOf(positions, Math.max(positions.length * 2, positionCount + freq));
+                }
+                int position = 0;
+                for (int f = 0; f < freq; f++) {
+                    position += VarInt.read(in);
+                    positions[positionCount++] = position;
+                }
+            } else {
+                for (int f = 0; f < freq; f++) VarInt.read(in);
+            }
+        }
+        if (withPositions) {
+            p.positionStart[docFreq] = positionCount;
+            p.positions = positions;
+        }
+        return p;
+    }
+    
+    int size() {
+        return docs.length;
+    }
+    
+    int indexOf(int docId) {
+        return Arrays.binarySearch(docs, docId);
+    }
+    
+    int freq(int docId) {
+        int i = indexOf(docId);
+        return i >= 0 ? freqs[i] : 0;
+    }
+    
+    boolean hasPosition(int docId, int position) {
+        int i = indexOf(docId);
+        return i >= 0 && Arrays.binarySearch(positions, positionStart[i], positionStart[i + 1], position) >= 0;
+    }
+}
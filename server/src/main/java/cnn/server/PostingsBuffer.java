@@ -0,0 +1,137 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Postings being built for the documents since the last flush. Each term's
+ * list is kept encoded: per document a varint doc-ID delta, a varint term
+ * frequency, then varint position deltas.
+ */
+class PostingsBuffer {
+    final int docBase;
+    private int docs;
+    private final Map<String, TermPostings> terms = new HashMap<>();
+    
+    private static class TermPostings {
+        byte[] bytes = new byte[16];
+        int size;
+        int docFreq;
+        int lastDoc = -1;
+        
+        void writeVarInt(int value) {
+            if (size + 5 > bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            size = VarInt.write(bytes, size, value);
+        }
+    }
+    
+    PostingsBuffer(int docBase) {
+        this.docBase = docBase;
+    }
+    
+    int docCount() {
+        return docs;
+    }
+    
+    void add(int docId, Map<String, int[]> positions) {
+        int local = docId - docBase;
+        for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+            TermPostings postings = terms.computeIfAbsent(entry.getKey(), t -> new TermPostings());
+            postings.writeVarInt(local - postings.lastDoc);
+            postings.lastDoc = local;
+            postings.docFreq++;
+            
+            int[] list = entry.getValue();
+            postings.writeVarInt(list.length);
+            int previous = 0;
+            for (int position : list) {
+                postings.writeVarInt(position - previous);
+                previous = position;
+            }
+        }
+        docs++;
+    }
+    
+    // Re-encodes a flushed segment's postings after the documents already here; segments
+    // must be appended in doc ID order, starting at docBase
+    void append(IndexSegment segment) {
+        for (String term : segment.terms()) {
+            TermPostings postings = terms.computeIfAbsent(term, t -> new TermPostings());
+            ByteBuffer in = segment.encoded(term);
+            int local = segment.docBase - docBase - 1;
+            for (int i = segment.docFreq(term); i > 0; i--) {
+                local += VarInt.read(in);
+                postings.writeVarInt(local - postings.lastDoc);
+                postings.lastDoc = local;
+                postings.docFreq++;
+                
+                int freq = VarInt.read(in);
+                postings.writeVarInt(freq);
+                for (int f = 0; f < freq; f++) postings.writeVarInt(VarInt.read(in));
+            }
+        }
+        docs += segment.docCount;
+    }
+    
+    Map<String, Postings> postings(Set<String> wanted, Set<String> withPositions) {
+        Map<String, Postings> decoded = new HashMap<>();
+        for (String term : wanted) {
+            TermPostings p = terms.get(term);
+            if (p != null) {
+                decoded.put(term, Postings.decode(ByteBuffer.wrap(p.bytes, 0, p.size), p.docFreq,
+                                                  docBase, withPositions.contains(term)));
+            }
+        }
+        return decoded;
+    }
+    
+    /**
+     * Segment file: header (magic, docBase, docCount, termCount, dictionary
+     * offset), the postings of every term back to back, then the dictionary of
+     * sorted terms with their document frequency and postings offset/length.
+     */
+    void writeTo(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<String> sorted = new ArrayList<>(terms.keySet());
+        Collections.sort(sorted);
+        
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                 Channels.newOutputStream(channel), 1 << 16))) {
+            
+            out.write(IndexSegment.MAGIC);
+            out.writeInt(docBase);
+            out.writeInt(docs);
+            out.writeInt(sorted.size());
+            long dictionaryOffset = IndexSegment.HEADER;
+            for (String term : sorted) dictionaryOffset += terms.get(term).size;
+            out.writeLong(dictionaryOffset);
+            
+            for (String term : sorted) {
+                TermPostings p = terms.get(term);
+                out.write(p.bytes, 0, p.size);
+            }
+            
+            long offset = IndexSegment.HEADER;
+            for (String term : sorted) {
+                TermPostings p = terms.get(term);
+                byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+                out.writeInt(p.docFreq);
+                out.writeLong(offset);
+                out.writeInt(p.size);
+                offset += p.size;
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,37 @@
+package cnn.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Per-second counts for the last minute. Each slot packs its epoch second (high bits)
+// and that second's count (low 30 bits) into one long, so a slot is reused with a
+// single CAS instead of a separate reset that could race with increments.
+class RateWindow {
+    private static final int SLOTS = 64;
+    private static final int COUNT_BITS = 30;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    
+    private final AtomicLongArray slots = new AtomicLongArray(SLOTS);
+    
+    public void increment() {
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % SLOTS);
+        long current, next;
+        do {
+            current = slots.get(slot);
+            next = (current >>> COUNT_BITS) == second
+                   ? Math.min(current + 1, (second << COUNT_BITS) | COUNT_MASK)
+                   : (second << COUNT_BITS) | 1;
+        } while (!slots.compareAndSet(slot, current, next));
+    }
+    
+    /** Average over the last `seconds` complete seconds. */
+    public double perSecond(int seconds) {
+        long now = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (long second = now - seconds; second < now; second++) {
+            long value = slots.get((int) (second % SLOTS));
+            if ((value >>> COUNT_BITS) == second) total += value & COUNT_MASK;
+        }
+        return (double) total / seconds;
+    }
+}
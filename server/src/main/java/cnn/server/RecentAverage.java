@@ -0,0 +1,25 @@
+package cnn.server;
+
+// Exponentially weighted average of recent samples. It reads 0 once nothing has been
+// recorded for staleNanos, so a decision based on it cannot outlive the load behind it.
+class RecentAverage {
+    private final long staleNanos;
+    private double average;
+    private long sampledAt;
+    private boolean sampled;
+    
+    public RecentAverage(long staleNanos) {
+        this.staleNanos = staleNanos;
+    }
+    
+    public synchronized void record(double value) {
+        long now = System.nanoTime();
+        average = sampled && now - sampledAt <= staleNanos ? average + (value - average) / 8 : value;
+        sampledAt = now;
+        sampled = true;
+    }
+    
+    public synchronized double get() {
+        return sampled && System.nanoTime() - sampledAt <= staleNanos ? average : 0;
+    }
+}
@@ -0,0 +1,14 @@
+package cnn.server;
+
+import java.io.*;
+
+class RequestTooLargeException extends IOException {
+    private static final long serialVersionUID = 1L;
+    
+    final long limit;
+    
+    RequestTooLargeException(long limit) {
+        super("Request body exceeds " + limit + " bytes");
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,61 @@
+package cnn.server;
+
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.util.*;
+
+class SearchHandler implements HttpHandler {
+    static final int DEFAULT_LIMIT = 10;
+    static final int MAX_LIMIT = 100;
+    
+    private ArticleStorage storage;
+    
+    public SearchHandler(ArticleStorage storage) {
+        this.storage = storage;
+    }
+    
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            ArticleHandler.sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+        
+        InvertedIndex index = storage.getSearchIndex();
+        if (index == null) {
+            ArticleHandler.sendResponse(exchange, 404, "{\"error\":\"Search is disabled (cnn.search=false)\"}");
+            return;
+        }
+        
+        Map<String, String> params = ArticleHandler.queryParams(exchange.getRequestURI());
+        String q = params.getOrDefault("q", "").trim();
+        int limit;
+        try {
+            limit = Math.min(MAX_LIMIT, Integer.parseInt(params.getOrDefault("limit", "" + DEFAULT_LIMIT)));
+        } catch (NumberFormatException e) {
+            limit = -1;
+        }
+        if (q.isEmpty() || limit < 0) {
+            ArticleHandler.sendResponse(exchange, 400, "{\"error\":\"Expected ?q=<query>[&limit=N]\"}");
+            return;
+        }
+        
+        SearchResults results = index.search(q, limit);
+        try (Writer json = ArticleHandler.responseWriter(exchange, 200)) {
+            json.append("{\"query\":").append(ArticleHandler.jsonString(q))
+                .append(",\"total\":").append(Integer.toString(results.total))
+                .append(",\"tookMs\":").append(String.format(Locale.ROOT, "%.2f", results.tookMillis))
+                .append(",\"results\":[");
+            for (int i = 0; i < results.hits.size(); i++) {
+                SearchHit hit = results.hits.get(i);
+                if (i > 0) json.append(',');
+                json.append("{\"id\":\"").append(hit.id)
+                    .append("\",\"title\":").append(ArticleHandler.jsonString(hit.title))
+                    .append(",\"url\":").append(ArticleHandler.jsonString(hit.url))
+                    .append(",\"score\":").append(String.format(Locale.ROOT, "%.4f", hit.score))
+                    .append('}');
+            }
+            json.append("]}");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package cnn.server;
+
+class SearchHit {
+    final int docId;
+    final double score;
+    String id;
+    String title;
+    String url;
+    
+    SearchHit(int docId, double score) {
+        this.docId = docId;
+        this.score = score;
+    }
+}
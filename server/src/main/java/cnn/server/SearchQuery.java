@@ -0,0 +1,141 @@
+package cnn.server;
+
+import java.util.*;
+
+/**
+ * Parsed search query: clauses separated by OR; within a clause every word
+ * and "quoted phrase" must match (AND is implied and may be written out).
+ */
+class SearchQuery {
+    // clauses -> parts -> tokens; a part with several tokens is a phrase
+    final List<List<List<String>>> clauses = new ArrayList<>();
+    
+    static SearchQuery parse(String text) {
+        SearchQuery query = new SearchQuery();
+        List<List<String>> clause = new ArrayList<>();
+        
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = text.indexOf('"', i + 1);
+                if (end < 0) end = text.length();
+                List<String> phrase = TokenizedDoc.tokens(text.substring(i + 1, end));
+                if (!phrase.isEmpty()) clause.add(phrase);
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < text.length() && !Character.isWhitespace(text.charAt(end))
+                       && text.charAt(end) != '"') end++;
+                String word = text.substring(i, end);
+                if (word.equals("OR")) {
+                    if (!clause.isEmpty()) query.clauses.add(clause);
+                    clause = new ArrayList<>();
+                } else if (!word.equals("AND")) {
+                    // "covid-19" tokenizes to two terms, matched as a phrase
+                    List<String> tokens = TokenizedDoc.tokens(word);
+                    if (!tokens.isEmpty()) clause.add(tokens);
+                }
+                i = end;
+            }
+        }
+        if (!clause.isEmpty()) query.clauses.add(clause);
+        return query;
+    }
+    
+    boolean isEmpty() {
+        return clauses.isEmpty();
+    }
+    
+    Set<String> terms() {
+        Set<String> terms = new LinkedHashSet<>();
+        for (List<List<String>> clause : clauses) {
+            for (List<String> part : clause) terms.addAll(part);
+        }
+        return terms;
+    }
+    
+    Set<String> phraseTerms() {
+        Set<String> terms = new HashSet<>();
+        for (List<List<String>> clause : clauses) {
+            for (List<String> part : clause) {
+                if (part.size() > 1) terms.addAll(part);
+            }
+        }
+        return terms;
+    }
+    
+    /** Matching doc IDs, ascending, within one segment's postings. */
+    int[] matches(Map<String, Postings> postings) {
+        int[] result = new int[0];
+        for (List<List<String>> clause : clauses) {
+            result = union(result, matchClause(clause, postings));
+        }
+        return result;
+    }
+    
+    private static int[] matchClause(List<List<String>> clause, Map<String, Postings> postings) {
+        // Intersect every term's docs, driven by the rarest term
+        List<Postings> lists = new ArrayList<>();
+        for (List<String> part : clause) {
+            for (String term : part) {
+                Postings p = postings.get(term);
+                if (p == null) return new int[0];
+                lists.add(p);
+            }
+        }
+        lists.sort(Comparator.comparingInt(Postings::size));
+        
+        int[] candidates = lists.get(0).docs;
+        int[] matched = new int[candidates.length];
+        int count = 0;
+        for (int doc : candidates) {
+            boolean all = true;
+            for (int l = 1; l < lists.size() && all; l++) {
+                all = lists.get(l).indexOf(doc) >= 0;
+            }
+            if (all && phrasesMatch(clause, postings, doc)) matched[count++] = doc;
+        }
+        return Arrays.copyOf(matched, count);
+    }
+    
+    private static boolean phrasesMatch(List<List<String>> clause, Map<String, Postings> postings, int doc) {
+        for (List<String> part : clause) {
+            if (part.size() < 2) continue;
+            
+            Postings first = postings.get(part.get(0));
+            int i = first.indexOf(doc);
+            boolean found = false;
+            for (int at = first.positionStart[i]; at < first.positionStart[i + 1] && !found; at++) {
+                int start = first.positions[at];
+                found = true;
+                for (int t = 1; t < part.size() && found; t++) {
+                    found = postings.get(part.get(t)).hasPosition(doc, start + t);
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+    
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) return b;
+        if (b.length == 0) return a;
+        
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                out[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
@@ -0,0 +1,15 @@
+package cnn.server;
+
+import java.util.*;
+
+public class SearchResults {
+    public final int total;
+    final List<SearchHit> hits;
+    final double tookMillis;
+    
+    SearchResults(int total, List<SearchHit> hits, double tookMillis) {
+        this.total = total;
+        this.hits = hits;
+        this.tookMillis = tookMillis;
+    }
+}
@@ -0,0 +1,450 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of length-prefixed, CRC-checked records in rolling
+ * segment files. Record layout:
+ *
+ *   [int payloadLength][int crc32(payload)][payload]
+ *   payload = url, title, author, date, receivedAt, content
+ *             each as [int byteLength (-1 = null)][UTF-8 bytes]
+ *
+ * Locations are "segmentNumber:offset". A torn record at the tail of the
+ * newest segment (crash mid-append) is truncated away on open. Sealed
+ * segments get a segment-N.count sidecar so record counts need no scan.
+ *
+ * Segments starting with COMPRESSED_MAGIC hold each payload as its own
+ * ArticleCompressor stream (the CRC covers the compressed bytes), so one
+ * record still reads without touching its neighbours.
+ *
+ * openReadOnly() skips recovery and rolling and writes nothing, so another
+ * process can read a log the server is appending to; a record still being
+ * appended just ends the scan of that segment.
+ */
+class SegmentLogBackend implements StorageBackend {
+    static final byte[] MAGIC = "CNNSEG01".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] COMPRESSED_MAGIC = "CNNSEGZ1".getBytes(StandardCharsets.US_ASCII);
+    static final int RECORD_HEADER = 8;
+    
+    private final Path dir;
+    private final long segmentBytes;
+    private final ArticleCompressor compressor;
+    private final boolean readOnly;
+    
+    // Guarded by this: the active segment being appended to
+    private FileChannel active;
+    private int activeNumber;
+    private long activeSize;
+    private long activeRecords;
+    private long sealedRecords;
+    private volatile long bytesWritten;
+    
+    // Read-only mappings; the active segment's is replaced as it grows
+    private final Map<Integer, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+    
+    public SegmentLogBackend(Path dir, long segmentBytes) throws IOException {
+        this(dir, segmentBytes, new ArticleCompressor(dir, false, 0));
+    }
+    
+    public SegmentLogBackend(Path dir, long segmentBytes, ArticleCompressor compressor) throws IOException {
+        this(dir, segmentBytes, compressor, false);
+    }
+    
+    /** Opens an existing log for reading only: channels are opened READ, and nothing is recovered, rolled or written. */
+    public static SegmentLogBackend openReadOnly(Path dir, long segmentBytes) throws IOException {
+        return new SegmentLogBackend(dir, segmentBytes, new ArticleCompressor(dir, false, 0), true);
+    }
+    
+    private SegmentLogBackend(Path dir, long segmentBytes, ArticleCompressor compressor, boolean readOnly)
+            throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.compressor = compressor;
+        this.readOnly = readOnly;
+        if (readOnly) {
+            List<Integer> segments = listSegments();
+            for (int segment : segments) {
+                sealedRecords += sealedCount(segment);
+            }
+            if (!segments.isEmpty()) {
+                activeNumber = segments.get(segments.size() - 1);
+                active = FileChannel.open(segmentPath(activeNumber), StandardOpenOption.READ);
+                activeSize = active.size();
+            }
+            return;
+        }
+        Files.createDirectories(dir);
+        
+        List<Integer> segments = listSegments();
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            for (int segment : segments.subList(0, segments.size() - 1)) {
+                sealedRecords += sealedCount(segment);
+            }
+            activeNumber = segments.get(segments.size() - 1);
+            active = FileChannel.open(segmentPath(activeNumber),
+                                      StandardOpenOption.READ, StandardOpenOption.WRITE);
+            activeSize = recover(active);
+            
+            // cnn.compress changed since this segment was started: new records go to a fresh one
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            active.read(magic, 0);
+            if (!Arrays.equals(magic.array(), magic())) {
+                if (activeRecords > 0) {
+                    roll();
+                } else {
+                    active.write(ByteBuffer.wrap(magic()), 0);
+                }
+            }
+        }
+    }
+    
+    private byte[] magic() {
+        return compressor.isEnabled() ? COMPRESSED_MAGIC : MAGIC;
+    }
+    
+    private static boolean isCompressed(ByteBuffer map) {
+        byte[] magic = new byte[MAGIC.length];
+        map.get(0, magic);
+        return Arrays.equals(magic, COMPRESSED_MAGIC);
+    }
+    
+    private long sealedCount(int segment) throws IOException {
+        Path countFile = countPath(segment);
+        if (Files.exists(countFile)) {
+            return Long.parseLong(Files.readString(countFile).trim());
+        }
+        
+        // Crashed before the sidecar was written: count once and record it
+        long[] count = {0};
+        scanSegment(segment, (article, location) -> count[0]++);
+        if (!readOnly) Files.writeString(countFile, Long.toString(count[0]));
+        return count[0];
+    }
+    
+    // Validates records from the start of the segment and truncates at the first torn one
+    private long recover(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < MAGIC.length) {
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(magic()), 0);
+            return MAGIC.length;
+        }
+        
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        long end = MAGIC.length;
+        while (end < size) {
+            long next = nextRecord(map, end, size);
+            if (next < 0) break;
+            end = next;
+            activeRecords++;
+        }
+        
+        if (end < size) {
+            System.out.println("⚠️  Truncating torn tail of " + segmentPath(activeNumber).getFileName()
+                               + ": " + (size - end) + " bytes");
+            channel.truncate(end);
+            channel.force(true);
+        }
+        return end;
+    }
+    
+    // Returns the offset after a valid record at offset, or -1 if it is torn or corrupt
+    private static long nextRecord(ByteBuffer map, long offset, long size) {
+        if (offset + RECORD_HEADER > size) return -1;
+        int length = map.getInt((int) offset);
+        int crc = map.getInt((int) offset + 4);
+        if (length < 0 || offset + RECORD_HEADER + length > size) return -1;
+        
+        CRC32 checksum = new CRC32();
+        checksum.update(map.duplicate().position((int) offset + RECORD_HEADER)
+                           .limit((int) offset + RECORD_HEADER + length));
+        return (int) checksum.getValue() == crc ? offset + RECORD_HEADER + length : -1;
+    }
+    
+    @Override
+    public String write(Article article) throws IOException {
+        return writeAll(List.of(article))[0];
+    }
+    
+    @Override
+    public synchronized String[] writeAll(List<Article> articles) throws IOException {
+        if (readOnly) throw new IOException("Segment log is open read-only");
+        String[] locations = new String[articles.size()];
+        if (articles.isEmpty()) return locations;
+        
+        // Encode the whole batch first so it is appended with as few writes as possible
+        List<byte[]> records = new ArrayList<>(articles.size());
+        long batchBytes = 0;
+        for (Article article : articles) {
+            byte[] record = compressor.isEnabled() ? encodeCompressed(article) : encode(article);
+            records.add(record);
+            batchBytes += record.length;
+        }
+        
+        if (activeSize > MAGIC.length && activeSize + batchBytes > segmentBytes) {
+            roll();
+        }
+        
+        ByteBuffer out = ByteBuffer.allocate((int) Math.min(batchBytes, 1 << 22));
+        long position = activeSize;
+        active.position(activeSize);
+        try {
+            for (int i = 0; i < records.size(); i++) {
+                byte[] record = records.get(i);
+                locations[i] = activeNumber + ":" + position;
+                position += record.length;
+                
+                if (out.remaining() < record.length) {
+                    writeFully(out);
+                    if (out.capacity() < record.length) out = ByteBuffer.allocate(record.length);
+                }
+                out.put(record);
+            }
+            writeFully(out);
+        } catch (IOException e) {
+            // Drop the partial batch so none of it reappears after a restart
+            active.truncate(activeSize);
+            throw e;
+        }
+        
+        activeSize = position;
+        activeRecords += articles.size();
+        bytesWritten += batchBytes;
+        return locations;
+    }
+    
+    @Override
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+    
+    private void writeFully(ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            active.write(out);
+        }
+        out.clear();
+    }
+    
+    private void roll() throws IOException {
+        active.force(true);
+        active.close();
+        mappings.remove(activeNumber);
+        
+        Files.writeString(countPath(activeNumber), Long.toString(activeRecords));
+        sealedRecords += activeRecords;
+        activeRecords = 0;
+        openSegment(activeNumber + 1);
+    }
+    
+    private void openSegment(int number) throws IOException {
+        activeNumber = number;
+        active = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE_NEW,
+                                  StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active.write(ByteBuffer.wrap(magic()), 0);
+        activeSize = MAGIC.length;
+    }
+    
+    @Override
+    public Article read(String location) throws IOException {
+        int colon = location.indexOf(':');
+        int segment = Integer.parseInt(location.substring(0, colon));
+        long offset = Long.parseLong(location.substring(colon + 1));
+        
+        ByteBuffer map = mapping(segment);
+        long next = nextRecord(map, offset, map.limit());
+        if (next < 0) throw new IOException("Corrupt record at " + location);
+        
+        return decodeRecord(map, offset, next);
+    }
+    
+    private Article decodeRecord(ByteBuffer map, long offset, long next) throws IOException {
+        ByteBuffer payload = map.duplicate().position((int) offset + RECORD_HEADER).limit((int) next);
+        return isCompressed(map) ? decode(ByteBuffer.wrap(compressor.decompress(payload))) : decode(payload);
+    }
+    
+    // Maps a segment read-only, remapping the active one if it has grown past the old mapping
+    private ByteBuffer mapping(int segment) throws IOException {
+        MappedByteBuffer map = mappings.get(segment);
+        if (map == null || needsRemap(segment, map)) {
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) throw new IOException("Segment too large to map");
+                map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            mappings.put(segment, map);
+        }
+        return map;
+    }
+    
+    private synchronized boolean needsRemap(int segment, MappedByteBuffer map) {
+        return segment == activeNumber && map.limit() < activeSize;
+    }
+    
+    @Override
+    public void forEachArticle(Consumer<Article> sink) throws IOException {
+        // Segments are independent, so rebuild scans them in parallel
+        try {
+            listSegments().parallelStream().forEach(segment -> {
+                try {
+                    scanSegment(segment, (article, location) -> sink.accept(article));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    @Override
+    public synchronized long recordCount() {
+        return sealedRecords + activeRecords;
+    }
+    
+    @Override
+    public void scan(BiConsumer<Article, String> visitor) throws IOException {
+        for (int segment : listSegments()) {
+            scanSegment(segment, visitor);
+        }
+    }
+    
+    private void scanSegment(int segment, BiConsumer<Article, String> visitor) throws IOException {
+        ByteBuffer map = mapping(segment);
+        long size = map.limit();
+        long offset = MAGIC.length;
+        
+        while (offset < size) {
+            long next = nextRecord(map, offset, size);
+            if (next < 0) break;
+            
+            Article article = decodeRecord(map, offset, next);
+            visitor.accept(article, segment + ":" + offset);
+            offset = next;
+        }
+    }
+    
+    /** Writes every record out as a banner .txt file that CNNArticleParser can read. */
+    public int exportToText(String outDir) throws IOException {
+        TextFileBackend text = new TextFileBackend(outDir);
+        int[] exported = {0};
+        IOException[] failure = {null};
+        
+        scan((article, location) -> {
+            try {
+                text.write(article);
+                exported[0]++;
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        
+        if (failure[0] != null) throw failure[0];
+        return exported[0];
+    }
+    
+    // The encode() record with its payload replaced by the compressed payload
+    private byte[] encodeCompressed(Article article) throws IOException {
+        byte[] plain = encode(article);
+        byte[] payload = compressor.compress(Arrays.copyOfRange(plain, RECORD_HEADER, plain.length));
+        
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload.length);
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        record.putInt(payload.length).putInt((int) checksum.getValue()).put(payload);
+        return record.array();
+    }
+    
+    static byte[] encode(Article article) {
+        byte[][] fields = {
+            utf8(article.url), utf8(article.title), utf8(article.author),
+            utf8(article.date), utf8(article.receivedAt), utf8(article.content)
+        };
+        
+        int payload = 0;
+        for (byte[] field : fields) {
+            payload += 4 + (field != null ? field.length : 0);
+        }
+        
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload);
+        record.position(RECORD_HEADER);
+        for (byte[] field : fields) {
+            record.putInt(field != null ? field.length : -1);
+            if (field != null) record.put(field);
+        }
+        
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), RECORD_HEADER, payload);
+        record.putInt(0, payload);
+        record.putInt(4, (int) checksum.getValue());
+        return record.array();
+    }
+    
+    static Article decode(ByteBuffer payload) {
+        String[] fields = new String[6];
+        for (int i = 0; i < fields.length; i++) {
+            int length = payload.getInt();
+            if (length < 0) continue;
+            
+            byte[] bytes = new byte[length];
+            payload.get(bytes);
+            fields[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new Article(fields[0], fields[1], fields[2], fields[3], fields[5], fields[4]);
+    }
+    
+    private static byte[] utf8(String s) {
+        return s != null ? s.getBytes(StandardCharsets.UTF_8) : null;
+    }
+    
+    private List<Integer> listSegments() throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "segment-*.log")) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                segments.add(Integer.parseInt(name.substring(8, name.length() - 4)));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+    
+    private Path segmentPath(int number) {
+        return dir.resolve(String.format("segment-%06d.log", number));
+    }
+    
+    private Path countPath(int number) {
+        return dir.resolve(String.format("segment-%06d.count", number));
+    }
+    
+    @Override
+    public String describe() {
+        return "segment log, " + (segmentBytes >> 20) + "MB segments"
+               + (compressor.isEnabled() ? ", " + compressor.describe() : "");
+    }
+    
+    @Override
+    public synchronized void sync() throws IOException {
+        if (!readOnly) active.force(false);
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (active == null) return;
+        if (!readOnly) active.force(true);
+        active.close();
+    }
+}
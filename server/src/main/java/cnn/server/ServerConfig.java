@@ -0,0 +1,137 @@
+package cnn.server;
+
+import java.util.*;
+
+public class ServerConfig {
+    public int port = 8080;
+    public String baseDir = "articles_data";
+    
+    // "virtual" = one virtual thread per request, "fixed" = bounded platform pool
+    public String executor = "virtual";
+    public int threads = Runtime.getRuntime().availableProcessors() * 2;
+    
+    // "text" = one .txt file per article, "segment" = append-only segment log
+    public String storage = "text";
+    public long segmentBytes = 64L << 20;
+    
+    // Deflate each stored article against a preset dictionary, trained from the first
+    // dictionaryTrainAfter articles written (0 keeps the built-in one)
+    public boolean compress = false;
+    public int dictionaryTrainAfter = 1000;
+    
+    // Near-duplicate content: "off", "flag" (save and report) or "reject" (409)
+    public String nearDuplicates = "flag";
+    public int nearDuplicateBits = 3;
+    
+    // Write-behind: queue saves and write them in groups from one writer thread.
+    // durability "fsync" acks after the group is synced, "enqueue" acks once queued.
+    // flushMillis 0 writes whatever queued up during the previous group's fsync
+    public boolean writeBehind = false;
+    public String durability = "fsync";
+    public int queueCapacity = 10_000;
+    public int flushRecords = 256;
+    public long flushMillis = 0;
+    
+    // Full-text index for /api/articles/search, flushed to a segment every searchFlushDocs articles
+    public boolean search = true;
+    public int searchFlushDocs = 10_000;
+    
+    // Console line per saved article / batch / group commit; errors are always logged
+    public boolean logSaves = true;
+    
+    // Admission control: connections the OS queues before accept, requests handled at
+    // once (0 = no limit) and the largest request bodies, single and batch
+    public int backlog = 256;
+    public int maxInFlight = 256;
+    public long maxBodyBytes = 1L << 20;
+    public long maxBatchBytes = 256L << 20;
+    
+    // Per-client token bucket in requests per second (0 = off), and the burst it allows
+    public double rateLimit = 0;
+    public int rateBurst = 20;
+    
+    // POSTs get 503 while the write-behind queue is this full (percent, 0 = off)
+    // or recent writes take longer than shedWriteMillis (0 = off)
+    public int shedQueuePercent = 90;
+    public long shedWriteMillis = 0;
+    
+    public static ServerConfig withBaseDir(String baseDir) {
+        ServerConfig config = new ServerConfig();
+        config.baseDir = baseDir;
+        return config;
+    }
+    
+    public static ServerConfig fromSystemProperties() {
+        ServerConfig config = new ServerConfig();
+        config.port = Integer.getInteger("cnn.port", config.port);
+        config.baseDir = System.getProperty("cnn.dir", config.baseDir);
+        config.executor = System.getProperty("cnn.executor", config.executor);
+        config.threads = Integer.getInteger("cnn.threads", config.threads);
+        config.storage = System.getProperty("cnn.storage", config.storage);
+        config.segmentBytes = Long.getLong("cnn.segment.mb", config.segmentBytes >> 20) << 20;
+        config.compress = Boolean.parseBoolean(System.getProperty("cnn.compress", "false"));
+        config.dictionaryTrainAfter = Integer.getInteger("cnn.dict.train", config.dictionaryTrainAfter);
+        config.nearDuplicates = System.getProperty("cnn.neardup", config.nearDuplicates);
+        config.nearDuplicateBits = Integer.getInteger("cnn.neardup.bits", config.nearDuplicateBits);
+        config.writeBehind = Boolean.parseBoolean(System.getProperty("cnn.writebehind", "false"));
+        config.durability = System.getProperty("cnn.durability", config.durability);
+        config.queueCapacity = Integer.getInteger("cnn.queue.capacity", config.queueCapacity);
+        config.flushRecords = Integer.getInteger("cnn.flush.records", config.flushRecords);
+        config.flushMillis = Long.getLong("cnn.flush.ms", config.flushMillis);
+        config.search = Boolean.parseBoolean(System.getProperty("cnn.search", "true"));
+        config.searchFlushDocs = Integer.getInteger("cnn.search.flush", config.searchFlushDocs);
+        config.logSaves = Boolean.parseBoolean(System.getProperty("cnn.log.saves", "true"));
+        config.backlog = Integer.getInteger("cnn.backlog", config.backlog);
+        config.maxInFlight = Integer.getInteger("cnn.max.inflight", config.maxInFlight);
+        config.maxBodyBytes = Long.getLong("cnn.max.body.kb", config.maxBodyBytes >> 10) << 10;
+        config.maxBatchBytes = Long.getLong("cnn.max.batch.mb", config.maxBatchBytes >> 20) << 20;
+        config.rateLimit = Double.parseDouble(System.getProperty("cnn.rate", "0"));
+        config.rateBurst = Integer.getInteger("cnn.rate.burst", config.rateBurst);
+        config.shedQueuePercent = Integer.getInteger("cnn.shed.queue", config.shedQueuePercent);
+        config.shedWriteMillis = Long.getLong("cnn.shed.write.ms", config.shedWriteMillis);
+        
+        if (!config.executor.equals("virtual") && !config.executor.equals("fixed")) {
+            throw new IllegalArgumentException("cnn.executor must be 'virtual' or 'fixed'");
+        }
+        if (config.threads < 1) {
+            throw new IllegalArgumentException("cnn.threads must be at least 1");
+        }
+        if (!List.of("off", "flag", "reject").contains(config.nearDuplicates)) {
+            throw new IllegalArgumentException("cnn.neardup must be 'off', 'flag' or 'reject'");
+        }
+        if (config.nearDuplicateBits < 0 || config.nearDuplicateBits > NearDuplicateIndex.MAX_BITS) {
+            throw new IllegalArgumentException("cnn.neardup.bits must be between 0 and "
+                                               + NearDuplicateIndex.MAX_BITS);
+        }
+        if (config.segmentBytes < (1L << 20) || config.segmentBytes > (1L << 30)) {
+            throw new IllegalArgumentException("cnn.segment.mb must be between 1 and 1024");
+        }
+        if (config.dictionaryTrainAfter < 0) {
+            throw new IllegalArgumentException("cnn.dict.train must not be negative");
+        }
+        if (!config.durability.equals("fsync") && !config.durability.equals("enqueue")) {
+            throw new IllegalArgumentException("cnn.durability must be 'fsync' or 'enqueue'");
+        }
+        if (config.queueCapacity < 1 || config.flushRecords < 1 || config.flushMillis < 0) {
+            throw new IllegalArgumentException(
+                "cnn.queue.capacity and cnn.flush.records must be positive, cnn.flush.ms non-negative");
+        }
+        if (config.searchFlushDocs < 1) {
+            throw new IllegalArgumentException("cnn.search.flush must be at least 1");
+        }
+        if (config.backlog < 1 || config.maxInFlight < 0) {
+            throw new IllegalArgumentException("cnn.backlog must be positive, cnn.max.inflight non-negative");
+        }
+        if (config.maxBodyBytes < 1 || config.maxBatchBytes < 1) {
+            throw new IllegalArgumentException("cnn.max.body.kb and cnn.max.batch.mb must be positive");
+        }
+        if (!(config.rateLimit >= 0) || config.rateBurst < 1) {
+            throw new IllegalArgumentException("cnn.rate must not be negative, cnn.rate.burst at least 1");
+        }
+        if (config.shedQueuePercent < 0 || config.shedQueuePercent > 100 || config.shedWriteMillis < 0) {
+            throw new IllegalArgumentException(
+                "cnn.shed.queue must be between 0 and 100, cnn.shed.write.ms non-negative");
+        }
+        return config;
+    }
+}
@@ -0,0 +1,64 @@
+package cnn.server;
+
+/**
+ * 64-bit SimHash of article text over 3-word shingles. Similar texts get
+ * hashes a few bits apart; 0 means the text is too short to fingerprint.
+ */
+final class SimHash {
+    static final int MIN_SHINGLES = 16;
+    
+    private SimHash() {
+    }
+    
+    public static long of(String text) {
+        if (text == null) return 0;
+        
+        int[] weights = new int[64];
+        long w1 = 0;
+        long w2 = 0;
+        int words = 0;
+        int shingles = 0;
+        
+        // Hash words on the fly (lowercased letters and digits) without substrings
+        long word = 0;
+        boolean inWord = false;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word = (word ^ Character.toLowerCase(c)) * 0x100000001b3L;
+                inWord = true;
+                continue;
+            }
+            if (!inWord) continue;
+            
+            if (++words >= 3) {
+                long shingle = fmix(w2 * 0x9E3779B97F4A7C15L + w1 * 31 + word);
+                for (int b = 0; b < 64; b++) {
+                    weights[b] += ((shingle >>> b) & 1) != 0 ? 1 : -1;
+                }
+                shingles++;
+            }
+            w2 = w1;
+            w1 = word;
+            word = 0;
+            inWord = false;
+        }
+        
+        if (shingles < MIN_SHINGLES) return 0;
+        
+        long hash = 0;
+        for (int b = 0; b < 64; b++) {
+            if (weights[b] > 0) hash |= 1L << b;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+    
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb93fe53a87cbL;
+        k ^= k >>> 33;
+        return k;
+    }
+}
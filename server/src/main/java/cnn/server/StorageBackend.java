@@ -0,0 +1,57 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+public interface StorageBackend extends Closeable {
+    
+    /** Persists one article and returns its location (file name or segment offset). */
+    String write(Article article) throws IOException;
+    
+    /**
+     * Persists a batch, returning each article's location in order, or null
+     * where that article alone could not be written.
+     */
+    String[] writeAll(List<Article> articles) throws IOException;
+    
+    /** Forces everything written so far to stable storage. */
+    void sync() throws IOException;
+    
+    /** Reads back the article stored at a location returned by write. */
+    Article read(String location) throws IOException;
+    
+    /** Visits every stored article, possibly in parallel: sink must be thread-safe. */
+    void forEachArticle(Consumer<Article> sink) throws IOException;
+    
+    /**
+     * Number of stored records, obtained without reading them. Records that
+     * forEachArticle and scan skip as unreadable are not counted, so an index
+     * built from those passes matches it.
+     */
+    long recordCount() throws IOException;
+    
+    /** Visits every stored article with its location, in storage order. */
+    void scan(BiConsumer<Article, String> visitor) throws IOException;
+    
+    /** Bytes of article data written since the backend was opened. */
+    long bytesWritten();
+    
+    String describe();
+    
+    static StorageBackend open(ServerConfig config) throws IOException {
+        switch (config.storage) {
+            case "text":
+                return new TextFileBackend(config.baseDir, new ArticleCompressor(
+                    Paths.get(config.baseDir), config.compress, config.dictionaryTrainAfter));
+            case "segment":
+                Path segments = Paths.get(config.baseDir, "segments");
+                return new SegmentLogBackend(segments, config.segmentBytes, new ArticleCompressor(
+                    segments, config.compress, config.dictionaryTrainAfter));
+            default:
+                throw new IllegalArgumentException("Unknown storage backend: " + config.storage);
+        }
+    }
+}
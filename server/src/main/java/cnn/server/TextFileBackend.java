@@ -0,0 +1,257 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+// One banner-formatted .txt file per article (the format CNNArticleParser reads),
+// or a .txt.dfl file holding the same text compressed by ArticleCompressor
+class TextFileBackend implements StorageBackend {
+    private static final String BANNER = "=".repeat(80);
+    static final String COMPRESSED_SUFFIX = ".txt.dfl";
+    static final String UNREADABLE_LIST = "unreadable.list";
+    
+    private String baseDir;
+    private final ArticleCompressor compressor;
+    
+    // Files written since the last sync()
+    private final Set<String> unsynced = ConcurrentHashMap.newKeySet();
+    private final LongAdder bytesWritten = new LongAdder();
+    
+    // Files the last full pass could not read, kept in unreadable.list across restarts
+    private final Set<String> unreadable = ConcurrentHashMap.newKeySet();
+    
+    public TextFileBackend(String baseDir) {
+        this(baseDir, new ArticleCompressor(Paths.get(baseDir), false, 0));
+    }
+    
+    public TextFileBackend(String baseDir, ArticleCompressor compressor) {
+        this.baseDir = baseDir;
+        this.compressor = compressor;
+        new File(baseDir).mkdirs();
+        
+        try {
+            Path list = Paths.get(baseDir, UNREADABLE_LIST);
+            if (Files.exists(list)) unreadable.addAll(Files.readAllLines(list, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Without the list the indexes are just rebuilt once more
+        }
+    }
+    
+    @Override
+    public String write(Article article) throws IOException {
+        // Generate filename
+        String id = article.getId();
+        String safeTitle = sanitizeFilename(article.title);
+        String filename = id + "_" + safeTitle + (compressor.isEnabled() ? COMPRESSED_SUFFIX : ".txt");
+        
+        // Render the whole file up front so it goes to disk in one write
+        byte[] text = render(article).getBytes(StandardCharsets.UTF_8);
+        byte[] stored = compressor.isEnabled() ? compressor.compress(text) : text;
+        Files.write(Paths.get(baseDir, filename), stored);
+        unsynced.add(filename);
+        bytesWritten.add(stored.length);
+        return filename;
+    }
+    
+    @Override
+    public long bytesWritten() {
+        return bytesWritten.sum();
+    }
+    
+    @Override
+    public String[] writeAll(List<Article> articles) {
+        String[] locations = new String[articles.size()];
+        
+        // File creation dominates, so write the batch's files in parallel
+        IntStream.range(0, locations.length).parallel().forEach(i -> {
+            try {
+                locations[i] = write(articles.get(i));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("❌ Failed to save " + articles.get(i).url + ": " + e.getMessage());
+            }
+        });
+        return locations;
+    }
+    
+    @Override
+    public Article read(String location) throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(baseDir, location));
+        if (location.endsWith(COMPRESSED_SUFFIX)) {
+            bytes = compressor.decompress(ByteBuffer.wrap(bytes));
+        }
+        return parse(new String(bytes, StandardCharsets.UTF_8));
+    }
+    
+    // Either format is read whatever cnn.compress is now set to
+    private static boolean isArticleFile(File dir, String name) {
+        return name.endsWith(".txt") || name.endsWith(COMPRESSED_SUFFIX);
+    }
+    
+    @Override
+    public void forEachArticle(Consumer<Article> sink) throws IOException {
+        String[] names = new File(baseDir).list(TextFileBackend::isArticleFile);
+        if (names == null) return;
+        
+        Set<String> skipped = ConcurrentHashMap.newKeySet();
+        Arrays.stream(names).parallel().forEach(name -> {
+            try {
+                sink.accept(read(name));
+            } catch (IOException e) {
+                // Skip unreadable files
+                skipped.add(name);
+            }
+        });
+        setUnreadable(skipped);
+    }
+    
+    @Override
+    public long recordCount() {
+        String[] names = new File(baseDir).list(TextFileBackend::isArticleFile);
+        if (names == null) return 0;
+        
+        long count = 0;
+        for (String name : names) {
+            if (!unreadable.contains(name)) count++;
+        }
+        return count;
+    }
+    
+    @Override
+    public void scan(BiConsumer<Article, String> visitor) throws IOException {
+        String[] names = new File(baseDir).list(TextFileBackend::isArticleFile);
+        if (names == null) return;
+        
+        Arrays.sort(names);
+        Set<String> skipped = new HashSet<>();
+        for (String name : names) {
+            try {
+                visitor.accept(read(name), name);
+            } catch (IOException e) {
+                // Skip unreadable files, as forEachArticle does
+                skipped.add(name);
+            }
+        }
+        setUnreadable(skipped);
+    }
+    
+    // Without this, every index built from a pass would look stale against recordCount
+    // and be rebuilt on every start
+    private void setUnreadable(Set<String> skipped) throws IOException {
+        if (skipped.equals(unreadable)) return;
+        unreadable.retainAll(skipped);
+        unreadable.addAll(skipped);
+        
+        Path list = Paths.get(baseDir, UNREADABLE_LIST);
+        if (skipped.isEmpty()) {
+            Files.deleteIfExists(list);
+        } else {
+            Files.write(list, new TreeSet<>(skipped), StandardCharsets.UTF_8);
+        }
+    }
+    
+    @Override
+    public void sync() throws IOException {
+        List<String> names = new ArrayList<>(unsynced);
+        unsynced.removeAll(names);
+        if (names.isEmpty()) return;
+        
+        names.parallelStream().forEach(name -> {
+            try (FileChannel channel = FileChannel.open(Paths.get(baseDir, name), StandardOpenOption.WRITE)) {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        
+        // New directory entries must be durable too; not every platform can open a directory
+        try (FileChannel dir = FileChannel.open(Paths.get(baseDir), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+    
+    @Override
+    public String describe() {
+        return compressor.isEnabled() ? "text files, " + compressor.describe() : "text files";
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+    static String render(Article article) {
+        int contentLength = article.content != null ? article.content.length() : 4;
+        StringBuilder out = new StringBuilder(contentLength + 1024);
+        
+        out.append(BANNER).append("\nCNN ARTICLE\n").append(BANNER).append("\n\n");
+        
+        out.append("URL: ").append(article.url).append('\n');
+        out.append("Title: ").append(article.title).append('\n');
+        out.append("Author: ").append(article.author).append('\n');
+        out.append("Date: ").append(article.date).append('\n');
+        out.append("Received: ").append(article.receivedAt).append('\n');
+        TextStats stats = article.getStats();
+        out.append("Word Count: ").append(stats.words).append('\n');
+        out.append("Sentences: ").append(stats.sentences).append('\n');
+        out.append("Characters: ").append(stats.characters).append('\n');
+        out.append("Paragraphs: ").append(stats.paragraphs).append('\n');
+        
+        out.append('\n');
+        out.append(BANNER).append("\nCONTENT\n").append(BANNER).append("\n\n");
+        
+        out.append(article.content);
+        
+        out.append("\n\n");
+        out.append(BANNER).append("\nEND OF ARTICLE\n").append(BANNER).append('\n');
+        return out.toString();
+    }
+    
+    // Inverse of render: header fields up to the CONTENT banner, then the body
+    static Article parse(String text) {
+        Map<String, String> fields = new HashMap<>();
+        String contentMarker = BANNER + "\nCONTENT\n" + BANNER + "\n\n";
+        int contentStart = text.indexOf(contentMarker);
+        String header = contentStart >= 0 ? text.substring(0, contentStart) : text;
+        
+        for (String line : header.split("\n")) {
+            int colon = line.indexOf(": ");
+            if (colon > 0) fields.putIfAbsent(line.substring(0, colon), line.substring(colon + 2));
+        }
+        
+        String content = "";
+        if (contentStart >= 0) {
+            int from = contentStart + contentMarker.length();
+            int to = text.lastIndexOf("\n\n" + BANNER + "\nEND OF ARTICLE");
+            content = to >= from ? text.substring(from, to) : text.substring(from);
+        }
+        
+        return new Article(fields.getOrDefault("URL", ""), fields.getOrDefault("Title", ""),
+                           fields.getOrDefault("Author", ""), fields.getOrDefault("Date", ""),
+                           content, fields.getOrDefault("Received", ""));
+    }
+    
+    static String sanitizeFilename(String title) {
+        if (title == null) return "untitled";
+        
+        // Remove special characters
+        String safe = title.replaceAll("[^a-zA-Z0-9-_ ]", "");
+        safe = safe.trim().replaceAll("\\s+", "_");
+        
+        // Limit length
+        if (safe.length() > 50) {
+            safe = safe.substring(0, 50);
+        }
+        
+        return safe;
+    }
+}
@@ -0,0 +1,68 @@
+package cnn.server;
+
+import java.util.*;
+
+// Lowercased letter/digit runs with their positions; the title is indexed ahead of the content
+class TokenizedDoc {
+    static final int MAX_TOKEN = 64;
+    
+    long fingerprint;
+    String title;
+    String url;
+    int length;
+    Map<String, int[]> positions = new HashMap<>();
+    
+    static TokenizedDoc of(Article article) {
+        TokenizedDoc doc = new TokenizedDoc();
+        doc.fingerprint = article.getFingerprint();
+        doc.title = article.title != null ? article.title : "";
+        doc.url = article.url != null ? article.url : "";
+        
+        Map<String, int[]> positions = doc.positions;
+        // Leave a gap after the title so phrases cannot span the two fields
+        int next = tokenize(doc.title, 0, (term, position) -> addPosition(positions, term, position));
+        next = tokenize(article.content, next + 1, (term, position) -> addPosition(positions, term, position));
+        doc.length = next;
+        
+        // Trim each list to its count (stored in slot 0 while building)
+        positions.replaceAll((term, list) -> Arrays.copyOfRange(list, 1, list[0] + 1));
+        return doc;
+    }
+    
+    private static void addPosition(Map<String, int[]> positions, String term, int position) {
+        int[] list = positions.computeIfAbsent(term, t -> new int[5]);
+        if (list[0] + 1 == list.length) {
+            list = Arrays.copyOf(list, list.length * 2);
+            positions.put(term, list);
+        }
+        list[++list[0]] = position;
+    }
+    
+    interface TokenSink {
+        void accept(String term, int position);
+    }
+    
+    /** Emits each token of text at consecutive positions from first; returns the next free position. */
+    static int tokenize(String text, int first, TokenSink sink) {
+        if (text == null) return first;
+        
+        int position = first;
+        StringBuilder token = new StringBuilder();
+        for (int i = 0, length = text.length(); i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                if (token.length() <= MAX_TOKEN) sink.accept(token.toString(), position++);
+                token.setLength(0);
+            }
+        }
+        return position;
+    }
+    
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(text, 0, (term, position) -> tokens.add(term));
+        return tokens;
+    }
+}
@@ -0,0 +1,226 @@
+package cnn.server;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Dedup index kept as 64-bit fingerprints of canonical URLs instead of URL
+ * Strings, plus each article's SimHash for near-duplicate detection
+ * (stored as 0, and never computed, under cnn.neardup=off). In memory it
+ * is an open-addressing primitive set (~16 bytes per URL) and a
+ * NearDuplicateIndex; on disk it is url.index, an append-only run of
+ * [fingerprint][simHash] pairs behind an 8-byte magic, so startup is one
+ * sequential read. The file is rebuilt from the backend (in parallel) when
+ * it is missing, corrupt, from an older version, or its entry count
+ * disagrees with the backend's record count. A file written under
+ * cnn.neardup=off carries NO_SIMHASH_MAGIC and is rebuilt the same way,
+ * hashes included, once near-duplicate checks are turned on.
+ */
+class UrlIndex implements Closeable {
+    static final byte[] MAGIC = "CNNURL02".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] NO_SIMHASH_MAGIC = "CNNURL2N".getBytes(StandardCharsets.US_ASCII);
+    static final int ENTRY = 16;
+    
+    private final Path file;
+    private final LongHashSet fingerprints;
+    private final NearDuplicateIndex nearDuplicates;
+    private final String nearDuplicatePolicy;
+    private FileChannel appender;
+    private boolean missingSimHashes;
+    
+    private UrlIndex(Path file, int expected, ServerConfig config) {
+        this.file = file;
+        this.fingerprints = new LongHashSet(expected);
+        this.nearDuplicates = new NearDuplicateIndex(config.nearDuplicateBits, expected);
+        this.nearDuplicatePolicy = config.nearDuplicates;
+    }
+    
+    public static UrlIndex open(Path file, StorageBackend backend, ServerConfig config)
+            throws IOException {
+        long records = backend.recordCount();
+        UrlIndex index = new UrlIndex(file, (int) Math.max(records, 16), config);
+        
+        if (!index.load(records)) {
+            long start = System.nanoTime();
+            if (index.missingSimHashes) {
+                System.out.println("🔧 URL index was written with cnn.neardup=off; rebuilding it with SimHashes");
+            }
+            index = new UrlIndex(file, (int) Math.max(records, 16), config);
+            index.writeAll(index.rebuild(backend));
+            if (records > 0) System.out.printf("🔧 Rebuilt URL index from %d articles in %d ms%n",
+                              records, (System.nanoTime() - start) / 1_000_000);
+        }
+        
+        index.appender = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return index;
+    }
+    
+    // Returns false if the file is missing, corrupt, stale, or lacks the
+    // SimHashes the policy needs
+    private boolean load(long expected) throws IOException {
+        if (!Files.exists(file)) return false;
+        
+        boolean hashed;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAGIC.length || (size - MAGIC.length) % ENTRY != 0) return false;
+            if ((size - MAGIC.length) / ENTRY != expected) return false;
+            
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            channel.read(magic);
+            hashed = Arrays.equals(magic.array(), MAGIC);
+            if (!hashed && !Arrays.equals(magic.array(), NO_SIMHASH_MAGIC)) return false;
+            if (!hashed && !isOff()) {
+                missingSimHashes = true;
+                return false;
+            }
+            
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.remaining() >= ENTRY) {
+                    add(buffer.getLong(), buffer.getLong());
+                }
+                buffer.compact();
+            }
+        }
+        // Entries appended from now on carry no SimHash, so say so before the first one
+        if (hashed && isOff()) markUnhashed();
+        return true;
+    }
+    
+    private void markUnhashed() throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            out.write(ByteBuffer.wrap(NO_SIMHASH_MAGIC), 0);
+            out.force(true);
+        }
+    }
+    
+    private boolean isOff() {
+        return nearDuplicatePolicy.equals("off");
+    }
+    
+    // Returns [fingerprint, simHash] pairs, one per stored record, for writeAll
+    private long[] rebuild(StorageBackend backend) throws IOException {
+        long[][] entries = {new long[1024]};
+        int[] count = {0};
+        
+        backend.forEachArticle(article -> {
+            long fingerprint = article.getFingerprint();
+            long simHash = simHash(article);
+            synchronized (this) {
+                add(fingerprint, simHash);
+                if (count[0] + 2 > entries[0].length) {
+                    entries[0] = Arrays.copyOf(entries[0], entries[0].length * 2);
+                }
+                entries[0][count[0]++] = fingerprint;
+                entries[0][count[0]++] = simHash;
+            }
+        });
+        return Arrays.copyOf(entries[0], count[0]);
+    }
+    
+    private void add(long fingerprint, long simHash) {
+        fingerprints.add(fingerprint);
+        if (simHash != 0 && !isOff()) nearDuplicates.add(simHash, fingerprint);
+    }
+    
+    // SimHash reads the whole body, so skip it when nothing will compare it
+    private long simHash(Article article) {
+        return isOff() ? 0 : article.getSimHash();
+    }
+    
+    // Rewrites url.index via a temp file + atomic rename
+    private void writeAll(long[] entries) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.put(isOff() ? NO_SIMHASH_MAGIC : MAGIC);
+            for (long value : entries) {
+                if (!buffer.hasRemaining()) {
+                    drain(out, buffer);
+                }
+                buffer.putLong(value);
+            }
+            drain(out, buffer);
+            out.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) out.write(buffer);
+        buffer.clear();
+    }
+    
+    /**
+     * Claims an article before it is written. Returns false if its canonical
+     * URL is already stored or in flight, or if its content is a near-duplicate
+     * under the "reject" policy. A near-duplicate match (flagged or rejected)
+     * is recorded in article.nearDuplicateOf.
+     */
+    public boolean reserve(Article article) {
+        if (!fingerprints.add(article.getFingerprint())) return false;
+        long simHash = simHash(article);
+        if (simHash == 0) return true;
+        
+        long match = nearDuplicates.findOrAdd(simHash, article.getFingerprint(),
+                                              nearDuplicatePolicy.equals("reject"));
+        if (match != 0) {
+            article.nearDuplicateOf = Article.toId(match);
+            if (nearDuplicatePolicy.equals("reject")) {
+                fingerprints.remove(article.getFingerprint());
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /** Drops a reservation whose write failed. */
+    public void release(Article article) {
+        fingerprints.remove(article.getFingerprint());
+        long simHash = simHash(article);
+        if (simHash != 0) nearDuplicates.remove(simHash, article.getFingerprint());
+    }
+    
+    /**
+     * Records successfully written articles in url.index. A failure here only
+     * leaves the file stale, which the next startup detects and rebuilds.
+     */
+    public void commit(List<Article> articles) {
+        if (articles.isEmpty()) return;
+        
+        ByteBuffer buffer = ByteBuffer.allocate(articles.size() * ENTRY);
+        for (Article article : articles) {
+            buffer.putLong(article.getFingerprint()).putLong(simHash(article));
+        }
+        buffer.flip();
+        
+        try {
+            synchronized (this) {
+                while (buffer.hasRemaining()) appender.write(buffer);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️  URL index append failed, will rebuild on restart: " + e.getMessage());
+        }
+    }
+    
+    public boolean contains(String url) {
+        return fingerprints.contains(Fingerprint.of(Article.canonicalUrl(url)));
+    }
+    
+    public int size() {
+        return fingerprints.size();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        appender.close();
+    }
+}
@@ -0,0 +1,24 @@
+package cnn.server;
+
+import java.nio.ByteBuffer;
+
+// LEB128-style unsigned varints: 7 bits per byte, high bit set on all but the last
+class VarInt {
+    static int write(byte[] out, int at, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[at++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[at++] = (byte) value;
+        return at;
+    }
+    
+    static int read(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+}
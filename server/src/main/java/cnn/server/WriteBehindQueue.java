@@ -0,0 +1,139 @@
+package cnn.server;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Bounded queue between the HTTP handlers and storage. A single writer
+ * thread drains it in groups, flushing once a group reaches maxRecords or
+ * flushMillis after its first article arrived, and completes each
+ * article's future with its location (null result = failed). Submitting
+ * blocks while the queue is full, which pushes back on scrapers.
+ */
+class WriteBehindQueue implements Closeable {
+    
+    interface GroupWriter {
+        String[] write(List<Article> group);
+    }
+    
+    private static class Pending {
+        final Article article;
+        final CompletableFuture<String> written = new CompletableFuture<>();
+        
+        Pending(Article article) {
+            this.article = article;
+        }
+    }
+    
+    private final BlockingQueue<Pending> queue;
+    private final int maxRecords;
+    private final long flushNanos;
+    private final GroupWriter groupWriter;
+    private final boolean logCommits;
+    private final Thread writer;
+    private volatile boolean closed;
+    
+    public WriteBehindQueue(int capacity, int maxRecords, long flushMillis, boolean logCommits,
+                            GroupWriter groupWriter) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxRecords = maxRecords;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.groupWriter = groupWriter;
+        this.logCommits = logCommits;
+        this.writer = new Thread(this::run, "write-behind");
+        this.writer.start();
+    }
+    
+    public CompletableFuture<String> submit(Article article) throws IOException {
+        if (closed) throw new IOException("Storage is shutting down");
+        
+        Pending pending = new Pending(article);
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing article", e);
+        }
+        // close() may have run during put, and the writer may have seen an empty queue and
+        // exited; it never exits while this is queued, so taking it back means nobody will write it
+        if (closed && queue.remove(pending)) throw new IOException("Storage is shutting down");
+        return pending.written;
+    }
+    
+    public int depth() {
+        return queue.size();
+    }
+    
+    private void run() {
+        List<Pending> group = new ArrayList<>(maxRecords);
+        while (true) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && queue.isEmpty()) return;
+                    continue;
+                }
+                
+                group.add(first);
+                long deadline = System.nanoTime() + flushNanos;
+                while (group.size() < maxRecords) {
+                    queue.drainTo(group, maxRecords - group.size());
+                    long wait = deadline - System.nanoTime();
+                    if (group.size() >= maxRecords || wait <= 0 || closed) break;
+                    
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    group.add(next);
+                }
+                
+                flush(group);
+                group.clear();
+            } catch (InterruptedException e) {
+                // close() does not interrupt (that would close the backend's channels mid-write);
+                // if something else does, stop taking articles and drain what is left
+                closed = true;
+            }
+        }
+    }
+    
+    private void flush(List<Pending> group) {
+        List<Article> articles = new ArrayList<>(group.size());
+        for (Pending pending : group) {
+            articles.add(pending.article);
+        }
+        
+        long start = System.nanoTime();
+        String[] locations;
+        try {
+            locations = groupWriter.write(articles);
+        } catch (RuntimeException e) {
+            locations = new String[group.size()];
+        }
+        
+        int written = 0;
+        for (int i = 0; i < group.size(); i++) {
+            if (locations[i] != null) {
+                group.get(i).written.complete(locations[i]);
+                written++;
+            } else {
+                group.get(i).written.completeExceptionally(new IOException("Failed to save"));
+            }
+        }
+        
+        if (!logCommits) return;
+        System.out.printf("💾 Committed %d/%d articles in %.1f ms (queue: %d)%n",
+                          written, group.size(), (System.nanoTime() - start) / 1e6, queue.size());
+    }
+    
+    /** Stops accepting articles and blocks until everything queued is written. */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
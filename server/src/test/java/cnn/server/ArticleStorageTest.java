@@ -0,0 +1,118 @@
+package cnn.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpServer;
+import java.net.URI;
+import java.net.http.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/** Duplicate detection under concurrent POSTs of the same article, for each storage mode. */
+class ArticleStorageTest {
+    static final int CLIENTS = 16;
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"text", "segment", "text+writebehind", "segment+writebehind"})
+    void concurrentPostsOfOneUrlStoreOneArticle(String mode) throws Exception {
+        ServerConfig config = config(dir, mode);
+        ArticleStorage storage = new ArticleStorage(config);
+        HttpServer server = CNNArticleServer.createServer(config, storage);
+        server.start();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/api/articles");
+            HttpClient http = HttpClient.newHttpClient();
+            // Two spellings of one URL, which canonicalize to the same article
+            String[] urls = {"https://www.cnn.com/2025/12/19/us/story/index.html",
+                             "https://WWW.CNN.com/2025/12/19/us/story/index.html?utm_source=x"};
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                String body = "{\"url\":\"" + urls[c % 2] + "\",\"title\":\"Story\",\"author\":\"A\","
+                              + "\"date\":\"2025-12-19\",\"content\":\"Body text of the story.\"}";
+                statuses.add(clients.submit(() -> {
+                    start.await();
+                    return http.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(body))
+                                                .build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                }));
+            }
+            start.countDown();
+
+            Map<Integer, Integer> counts = new TreeMap<>();
+            for (Future<Integer> status : statuses) counts.merge(status.get(30, TimeUnit.SECONDS), 1, Integer::sum);
+            assertEquals(Map.of(201, 1, 409, CLIENTS - 1), counts);
+        } finally {
+            clients.shutdownNow();
+            server.stop(0);
+            storage.close();
+        }
+
+        try (StorageBackend backend = StorageBackend.open(config(dir, mode))) {
+            assertEquals(1, backend.recordCount());
+            List<String> stored = new ArrayList<>();
+            backend.scan((article, location) -> stored.add(article.url));
+            assertEquals(1, stored.size());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"text", "segment"})
+    void duplicatesAreRejectedAfterRestart(String mode) throws Exception {
+        ArticleStorage storage = new ArticleStorage(config(dir, mode));
+        storage.save(new Article("https://www.cnn.com/2025/12/19/us/story", "Story", "A", "2025-12-19", "Body."));
+        storage.close();
+
+        ArticleStorage restarted = new ArticleStorage(config(dir, mode));
+        try {
+            assertThrows(DuplicateArticleException.class, () -> restarted.save(
+                new Article("https://www.cnn.com/2025/12/19/us/story/", "Story", "A", "2025-12-19", "Body.")));
+            assertEquals(1, restarted.getCount());
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"text", "segment"})
+    void nearDuplicatesSavedUnderOffAreFoundOnceTheCheckIsOn(String mode) throws Exception {
+        String body = "The city council met on Friday to vote on the new budget, which adds money for parks, "
+                      + "schools and roads while cutting the cost of running the city offices next year.";
+        ServerConfig off = config(dir, mode);
+        off.nearDuplicates = "off";
+        ArticleStorage storage = new ArticleStorage(off);
+        storage.save(new Article("https://www.cnn.com/2025/12/19/us/budget", "Budget", "A", "2025-12-19", body));
+        storage.close();
+        // Reopened under off: the file stays marked as unhashed even though it is loaded
+        new ArticleStorage(off).close();
+
+        ServerConfig reject = config(dir, mode);
+        reject.nearDuplicates = "reject";
+        ArticleStorage restarted = new ArticleStorage(reject);
+        try {
+            assertThrows(DuplicateArticleException.class, () -> restarted.save(
+                new Article("https://www.cnn.com/2025/12/20/us/budget-vote", "Budget vote", "B", "2025-12-20", body)));
+            assertEquals(1, restarted.getCount());
+        } finally {
+            restarted.close();
+        }
+    }
+
+    static ServerConfig config(Path dir, String mode) {
+        ServerConfig config = ServerConfig.withBaseDir(dir.toString());
+        config.port = 0;
+        config.storage = mode.startsWith("segment") ? "segment" : "text";
+        config.writeBehind = mode.endsWith("+writebehind");
+        config.search = false;
+        config.logSaves = false;
+        return config;
+    }
+}
@@ -0,0 +1,122 @@
+package cnn.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Recovery of the active segment after a crash left a partial or corrupt last record. */
+class SegmentLogBackendTest {
+    static final long SEGMENT_BYTES = 64L << 20;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void garbageAfterTheLastRecordIsTruncated() throws IOException {
+        List<String> locations = writeArticles(0, 5);
+        append(new byte[] {42, 0, 0});
+
+        try (SegmentLogBackend log = new SegmentLogBackend(dir, SEGMENT_BYTES)) {
+            assertEquals(5, log.recordCount());
+            assertEquals(urls(0, 5), scannedUrls(log));
+            for (int n = 0; n < 5; n++) assertEquals(url(n), log.read(locations.get(n)).url);
+
+            // Appends continue where the valid records end
+            log.write(article(5));
+        }
+        try (SegmentLogBackend log = new SegmentLogBackend(dir, SEGMENT_BYTES)) {
+            assertEquals(urls(0, 6), scannedUrls(log));
+        }
+    }
+
+    @Test
+    void partiallyWrittenRecordIsDropped() throws IOException {
+        writeArticles(0, 5);
+        Path segment = segment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        try (SegmentLogBackend log = new SegmentLogBackend(dir, SEGMENT_BYTES)) {
+            assertEquals(4, log.recordCount());
+            assertEquals(urls(0, 4), scannedUrls(log));
+            log.write(article(4));
+        }
+        try (SegmentLogBackend log = new SegmentLogBackend(dir, SEGMENT_BYTES)) {
+            assertEquals(urls(0, 5), scannedUrls(log));
+        }
+    }
+
+    @Test
+    void recordWithBadChecksumEndsTheLog() throws IOException {
+        writeArticles(0, 5);
+        Path segment = segment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Flip a byte in the last record's body
+            long last = channel.size() - 1;
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, last);
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) (b.get(0) ^ 0x20)}), last);
+        }
+
+        try (SegmentLogBackend log = new SegmentLogBackend(dir, SEGMENT_BYTES)) {
+            assertEquals(4, log.recordCount());
+            assertEquals(urls(0, 4), scannedUrls(log));
+        }
+    }
+
+    @Test
+    void readOnlyOpenLeavesATornTailInPlace() throws IOException {
+        writeArticles(0, 3);
+        append(new byte[] {1, 2, 3, 4, 5});
+        long size = Files.size(segment());
+
+        try (SegmentLogBackend log = SegmentLogBackend.openReadOnly(dir, SEGMENT_BYTES)) {
+            assertEquals(urls(0, 3), scannedUrls(log));
+        }
+        assertEquals(size, Files.size(segment()));
+    }
+
+    List<String> writeArticles(int from, int to) throws IOException {
+        List<String> locations = new ArrayList<>();
+        try (SegmentLogBackend log = new SegmentLogBackend(dir, SEGMENT_BYTES)) {
+            for (int n = from; n < to; n++) locations.add(log.write(article(n)));
+        }
+        return locations;
+    }
+
+    void append(byte[] bytes) throws IOException {
+        Files.write(segment(), bytes, StandardOpenOption.APPEND);
+    }
+
+    Path segment() {
+        return dir.resolve("segment-000001.log");
+    }
+
+    static List<String> scannedUrls(SegmentLogBackend log) throws IOException {
+        List<String> urls = new ArrayList<>();
+        log.scan((article, location) -> urls.add(article.url));
+        return urls;
+    }
+
+    static List<String> urls(int from, int to) {
+        List<String> urls = new ArrayList<>();
+        for (int n = from; n < to; n++) urls.add(url(n));
+        return urls;
+    }
+
+    static String url(int n) {
+        return "https://www.cnn.com/2025/12/19/us/story-" + n;
+    }
+
+    static Article article(int n) {
+        return new Article(url(n), "Story " + n, "Author", "2025-12-19",
+                           "Paragraph one of story " + n + ".\n\nParagraph two.");
+    }
+}
@@ -0,0 +1,77 @@
+package cnn.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Group commit keeps submission order, and close() writes everything already queued. */
+class WriteBehindQueueTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void groupsAreWrittenInSubmissionOrder() throws Exception {
+        List<List<String>> groups = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue queue = new WriteBehindQueue(64, 16, 1, false, group -> {
+            List<String> urls = new ArrayList<>();
+            for (Article article : group) urls.add(article.url);
+            groups.add(urls);
+            return urls.toArray(new String[0]);
+        });
+
+        List<CompletableFuture<String>> written = new ArrayList<>();
+        for (int n = 0; n < 1000; n++) written.add(queue.submit(SegmentLogBackendTest.article(n)));
+        queue.close();
+
+        List<String> order = new ArrayList<>();
+        for (List<String> group : groups) {
+            assertTrue(group.size() <= 16, "group of " + group.size());
+            order.addAll(group);
+        }
+        assertEquals(SegmentLogBackendTest.urls(0, 1000), order);
+        for (int n = 0; n < 1000; n++) assertEquals(SegmentLogBackendTest.url(n), written.get(n).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submitAfterCloseIsRefused() throws IOException {
+        WriteBehindQueue queue = new WriteBehindQueue(4, 4, 0, false, group -> new String[group.size()]);
+        queue.close();
+        assertThrows(IOException.class, () -> queue.submit(SegmentLogBackendTest.article(0)));
+    }
+
+    @Test
+    void storageKeepsEnqueueOrderAcrossRestart() throws IOException {
+        ServerConfig config = ArticleStorageTest.config(dir, "segment+writebehind");
+        config.durability = "enqueue";
+        config.flushRecords = 32;
+
+        ArticleStorage storage = new ArticleStorage(config);
+        for (int n = 0; n < 500; n++) storage.save(SegmentLogBackendTest.article(n));
+        // Acknowledged on enqueue; close() drains the queue before the backend goes away
+        storage.close();
+
+        try (StorageBackend backend = StorageBackend.open(config)) {
+            List<String> urls = new ArrayList<>();
+            backend.scan((article, location) -> urls.add(article.url));
+            assertEquals(SegmentLogBackendTest.urls(0, 500), urls);
+        }
+    }
+
+    @Test
+    void saveAfterShutdownReleasesItsUrl() throws IOException {
+        ArticleStorage storage = new ArticleStorage(ArticleStorageTest.config(dir, "text+writebehind"));
+        storage.close();
+
+        Article article = SegmentLogBackendTest.article(0);
+        IOException refused = assertThrows(IOException.class, () -> storage.save(article));
+        assertFalse(refused instanceof DuplicateArticleException);
+        // A retry after restart must not get 409: the reservation was given back
+        assertFalse(storage.exists(article.url));
+    }
+}